@@ -0,0 +1,14 @@
+package com.vladc.sqslistener;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * A received {@linkplain Message} together with its {@linkplain Acknowledgement} handle.
+ *
+ * @see SqsMessageSource
+ */
+public interface AcknowledgeableMessage extends Acknowledgement {
+
+  /** The received message, decoded if it carried a {@code Content-Encoding} attribute. */
+  Message getMessage();
+}
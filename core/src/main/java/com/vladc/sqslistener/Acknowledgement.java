@@ -0,0 +1,39 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Acknowledgement handle of a single received {@linkplain Message}. Calls are thread-safe and may
+ * be made after the handler returned. Acknowledgements are aggregated into {@linkplain
+ * DeleteMessageBatchRequest} and {@linkplain ChangeMessageVisibilityBatchRequest} requests. Only
+ * the first call to {@linkplain #ack()} or {@linkplain #nack(Duration)} takes effect, subsequent
+ * calls return the result of the first one.
+ *
+ * @see AcknowledgingMessageHandler
+ */
+public interface Acknowledgement {
+
+  /** Removes the message from the queue. */
+  CompletableFuture<Void> ack();
+
+  /** Makes the message visible again after the given delay. */
+  CompletableFuture<Void> nack(Duration delay);
+
+  /** Makes the message visible again immediately. */
+  default CompletableFuture<Void> nack() {
+    return nack(Duration.ZERO);
+  }
+
+  /**
+   * Returns acknowledgement of the message currently being handled by the calling thread.
+   *
+   * @throws IllegalStateException if called outside of message handler
+   */
+  static Acknowledgement current() {
+    return AcknowledgementContext.current();
+  }
+}
@@ -0,0 +1,282 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+/**
+ * Aggregates message deletes and visibility changes coming from any thread into batch requests.
+ * A batch is sent as soon as it holds 10 entries (SQS limit) or when the flush interval elapses.
+ * Full batches are sent concurrently by a few sender threads, the submitting thread sends itself
+ * when all of them are busy.
+ */
+@Slf4j
+class AcknowledgementBatcher {
+
+  static final int MAX_VISIBILITY_TIMEOUT_SECONDS = 43200;
+
+  private static final int MAX_BATCH_SIZE = 10;
+  private static final String FLUSH_THREAD_PREFIX = "sqs-ack-flush";
+  private static final String SENDER_THREAD_PREFIX = "sqs-ack-sender";
+  static final int MAX_CONCURRENT_SENDS = 4;
+
+  private final SqsClient sqsClient;
+  private final String queueUrl;
+  private final ScheduledExecutorService flushExecutor;
+  private final ThreadPoolExecutor senderExecutor;
+
+  private final Object lock = new Object();
+  private List<PendingEntry> pendingDeletes = new ArrayList<>(MAX_BATCH_SIZE);
+  private List<PendingEntry> pendingVisibilityChanges = new ArrayList<>(MAX_BATCH_SIZE);
+  private volatile boolean closed = false;
+
+  AcknowledgementBatcher(SqsClient sqsClient, String queueUrl, long flushIntervalMillis) {
+    this.sqsClient = sqsClient;
+    this.queueUrl = queueUrl;
+    this.flushExecutor =
+        Executors.newSingleThreadScheduledExecutor(new PrefixedThreadFactory(FLUSH_THREAD_PREFIX));
+    this.flushExecutor.scheduleWithFixedDelay(
+        this::scheduledFlush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    this.senderExecutor =
+        new ThreadPoolExecutor(
+            0,
+            MAX_CONCURRENT_SENDS,
+            60L,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            new PrefixedThreadFactory(SENDER_THREAD_PREFIX),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  CompletableFuture<Void> delete(Message message) {
+    PendingEntry entry = new PendingEntry(message, 0);
+    List<PendingEntry> batch = null;
+    synchronized (lock) {
+      pendingDeletes.add(entry);
+      if (closed || pendingDeletes.size() >= MAX_BATCH_SIZE) {
+        batch = pendingDeletes;
+        pendingDeletes = new ArrayList<>(MAX_BATCH_SIZE);
+      }
+    }
+    if (batch != null) {
+      List<PendingEntry> full = batch;
+      dispatch(() -> sendDeletes(full));
+    }
+    return entry.future;
+  }
+
+  CompletableFuture<Void> changeVisibility(Message message, Duration delay) {
+    int seconds = (int) Math.min(Math.max(delay.toSeconds(), 0), MAX_VISIBILITY_TIMEOUT_SECONDS);
+    PendingEntry entry = new PendingEntry(message, seconds);
+    List<PendingEntry> batch = null;
+    synchronized (lock) {
+      pendingVisibilityChanges.add(entry);
+      if (closed || pendingVisibilityChanges.size() >= MAX_BATCH_SIZE) {
+        batch = pendingVisibilityChanges;
+        pendingVisibilityChanges = new ArrayList<>(MAX_BATCH_SIZE);
+      }
+    }
+    if (batch != null) {
+      List<PendingEntry> full = batch;
+      dispatch(() -> sendVisibilityChanges(full));
+    }
+    return entry.future;
+  }
+
+  /**
+   * Deletes the messages with {@code DeleteMessageBatch} requests sent concurrently on the given
+   * executor, bypassing the pending batches.
+   */
+  CompletableFuture<Void> deleteAll(List<Message> messages, Executor executor) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(messages.size());
+    for (int from = 0; from < messages.size(); from += MAX_BATCH_SIZE) {
+      List<PendingEntry> batch =
+          messages.subList(from, Math.min(from + MAX_BATCH_SIZE, messages.size())).stream()
+              .map(message -> new PendingEntry(message, 0))
+              .collect(Collectors.toList());
+      batch.forEach(entry -> futures.add(entry.future));
+      try {
+        executor.execute(() -> sendDeletes(batch));
+      } catch (RejectedExecutionException e) {
+        sendDeletes(batch);
+      }
+    }
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+  }
+
+  /** Sends all pending entries on the calling thread. */
+  void flush() {
+    List<PendingEntry> deletes;
+    List<PendingEntry> visibilityChanges;
+    synchronized (lock) {
+      deletes = pendingDeletes;
+      visibilityChanges = pendingVisibilityChanges;
+      pendingDeletes = new ArrayList<>(MAX_BATCH_SIZE);
+      pendingVisibilityChanges = new ArrayList<>(MAX_BATCH_SIZE);
+    }
+    sendDeletes(deletes);
+    sendVisibilityChanges(visibilityChanges);
+  }
+
+  /**
+   * Flushes pending entries and stops the flush thread. Entries submitted afterwards are sent
+   * immediately on the submitting thread.
+   */
+  void close() {
+    synchronized (lock) {
+      closed = true;
+    }
+    flushExecutor.shutdown();
+    senderExecutor.shutdown();
+    flush();
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  private void scheduledFlush() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      // an exception would cancel the schedule
+      log.error("{} - failed to flush acknowledgements", queueUrl, e);
+    }
+  }
+
+  private void dispatch(Runnable task) {
+    if (closed) {
+      task.run();
+      return;
+    }
+    try {
+      senderExecutor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.run();
+    }
+  }
+
+  private void sendDeletes(List<PendingEntry> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<DeleteMessageBatchRequestEntry> entries =
+        IntStream.range(0, batch.size())
+            .mapToObj(
+                i ->
+                    DeleteMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .receiptHandle(batch.get(i).message.receiptHandle())
+                        .build())
+            .collect(Collectors.toList());
+
+    DeleteBatchEvent event = new DeleteBatchEvent();
+    event.begin();
+    DeleteMessageBatchResponse response;
+    try {
+      response =
+          sqsClient.deleteMessageBatch(
+              DeleteMessageBatchRequest.builder().queueUrl(queueUrl).entries(entries).build());
+    } catch (RuntimeException e) {
+      event.end(queueUrl, batch.size(), batch.size());
+      log.error("{} - SQS sdk deleteMessageBatch error", queueUrl, e);
+      batch.forEach(entry -> entry.future.completeExceptionally(e));
+      return;
+    }
+    event.end(queueUrl, batch.size(), response.failed().size());
+    complete(batch, response.failed());
+  }
+
+  private void sendVisibilityChanges(List<PendingEntry> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<ChangeMessageVisibilityBatchRequestEntry> entries =
+        IntStream.range(0, batch.size())
+            .mapToObj(
+                i ->
+                    ChangeMessageVisibilityBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .receiptHandle(batch.get(i).message.receiptHandle())
+                        .visibilityTimeout(batch.get(i).visibilityTimeoutSeconds)
+                        .build())
+            .collect(Collectors.toList());
+
+    ChangeVisibilityBatchEvent event = new ChangeVisibilityBatchEvent();
+    event.begin();
+    ChangeMessageVisibilityBatchResponse response;
+    try {
+      response =
+          sqsClient.changeMessageVisibilityBatch(
+              ChangeMessageVisibilityBatchRequest.builder()
+                  .queueUrl(queueUrl)
+                  .entries(entries)
+                  .build());
+    } catch (RuntimeException e) {
+      event.end(queueUrl, batch.size(), batch.size());
+      log.error("{} - SQS sdk changeMessageVisibilityBatch error", queueUrl, e);
+      batch.forEach(entry -> entry.future.completeExceptionally(e));
+      return;
+    }
+    event.end(queueUrl, batch.size(), response.failed().size());
+    complete(batch, response.failed());
+  }
+
+  private void complete(List<PendingEntry> batch, List<BatchResultErrorEntry> failed) {
+    for (BatchResultErrorEntry error : failed) {
+      PendingEntry entry = batch.get(Integer.parseInt(error.id()));
+      String errorMessage = "%s: %s".formatted(error.code(), error.message());
+      log.warn(
+          "{} - failed to acknowledge message {} - {}",
+          queueUrl,
+          entry.message.messageId(),
+          errorMessage);
+      entry.future.completeExceptionally(
+          SqsException.builder()
+              .message(errorMessage)
+              .awsErrorDetails(
+                  AwsErrorDetails.builder()
+                      .errorCode(error.code())
+                      .errorMessage(errorMessage)
+                      .build())
+              .build());
+    }
+    batch.forEach(entry -> entry.future.complete(null));
+  }
+
+  private static class PendingEntry {
+
+    private final Message message;
+    private final int visibilityTimeoutSeconds;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private PendingEntry(Message message, int visibilityTimeoutSeconds) {
+      this.message = message;
+      this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.vladc.sqslistener;
+
+/** Holds {@linkplain Acknowledgement} of the message being handled by the current thread. */
+final class AcknowledgementContext {
+
+  private static final ThreadLocal<Acknowledgement> CURRENT = new ThreadLocal<>();
+
+  private AcknowledgementContext() {}
+
+  static Acknowledgement current() {
+    Acknowledgement acknowledgement = CURRENT.get();
+    if (acknowledgement == null) {
+      throw new IllegalStateException("no message is being handled by the current thread");
+    }
+    return acknowledgement;
+  }
+
+  static void set(Acknowledgement acknowledgement) {
+    CURRENT.set(acknowledgement);
+  }
+
+  /** Sets the acknowledgement and returns the previous one, {@code null} if none was set. */
+  static Acknowledgement replace(Acknowledgement acknowledgement) {
+    Acknowledgement previous = CURRENT.get();
+    CURRENT.set(acknowledgement);
+    return previous;
+  }
+
+  /** Restores the acknowledgement returned by {@linkplain #replace(Acknowledgement)}. */
+  static void restore(Acknowledgement previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  static void clear() {
+    CURRENT.remove();
+  }
+}
@@ -0,0 +1,14 @@
+package com.vladc.sqslistener;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Variant of {@linkplain MessageHandler} that receives {@linkplain Acknowledgement} of the message.
+ * Meant to be used with autoAcknowledge disabled, the message stays in the queue until {@linkplain
+ * Acknowledgement#ack()} is called.
+ */
+@FunctionalInterface
+public interface AcknowledgingMessageHandler {
+
+  void handle(Message message, Acknowledgement acknowledgement);
+}
@@ -0,0 +1,25 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of message ages recorded since the listener started. Percentiles are approximated by
+ * the upper bound of power-of-two millisecond buckets, so they overestimate by at most a factor of
+ * two.
+ */
+@Getter
+@Builder
+@ToString
+public class AgeHistogram {
+
+  /** Number of recorded messages. */
+  private final long count;
+
+  private final Duration p50;
+  private final Duration p90;
+  private final Duration p99;
+  private final Duration max;
+}
@@ -0,0 +1,42 @@
+package com.vladc.sqslistener;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Thresholds of a {@linkplain BulkMessageHandler} batch. Messages of all consumers of a listener
+ * are buffered until one of the thresholds is reached.
+ */
+@Getter
+@ToString
+public class AggregationPolicy {
+
+  /** Maximum number of messages per batch, defaults to 500. */
+  private final int maxMessages;
+
+  /** Maximum total body size of a batch in bytes, defaults to 5 MiB. */
+  private final long maxBytes;
+
+  /** Maximum time the oldest buffered message waits for the batch, defaults to 5 seconds. */
+  private final Duration maxWait;
+
+  @Builder
+  private AggregationPolicy(Integer maxMessages, Long maxBytes, Duration maxWait) {
+    this.maxMessages = requireNonNullElse(maxMessages, 500);
+    this.maxBytes = requireNonNullElse(maxBytes, 5L * 1024 * 1024);
+    this.maxWait = requireNonNullElse(maxWait, Duration.ofSeconds(5));
+    if (this.maxMessages < 1) {
+      throw new IllegalArgumentException("maxMessages must be greater than 0");
+    }
+    if (this.maxBytes < 1) {
+      throw new IllegalArgumentException("maxBytes must be greater than 0");
+    }
+    if (this.maxWait.isNegative() || this.maxWait.isZero()) {
+      throw new IllegalArgumentException("maxWait must be positive");
+    }
+  }
+}
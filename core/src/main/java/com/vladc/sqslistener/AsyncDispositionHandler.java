@@ -0,0 +1,17 @@
+package com.vladc.sqslistener;
+
+import java.util.concurrent.CompletionStage;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Non-blocking variant of {@linkplain DispositionHandler}. The disposition is applied when the
+ * returned stage completes, a {@code null} stage or result is equivalent to {@linkplain
+ * Disposition#ack()}.
+ *
+ * @see AsyncMessageHandler
+ */
+@FunctionalInterface
+public interface AsyncDispositionHandler {
+
+  CompletionStage<Disposition> handle(Message message);
+}
@@ -0,0 +1,16 @@
+package com.vladc.sqslistener;
+
+import java.util.concurrent.CompletionStage;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Non-blocking variant of {@linkplain MessageHandler}. The message is acknowledged when the
+ * returned stage completes normally and handled as failed when it completes exceptionally. The
+ * worker thread is released as soon as the method returns, the message counts as in flight until
+ * the stage completes.
+ */
+@FunctionalInterface
+public interface AsyncMessageHandler {
+
+  CompletionStage<Void> handle(Message message);
+}
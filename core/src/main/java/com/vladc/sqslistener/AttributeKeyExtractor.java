@@ -0,0 +1,20 @@
+package com.vladc.sqslistener;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+/** Key extractor reading a known attribute, so the listener can request it on receive. */
+@Getter
+@RequiredArgsConstructor
+class AttributeKeyExtractor implements MessageKeyExtractor {
+
+  private final String attributeName;
+
+  @Override
+  public String extractKey(Message message) {
+    MessageAttributeValue value = message.messageAttributes().get(attributeName);
+    return value == null ? null : value.stringValue();
+  }
+}
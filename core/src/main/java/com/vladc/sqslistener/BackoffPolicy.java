@@ -0,0 +1,24 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * Computes redelivery delay of a failed message.
+ *
+ * @see Disposition#retry()
+ */
+@FunctionalInterface
+public interface BackoffPolicy {
+
+  /**
+   * @param receiveCount number of times the message has been received, taken from {@linkplain
+   *     MessageSystemAttributeName#APPROXIMATE_RECEIVE_COUNT}
+   * @return delay before the message becomes visible again
+   */
+  Duration delay(int receiveCount);
+
+  static BackoffPolicy exponential(Duration initialDelay, Duration maxDelay) {
+    return new ExponentialBackoffPolicy(initialDelay, 2.0, maxDelay);
+  }
+}
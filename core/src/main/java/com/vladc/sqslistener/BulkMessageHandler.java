@@ -0,0 +1,17 @@
+package com.vladc.sqslistener;
+
+import java.util.List;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Handles messages aggregated from several receives at once. All messages are deleted if the
+ * method returns and auto acknowledgement is enabled, if it throws none of them is deleted and they
+ * become visible again after the visibility timeout.
+ *
+ * @see AggregationPolicy
+ */
+@FunctionalInterface
+public interface BulkMessageHandler {
+
+  void handle(List<Message> messages) throws Exception;
+}
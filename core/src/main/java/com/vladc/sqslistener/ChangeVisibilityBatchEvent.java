@@ -0,0 +1,37 @@
+package com.vladc.sqslistener;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event of a single {@code ChangeMessageVisibilityBatch} request. */
+@Name("com.vladc.sqslistener.ChangeVisibilityBatch")
+@Label("SQS Change Visibility Batch")
+@Category({"SQS Listener"})
+@Description("ChangeMessageVisibilityBatch request retrying or releasing messages")
+@StackTrace(false)
+class ChangeVisibilityBatchEvent extends Event {
+
+  @Label("Queue Url")
+  String queueUrl;
+
+  @Label("Entries")
+  int entries;
+
+  @Label("Failures")
+  @Description("Entries not changed, all entries if the request failed")
+  int failures;
+
+  void end(String queueUrl, int entries, int failures) {
+    end();
+    if (shouldCommit()) {
+      this.queueUrl = queueUrl;
+      this.entries = entries;
+      this.failures = failures;
+      commit();
+    }
+  }
+}
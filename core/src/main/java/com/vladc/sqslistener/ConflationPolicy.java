@@ -0,0 +1,60 @@
+package com.vladc.sqslistener;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Builder;
+import lombok.Getter;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * Keeps only the newest message per key among messages received within a window. Superseded
+ * messages are deleted without reaching the handler, messages without key are always handled.
+ * Messages are ordered by a numeric version attribute if configured, otherwise by {@code
+ * SentTimestamp}; on equal versions the later received message wins.
+ *
+ * <p>The window starts with the first received message and is extended to whole seconds of
+ * receive wait time, it should be well below the visibility timeout.
+ */
+@Getter
+public class ConflationPolicy {
+
+  /** Extracts the conflation key of a message. */
+  private final MessageKeyExtractor keyExtractor;
+
+  /** How long received messages are buffered, defaults to 1 second. */
+  private final Duration window;
+
+  /** Numeric message attribute ordering messages of a key, {@code SentTimestamp} if not set. */
+  private final String versionAttribute;
+
+  @Builder
+  private ConflationPolicy(
+      MessageKeyExtractor keyExtractor, Duration window, String versionAttribute) {
+    this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor must not be null");
+    this.window = requireNonNullElse(window, Duration.ofSeconds(1));
+    this.versionAttribute = versionAttribute;
+    if (this.window.isNegative() || this.window.isZero()) {
+      throw new IllegalArgumentException("window must be positive");
+    }
+  }
+
+  /** Returns the version of the message, {@linkplain Long#MIN_VALUE} if it has none. */
+  long version(Message message) {
+    String version;
+    if (versionAttribute != null) {
+      MessageAttributeValue value = message.messageAttributes().get(versionAttribute);
+      version = value == null ? null : value.stringValue();
+    } else {
+      version = message.attributes().get(MessageSystemAttributeName.SENT_TIMESTAMP);
+    }
+    try {
+      return version == null ? Long.MIN_VALUE : Long.parseLong(version);
+    } catch (NumberFormatException e) {
+      return Long.MIN_VALUE;
+    }
+  }
+}
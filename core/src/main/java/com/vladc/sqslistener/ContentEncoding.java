@@ -0,0 +1,26 @@
+package com.vladc.sqslistener;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Compression applied to a message body before base64 encoding, stored in the {@value
+ * PayloadCodec#CONTENT_ENCODING_ATTRIBUTE} message attribute.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ContentEncoding {
+  GZIP("gzip"),
+  DEFLATE("deflate");
+
+  private final String value;
+
+  public static ContentEncoding fromValue(String value) {
+    for (ContentEncoding encoding : values()) {
+      if (encoding.value.equalsIgnoreCase(value)) {
+        return encoding;
+      }
+    }
+    throw new IllegalArgumentException("unsupported content encoding %s".formatted(value));
+  }
+}
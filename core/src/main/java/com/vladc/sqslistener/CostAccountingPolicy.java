@@ -0,0 +1,48 @@
+package com.vladc.sqslistener;
+
+import static java.util.Objects.requireNonNullElse;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Samples thread CPU time and allocated bytes of handler calls and aggregates them per listener and
+ * per message type. Only a fraction of messages is measured to keep the overhead bounded, the
+ * sampled messages are chosen at random so the share of each message type is unbiased.
+ *
+ * @see ListenerStats#getHandlerCost()
+ */
+@Getter
+@ToString
+public class CostAccountingPolicy {
+
+  /** Default message type attribute, the attribute {@code @SqsHandler} methods dispatch on. */
+  public static final String DEFAULT_TYPE_ATTRIBUTE = "messageType";
+
+  /** Fraction of handler calls measured, between 0 exclusive and 1, defaults to 0.01. */
+  private final double samplingRate;
+
+  /** Message attribute holding the message type, defaults to {@code messageType}. */
+  private final String typeAttribute;
+
+  /**
+   * Maximum number of distinct message types tracked, further types are aggregated as {@code
+   * (other)}. Defaults to 100.
+   */
+  private final int maxMessageTypes;
+
+  @Builder
+  private CostAccountingPolicy(
+      Double samplingRate, String typeAttribute, Integer maxMessageTypes) {
+    this.samplingRate = requireNonNullElse(samplingRate, 0.01);
+    this.typeAttribute = requireNonNullElse(typeAttribute, DEFAULT_TYPE_ATTRIBUTE);
+    this.maxMessageTypes = requireNonNullElse(maxMessageTypes, 100);
+    if (this.samplingRate <= 0 || this.samplingRate > 1) {
+      throw new IllegalArgumentException("samplingRate must be greater than 0 and at most 1");
+    }
+    if (this.maxMessageTypes < 1) {
+      throw new IllegalArgumentException("maxMessageTypes must be greater than 0");
+    }
+  }
+}
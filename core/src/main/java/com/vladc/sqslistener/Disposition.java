@@ -0,0 +1,73 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Tells {@linkplain SqsMessageListener} what to do with a {@linkplain Message} once it has been
+ * handled. Visibility changes are applied in batches using {@linkplain
+ * ChangeMessageVisibilityBatchRequest}.
+ *
+ * @see DispositionHandler
+ * @see ErrorHandler#handleError(Message, Exception)
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Disposition {
+
+  private static final Disposition ACK = new Disposition(Type.ACK, null);
+  private static final Disposition RETRY = new Disposition(Type.RETRY, null);
+  private static final Disposition RELEASE = new Disposition(Type.RELEASE, Duration.ZERO);
+
+  private final Type type;
+
+  /** Delay before the message becomes visible again. Only set for {@linkplain Type#RETRY_AFTER}. */
+  private final Duration delay;
+
+  /**
+   * Message was processed and can be removed from the queue. Ignored if autoAcknowledge is
+   * disabled.
+   */
+  public static Disposition ack() {
+    return ACK;
+  }
+
+  /**
+   * Message should be retried according to the listener {@linkplain BackoffPolicy}. If the listener
+   * has no backoff policy the message becomes visible again after the visibility timeout expires.
+   */
+  public static Disposition retry() {
+    return RETRY;
+  }
+
+  /** Message should become visible again after the given delay. */
+  public static Disposition retryAfter(Duration delay) {
+    Objects.requireNonNull(delay, "delay must not be null");
+    if (delay.isNegative()) {
+      throw new IllegalArgumentException("delay must not be negative");
+    }
+    return new Disposition(Type.RETRY_AFTER, delay);
+  }
+
+  /** Message should become visible again immediately. */
+  public static Disposition release() {
+    return RELEASE;
+  }
+
+  @Override
+  public String toString() {
+    return delay == null ? type.name() : "%s(%s)".formatted(type, delay);
+  }
+
+  public enum Type {
+    ACK,
+    RETRY,
+    RETRY_AFTER,
+    RELEASE
+  }
+}
@@ -0,0 +1,13 @@
+package com.vladc.sqslistener;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Variant of {@linkplain MessageHandler} that decides what happens to the message after it was
+ * handled. Returning {@code null} is equivalent to {@linkplain Disposition#ack()}.
+ */
+@FunctionalInterface
+public interface DispositionHandler {
+
+  Disposition handle(Message message);
+}
@@ -5,4 +5,14 @@ import software.amazon.awssdk.services.sqs.model.Message;
 public interface ErrorHandler {
 
   void onError(Message message, Exception exception);
+
+  /**
+   * Invoked by the listener when message handling fails. Override to decide what happens to the
+   * failed message, by default calls {@linkplain #onError(Message, Exception)} and returns
+   * {@linkplain Disposition#retry()}.
+   */
+  default Disposition handleError(Message message, Exception exception) {
+    onError(message, exception);
+    return Disposition.retry();
+  }
 }
@@ -0,0 +1,34 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Doubles (or multiplies by the given multiplier) the delay on each receive, starting at {@code
+ * initialDelay} for the first receive and never exceeding {@code maxDelay}.
+ */
+public class ExponentialBackoffPolicy implements BackoffPolicy {
+
+  private final Duration initialDelay;
+  private final double multiplier;
+  private final Duration maxDelay;
+
+  public ExponentialBackoffPolicy(Duration initialDelay, double multiplier, Duration maxDelay) {
+    this.initialDelay = Objects.requireNonNull(initialDelay);
+    this.maxDelay = Objects.requireNonNull(maxDelay);
+    if (multiplier < 1.0) {
+      throw new IllegalArgumentException("multiplier must be greater or equal to 1");
+    }
+    this.multiplier = multiplier;
+  }
+
+  @Override
+  public Duration delay(int receiveCount) {
+    int attempt = Math.max(receiveCount, 1) - 1;
+    double delayMillis = initialDelay.toMillis() * Math.pow(multiplier, attempt);
+    if (delayMillis >= maxDelay.toMillis()) {
+      return maxDelay;
+    }
+    return Duration.ofMillis((long) delayMillis);
+  }
+}
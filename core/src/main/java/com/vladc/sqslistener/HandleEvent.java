@@ -0,0 +1,56 @@
+package com.vladc.sqslistener;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+/**
+ * JFR event spanning the handling of a single message, from the worker picking it up until the
+ * handler, or the stage returned by an asynchronous handler, completes. The event thread is the
+ * thread that settled the message.
+ */
+@Name("com.vladc.sqslistener.Handle")
+@Label("SQS Handle")
+@Category({"SQS Listener"})
+@Description("Handling of a single message")
+@StackTrace(false)
+class HandleEvent extends Event {
+
+  static final String TIMED_OUT = "TIMED_OUT";
+
+  @Label("Queue Url")
+  String queueUrl;
+
+  @Label("Message Id")
+  String messageId;
+
+  @Label("Message Type")
+  @Description("Value of the message type attribute of the listener")
+  String messageType;
+
+  @Label("Outcome")
+  @Description("Disposition of the message or TIMED_OUT")
+  String outcome;
+
+  @Label("Failed")
+  boolean failed;
+
+  void end(SqsQueue queue, Message message, String outcome, boolean failed) {
+    end();
+    if (shouldCommit()) {
+      MessageAttributeValue messageType =
+          message.messageAttributes().get(queue.getMessageTypeAttribute());
+      this.queueUrl = queue.getUrl();
+      this.messageId = message.messageId();
+      this.messageType = messageType == null ? null : messageType.stringValue();
+      this.outcome = outcome;
+      this.failed = failed;
+      commit();
+    }
+  }
+}
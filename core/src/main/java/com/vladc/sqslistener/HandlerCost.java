@@ -0,0 +1,39 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Thread CPU time and allocated bytes of sampled handler calls. Asynchronous handlers are measured
+ * until they return, work done by the stage they return runs on other threads and is not included.
+ *
+ * @see CostAccountingPolicy
+ */
+@Getter
+@Builder
+@ToString
+public class HandlerCost {
+
+  /** Number of measured handler calls. */
+  private final long samples;
+
+  /**
+   * CPU time of all measured calls, {@code null} if no call was measured or the JVM does not
+   * measure thread CPU time.
+   */
+  private final Duration totalCpuTime;
+
+  private final Duration meanCpuTime;
+  private final Duration maxCpuTime;
+
+  /**
+   * Bytes allocated by all measured calls, -1 if no call was measured or the JVM does not measure
+   * thread allocations.
+   */
+  private final long totalAllocatedBytes;
+
+  private final long meanAllocatedBytes;
+  private final long maxAllocatedBytes;
+}
@@ -0,0 +1,148 @@
+package com.vladc.sqslistener;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+/**
+ * Measures sampled handler calls with the {@linkplain ThreadMXBean} counters of the calling thread
+ * and aggregates them per listener and per message type. Both counters are read twice per sampled
+ * call only, calls that are not sampled cost a random number.
+ */
+@Slf4j
+class HandlerCostRecorder {
+
+  static final String UNTYPED = "(untyped)";
+  static final String OTHER = "(other)";
+
+  private final CostAccountingPolicy policy;
+  private final ThreadMXBean threads;
+  private final com.sun.management.ThreadMXBean allocations;
+  private final Accumulator total = new Accumulator();
+  private final Map<String, Accumulator> byType = new ConcurrentHashMap<>();
+
+  HandlerCostRecorder(CostAccountingPolicy policy) {
+    this.policy = policy;
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    this.threads =
+        bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled() ? bean : null;
+    this.allocations =
+        bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()
+            ? (com.sun.management.ThreadMXBean) bean
+            : null;
+    if (threads == null && allocations == null) {
+      log.warn("JVM measures neither thread CPU time nor allocations, handler cost not recorded");
+    }
+  }
+
+  /** Returns a sample of the current thread if this call is sampled, {@code null} otherwise. */
+  Sample begin() {
+    if ((threads == null && allocations == null)
+        || ThreadLocalRandom.current().nextDouble() >= policy.getSamplingRate()) {
+      return null;
+    }
+    return new Sample(cpuTime(), allocatedBytes());
+  }
+
+  /** Records the cost of the sampled call, must run on the thread that began the sample. */
+  void end(Sample sample, Message message) {
+    long cpuNanos = threads == null ? -1 : cpuTime() - sample.cpuNanos;
+    long bytes = allocations == null ? -1 : allocatedBytes() - sample.allocatedBytes;
+    total.record(cpuNanos, bytes);
+    byType(messageType(message)).record(cpuNanos, bytes);
+  }
+
+  HandlerCost snapshot() {
+    return total.snapshot();
+  }
+
+  Map<String, HandlerCost> snapshotByType() {
+    Map<String, HandlerCost> snapshot = new TreeMap<>();
+    byType.forEach((type, accumulator) -> snapshot.put(type, accumulator.snapshot()));
+    return snapshot;
+  }
+
+  private Accumulator byType(String type) {
+    Accumulator accumulator = byType.get(type);
+    if (accumulator != null) {
+      return accumulator;
+    }
+    // bounds the cardinality, the size check may race and admit a few more types
+    return byType.size() >= policy.getMaxMessageTypes()
+        ? byType.computeIfAbsent(OTHER, k -> new Accumulator())
+        : byType.computeIfAbsent(type, k -> new Accumulator());
+  }
+
+  private String messageType(Message message) {
+    MessageAttributeValue value = message.messageAttributes().get(policy.getTypeAttribute());
+    return value == null || value.stringValue() == null ? UNTYPED : value.stringValue();
+  }
+
+  private long cpuTime() {
+    return threads == null ? 0 : threads.getCurrentThreadCpuTime();
+  }
+
+  private long allocatedBytes() {
+    return allocations == null ? 0 : allocations.getCurrentThreadAllocatedBytes();
+  }
+
+  static class Sample {
+
+    private final long cpuNanos;
+    private final long allocatedBytes;
+
+    private Sample(long cpuNanos, long allocatedBytes) {
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  private static class Accumulator {
+
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final AtomicLong maxCpuNanos = new AtomicLong(-1);
+    private final AtomicLong maxAllocatedBytes = new AtomicLong(-1);
+
+    private void record(long cpu, long bytes) {
+      samples.increment();
+      if (cpu >= 0) {
+        cpuNanos.add(cpu);
+        maxCpuNanos.accumulateAndGet(cpu, Math::max);
+      }
+      if (bytes >= 0) {
+        allocatedBytes.add(bytes);
+        maxAllocatedBytes.accumulateAndGet(bytes, Math::max);
+      }
+    }
+
+    private HandlerCost snapshot() {
+      long count = samples.sum();
+      long cpu = cpuNanos.sum();
+      long bytes = allocatedBytes.sum();
+      long maxCpu = maxCpuNanos.get();
+      long maxBytes = maxAllocatedBytes.get();
+      return HandlerCost.builder()
+          .samples(count)
+          .totalCpuTime(maxCpu < 0 ? null : Duration.ofNanos(cpu))
+          .meanCpuTime(maxCpu < 0 ? null : Duration.ofNanos(cpu / count))
+          .maxCpuTime(maxCpu < 0 ? null : Duration.ofNanos(maxCpu))
+          .totalAllocatedBytes(maxBytes < 0 ? -1 : bytes)
+          .meanAllocatedBytes(maxBytes < 0 ? -1 : bytes / count)
+          .maxAllocatedBytes(maxBytes)
+          .build();
+    }
+  }
+}
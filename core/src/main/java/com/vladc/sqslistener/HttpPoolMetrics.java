@@ -0,0 +1,69 @@
+package com.vladc.sqslistener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+/**
+ * Tracks connection pool saturation of an {@code SqsClient} from the HTTP metrics the SDK reports
+ * per request attempt. Register it with {@code
+ * ClientOverrideConfiguration.Builder#addMetricPublisher}; threads queueing for connections show up
+ * as pending acquires long before they show up as latency.
+ */
+public class HttpPoolMetrics implements MetricPublisher {
+
+  private final AtomicInteger maxConcurrency = new AtomicInteger(-1);
+  private final AtomicInteger leasedConcurrency = new AtomicInteger();
+  private final AtomicInteger pendingAcquires = new AtomicInteger();
+  private final AtomicInteger peakPendingAcquires = new AtomicInteger();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder saturatedRequests = new LongAdder();
+
+  @Override
+  public void publish(MetricCollection metricCollection) {
+    List<Integer> max = metricCollection.metricValues(HttpMetric.MAX_CONCURRENCY);
+    if (!max.isEmpty()) {
+      record(
+          max.get(0),
+          first(metricCollection.metricValues(HttpMetric.LEASED_CONCURRENCY)),
+          first(metricCollection.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES)));
+    }
+    // http metrics are reported on the attempt level
+    metricCollection.children().forEach(this::publish);
+  }
+
+  @Override
+  public void close() {}
+
+  public HttpPoolStats getStats() {
+    int max = maxConcurrency.get();
+    int leased = leasedConcurrency.get();
+    return HttpPoolStats.builder()
+        .maxConcurrency(max)
+        .leasedConcurrency(leased)
+        .pendingAcquires(pendingAcquires.get())
+        .peakPendingAcquires(peakPendingAcquires.get())
+        .requests(requests.sum())
+        .saturatedRequests(saturatedRequests.sum())
+        .saturation(max > 0 ? (double) leased / max : 0)
+        .build();
+  }
+
+  private void record(int max, int leased, int pending) {
+    maxConcurrency.set(max);
+    leasedConcurrency.set(leased);
+    pendingAcquires.set(pending);
+    peakPendingAcquires.accumulateAndGet(pending, Math::max);
+    requests.increment();
+    if (pending > 0) {
+      saturatedRequests.increment();
+    }
+  }
+
+  private static int first(List<Integer> values) {
+    return values.isEmpty() ? 0 : values.get(0);
+  }
+}
@@ -0,0 +1,35 @@
+package com.vladc.sqslistener;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Connection pool usage of an {@code SqsClient} reported by {@linkplain HttpPoolMetrics}.
+ * Concurrency values are taken from the most recent request, counters since the client started.
+ */
+@Getter
+@Builder
+@ToString
+public class HttpPoolStats {
+
+  /** Size of the connection pool, -1 before the first request. */
+  private final int maxConcurrency;
+
+  /** Connections in use. */
+  private final int leasedConcurrency;
+
+  /** Requests waiting for a connection. */
+  private final int pendingAcquires;
+
+  /** Highest number of requests seen waiting for a connection. */
+  private final int peakPendingAcquires;
+
+  private final long requests;
+
+  /** Number of requests that found the pool exhausted and had to wait for a connection. */
+  private final long saturatedRequests;
+
+  /** Ratio of leased connections to pool size. */
+  private final double saturation;
+}
@@ -0,0 +1,193 @@
+package com.vladc.sqslistener;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Samples heap usage after GC, GC time ratio and process CPU load from the platform MXBeans and
+ * derives a {@linkplain PressureLevel} shared by all listeners it is given to. A level is entered
+ * when any metric reaches its threshold and left only when all metrics drop {@code hysteresis}
+ * below it, so intake does not flap around a threshold.
+ *
+ * <p>Heap usage is the highest ratio of post-GC usage to maximum size among tenured heap pools. GC
+ * time ratio is the fraction of wall-clock time spent in collections since the previous sample.
+ * All values are in the {@code 0..1} range, a threshold above 1 disables the check.
+ */
+@Slf4j
+public class JvmPressureMonitor implements AutoCloseable {
+
+  private static final String SAMPLER_THREAD_NAME = "sqs-pressure-monitor";
+
+  private final double heapThrottleThreshold;
+  private final double heapPauseThreshold;
+  private final double gcThrottleThreshold;
+  private final double gcPauseThreshold;
+  private final double cpuThrottleThreshold;
+  private final double cpuPauseThreshold;
+  private final double hysteresis;
+
+  /** How often the MXBeans are sampled, paused listeners re-check the level at this rate. */
+  @Getter private final Duration sampleInterval;
+
+  /** Delay applied before each receive while throttled. */
+  @Getter private final Duration throttleDelay;
+
+  private volatile PressureLevel level = PressureLevel.NORMAL;
+  private ScheduledExecutorService sampler;
+  private long lastGcTimeMillis = -1;
+  private long lastSampleNanos;
+
+  @Builder
+  private JvmPressureMonitor(
+      Double heapThrottleThreshold,
+      Double heapPauseThreshold,
+      Double gcThrottleThreshold,
+      Double gcPauseThreshold,
+      Double cpuThrottleThreshold,
+      Double cpuPauseThreshold,
+      Double hysteresis,
+      Duration sampleInterval,
+      Duration throttleDelay) {
+    this.heapThrottleThreshold = requireNonNullElse(heapThrottleThreshold, 0.80);
+    this.heapPauseThreshold = requireNonNullElse(heapPauseThreshold, 0.90);
+    this.gcThrottleThreshold = requireNonNullElse(gcThrottleThreshold, 0.10);
+    this.gcPauseThreshold = requireNonNullElse(gcPauseThreshold, 0.25);
+    this.cpuThrottleThreshold = requireNonNullElse(cpuThrottleThreshold, 0.90);
+    this.cpuPauseThreshold = requireNonNullElse(cpuPauseThreshold, 0.98);
+    this.hysteresis = requireNonNullElse(hysteresis, 0.05);
+    this.sampleInterval = requireNonNullElse(sampleInterval, Duration.ofSeconds(1));
+    this.throttleDelay = requireNonNullElse(throttleDelay, Duration.ofMillis(500));
+  }
+
+  /** Starts sampling on a daemon thread. */
+  public synchronized void start() {
+    if (sampler != null) {
+      return;
+    }
+    sampler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, SAMPLER_THREAD_NAME);
+              thread.setDaemon(true);
+              return thread;
+            });
+    sampler.scheduleAtFixedRate(
+        this::sample, 0, sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (sampler != null) {
+      sampler.shutdownNow();
+      sampler = null;
+    }
+    level = PressureLevel.NORMAL;
+  }
+
+  public PressureLevel getLevel() {
+    return level;
+  }
+
+  PressureLevel update(double heapUsage, double gcTimeRatio, double cpuLoad) {
+    PressureLevel current = level;
+    PressureLevel raised = levelOf(heapUsage, gcTimeRatio, cpuLoad, 0);
+    PressureLevel held = min(current, levelOf(heapUsage, gcTimeRatio, cpuLoad, hysteresis));
+    PressureLevel next = raised.compareTo(held) >= 0 ? raised : held;
+    if (next != current) {
+      log.warn(
+          "JVM pressure level changed {} -> {} (heap {}, gc {}, cpu {})",
+          current,
+          next,
+          "%.2f".formatted(heapUsage),
+          "%.2f".formatted(gcTimeRatio),
+          "%.2f".formatted(cpuLoad));
+      level = next;
+    }
+    return next;
+  }
+
+  private void sample() {
+    try {
+      update(heapUsage(), gcTimeRatio(), cpuLoad());
+    } catch (Exception e) {
+      log.error("failed to sample JVM pressure", e);
+    }
+  }
+
+  private PressureLevel levelOf(
+      double heapUsage, double gcTimeRatio, double cpuLoad, double margin) {
+    if (heapUsage >= heapPauseThreshold - margin
+        || gcTimeRatio >= gcPauseThreshold - margin
+        || cpuLoad >= cpuPauseThreshold - margin) {
+      return PressureLevel.PAUSE;
+    }
+    if (heapUsage >= heapThrottleThreshold - margin
+        || gcTimeRatio >= gcThrottleThreshold - margin
+        || cpuLoad >= cpuThrottleThreshold - margin) {
+      return PressureLevel.THROTTLE;
+    }
+    return PressureLevel.NORMAL;
+  }
+
+  private static PressureLevel min(PressureLevel a, PressureLevel b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  private static double heapUsage() {
+    double usage = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      // only tenured pools support both thresholds, young pools are always full before a GC
+      if (pool.getType() != MemoryType.HEAP
+          || !pool.isUsageThresholdSupported()
+          || !pool.isCollectionUsageThresholdSupported()) {
+        continue;
+      }
+      MemoryUsage afterGc = pool.getCollectionUsage();
+      long max = pool.getUsage().getMax();
+      if (afterGc != null && max > 0) {
+        usage = Math.max(usage, (double) afterGc.getUsed() / max);
+      }
+    }
+    return usage;
+  }
+
+  private double gcTimeRatio() {
+    long gcTimeMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcTimeMillis += Math.max(gc.getCollectionTime(), 0);
+    }
+    long now = System.nanoTime();
+    double ratio = 0;
+    if (lastGcTimeMillis >= 0) {
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - lastSampleNanos);
+      if (elapsedMillis > 0) {
+        ratio = (double) (gcTimeMillis - lastGcTimeMillis) / elapsedMillis;
+      }
+    }
+    lastGcTimeMillis = gcTimeMillis;
+    lastSampleNanos = now;
+    return ratio;
+  }
+
+  private static double cpuLoad() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      // negative if not available
+      return Math.max(((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad(), 0);
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,80 @@
+package com.vladc.sqslistener;
+
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of single-threaded lanes. Tasks with equal keys run serially on the same lane, a full
+ * lane blocks the submitting thread until it has capacity again.
+ */
+class LaneExecutor {
+
+  private final ThreadPoolExecutor[] lanes;
+
+  LaneExecutor(int laneCount, int laneCapacity, String threadPrefix) {
+    if (laneCount < 1) {
+      throw new IllegalArgumentException("lanes must be greater than 0");
+    }
+    if (laneCapacity < 1) {
+      throw new IllegalArgumentException("laneCapacity must be greater than 0");
+    }
+    PrefixedThreadFactory threadFactory = new PrefixedThreadFactory(threadPrefix);
+    this.lanes = new ThreadPoolExecutor[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<>(laneCapacity),
+              threadFactory,
+              LaneExecutor::awaitCapacity);
+    }
+  }
+
+  void execute(String key, Runnable task) {
+    lanes[Math.floorMod(key.hashCode(), lanes.length)].execute(task);
+  }
+
+  int getLaneCount() {
+    return lanes.length;
+  }
+
+  /** Number of tasks waiting in all lanes. */
+  int getQueuedTasks() {
+    return Arrays.stream(lanes).mapToInt(lane -> lane.getQueue().size()).sum();
+  }
+
+  void shutdown() {
+    Arrays.stream(lanes).forEach(ThreadPoolExecutor::shutdown);
+  }
+
+  /** @return {@code true} if all lanes terminated before the timeout */
+  boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+    long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+    for (ThreadPoolExecutor lane : lanes) {
+      long remaining = Math.max(0, deadline - System.nanoTime());
+      if (!lane.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void awaitCapacity(Runnable task, ThreadPoolExecutor lane) {
+    if (lane.isShutdown()) {
+      throw new RejectedExecutionException("lane is shut down");
+    }
+    try {
+      // backpressure on the consumer instead of reordering messages of a key
+      lane.getQueue().put(task);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("interrupted while waiting for lane capacity", e);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.vladc.sqslistener;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Runtime-adjustable settings of a {@linkplain MessageListener}. When used with {@linkplain
+ * ManageableMessageListener#reconfigure(ListenerSettings)} only non-null values are applied.
+ *
+ * @see SqsQueue
+ */
+@Getter
+@Builder
+@ToString
+public class ListenerSettings {
+
+  /** Number of threads polling from the queue. */
+  private final Integer concurrency;
+
+  /** Maximum number of messages to poll in a single request. Valid values: 1 to 10. */
+  private final Integer maxBatchSize;
+
+  /** The duration (in seconds) that the received messages are hidden from other consumers. */
+  private final Integer visibilityTimeoutSeconds;
+
+  /** Long polling (20 seconds receive wait time) or short polling (1 second). */
+  private final Boolean longPolling;
+
+  /** Number of threads processing messages. */
+  private final Integer workerPoolSize;
+}
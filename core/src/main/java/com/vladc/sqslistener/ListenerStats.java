@@ -0,0 +1,83 @@
+package com.vladc.sqslistener;
+
+import java.time.Instant;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Point-in-time statistics of a {@linkplain MessageListener}.
+ *
+ * @see ManageableMessageListener#getStats()
+ */
+@Getter
+@Builder
+@ToString
+public class ListenerStats {
+
+  private final String queueUrl;
+  private final boolean running;
+  private final boolean paused;
+
+  /** Number of active consumers polling the queue. */
+  private final int consumers;
+
+  /** Number of consumers waiting before the next receive after an SQS error. */
+  private final int consumersInBackoff;
+
+  /**
+   * Number of consumers not receiving while they wait for handlers of their last batch, for the
+   * aggregator or for JVM pressure to ease.
+   */
+  private final int consumersBusy;
+
+  /** Number of receive requests failed in a row, reset by a successful receive. */
+  private final int consecutiveReceiveFailures;
+
+  /** Last time a receive request completed, or listener start time if none completed yet. */
+  private final Instant lastReceiveTime;
+
+  /** Number of received messages submitted to the worker pool and not yet processed. */
+  private final int inFlight;
+
+  private final long processed;
+  private final long failed;
+
+  /** Number of failed messages whose handler exceeded the handler timeout. */
+  private final long timedOut;
+
+  /** Number of messages deleted unhandled because a newer message of their key was received. */
+  private final long conflated;
+
+  /** Number of messages deleted or diverted unhandled because they exceeded the max age. */
+  private final long expired;
+
+  /** Time between sending and receiving messages, the consumer lag. */
+  private final AgeHistogram messageAge;
+
+  /** Time since messages were first received, grows with redeliveries. */
+  private final AgeHistogram firstReceiveAge;
+
+  /** Cost of sampled handler calls, {@code null} if cost accounting is disabled. */
+  private final HandlerCost handlerCost;
+
+  /**
+   * Cost of sampled handler calls by message type, {@code null} if cost accounting is disabled.
+   *
+   * @see CostAccountingPolicy
+   */
+  private final Map<String, HandlerCost> handlerCostByType;
+
+  /** Average number of processed messages per second during the last minute. */
+  private final double throughput;
+
+  /** Worker pool size or -1 if the executor is not a thread pool. */
+  private final int workerPoolSize;
+
+  /** Number of workers processing messages or -1 if the executor is not a thread pool. */
+  private final int activeWorkers;
+
+  /** Number of tasks waiting for a worker or -1 if the executor is not a thread pool. */
+  private final int queuedTasks;
+}
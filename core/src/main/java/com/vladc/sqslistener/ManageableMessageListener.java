@@ -0,0 +1,36 @@
+package com.vladc.sqslistener;
+
+/** Listener that can be inspected and controlled while running. */
+public interface ManageableMessageListener extends MessageListener {
+
+  /**
+   * Changes the number of threads processing messages of a running listener. In-flight messages
+   * are not affected, idle threads above the new size are terminated.
+   *
+   * @throws IllegalStateException if the worker pool is not resizable
+   */
+  void resizeWorkerPool(int poolSize);
+
+  /**
+   * Stops receiving new messages. Messages already received are processed and acknowledged as
+   * usual.
+   */
+  void pause();
+
+  /** Resumes receiving messages after {@linkplain #pause()}. */
+  void resume();
+
+  boolean isPaused();
+
+  /**
+   * Applies non-null settings to a running listener. Settings are picked up by the next receive
+   * request, in-flight messages are not affected.
+   */
+  void reconfigure(ListenerSettings settings);
+
+  /** @return current settings of the listener */
+  ListenerSettings getSettings();
+
+  /** @return current statistics of the listener */
+  ListenerStats getStats();
+}
@@ -0,0 +1,50 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * Sheds messages older than {@linkplain #maxAge} by their {@code SentTimestamp}. Expired messages
+ * never reach the handler: they are deleted in batches or, if a divert queue is set, moved there
+ * first. Useful to drain a backlog of messages that lost their value, e.g. stale notifications.
+ */
+@Getter
+@ToString
+public class MaxAgePolicy {
+
+  /** Maximum time since the message was sent. */
+  private final Duration maxAge;
+
+  /**
+   * Url or name of a standard queue receiving expired messages with their body and message
+   * attributes. Expired messages are only deleted if not set.
+   */
+  private final String divertQueue;
+
+  @Builder
+  private MaxAgePolicy(Duration maxAge, String divertQueue) {
+    this.maxAge = Objects.requireNonNull(maxAge, "maxAge must not be null");
+    this.divertQueue = divertQueue;
+    if (maxAge.isNegative() || maxAge.isZero()) {
+      throw new IllegalArgumentException("maxAge must be positive");
+    }
+  }
+
+  /** Messages without {@code SentTimestamp} never expire. */
+  boolean isExpired(Message message, long nowMillis) {
+    String sentTimestamp = message.attributes().get(MessageSystemAttributeName.SENT_TIMESTAMP);
+    if (sentTimestamp == null) {
+      return false;
+    }
+    try {
+      return nowMillis - Long.parseLong(sentTimestamp) > maxAge.toMillis();
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
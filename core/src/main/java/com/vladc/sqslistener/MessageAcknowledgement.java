@@ -0,0 +1,52 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.Getter;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+class MessageAcknowledgement implements AcknowledgeableMessage {
+
+  @Getter private final Message message;
+  private final AcknowledgementBatcher batcher;
+  private final AtomicReference<CompletableFuture<Void>> result = new AtomicReference<>();
+
+  MessageAcknowledgement(Message message, AcknowledgementBatcher batcher) {
+    this.message = message;
+    this.batcher = batcher;
+  }
+
+  @Override
+  public CompletableFuture<Void> ack() {
+    return settle(() -> batcher.delete(message));
+  }
+
+  @Override
+  public CompletableFuture<Void> nack(Duration delay) {
+    return settle(() -> batcher.changeVisibility(message, delay));
+  }
+
+  boolean isSettled() {
+    return result.get() != null;
+  }
+
+  private CompletableFuture<Void> settle(Supplier<CompletableFuture<Void>> action) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    if (!result.compareAndSet(null, future)) {
+      return result.get();
+    }
+    action
+        .get()
+        .whenComplete(
+            (v, e) -> {
+              if (e != null) {
+                future.completeExceptionally(e);
+              } else {
+                future.complete(null);
+              }
+            });
+    return future;
+  }
+}
@@ -0,0 +1,57 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of message ages in power-of-two millisecond buckets. Bucket {@code n} holds
+ * ages from {@code 2^(n-1)} to {@code 2^n - 1} milliseconds, bucket 0 holds zero and negative ages
+ * caused by clock skew.
+ */
+class MessageAgeRecorder {
+
+  private static final int BUCKETS = Long.SIZE;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long ageMillis) {
+    long age = Math.max(0, ageMillis);
+    counts.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(age));
+    max.accumulateAndGet(age, Math::max);
+  }
+
+  AgeHistogram snapshot() {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    long maxAge = max.get();
+    return AgeHistogram.builder()
+        .count(count)
+        .p50(percentile(snapshot, count, 0.5, maxAge))
+        .p90(percentile(snapshot, count, 0.9, maxAge))
+        .p99(percentile(snapshot, count, 0.99, maxAge))
+        .max(count == 0 ? null : Duration.ofMillis(maxAge))
+        .build();
+  }
+
+  private static Duration percentile(long[] counts, long total, double quantile, long maxAge) {
+    if (total == 0) {
+      return null;
+    }
+    long rank = (long) Math.ceil(total * quantile);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        long upperBound = i == 0 ? 0 : i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+        return Duration.ofMillis(Math.min(upperBound, maxAge));
+      }
+    }
+    return Duration.ofMillis(maxAge);
+  }
+}
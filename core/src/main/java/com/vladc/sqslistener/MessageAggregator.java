@@ -0,0 +1,246 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Accumulates messages received by all consumers of a listener and hands them to a {@linkplain
+ * BulkMessageHandler} once the size, byte or time threshold of the {@linkplain AggregationPolicy}
+ * is reached. One batch is handled at a time, consumers adding to a full buffer wait until the
+ * running batch completes. Buffered and handled messages have their visibility extended, handled
+ * batches are deleted with concurrent {@code DeleteMessageBatch} requests unless the listener
+ * acknowledges manually. Visibility timeout and acknowledgement mode are read from the current
+ * queue settings, so they follow {@linkplain SqsMessageListener#reconfigure}.
+ */
+@Slf4j
+class MessageAggregator {
+
+  private static final String SCHEDULER_THREAD_PREFIX = "sqs-bulk-scheduler";
+  private static final String ACK_THREAD_PREFIX = "sqs-bulk-ack";
+  static final int ACK_PARALLELISM = 4;
+
+  private final Supplier<SqsQueue> queue;
+  private final BulkMessageHandler handler;
+  private final AggregationPolicy policy;
+  private final AcknowledgementBatcher acknowledgementBatcher;
+  private final ExecutorService taskExecutor;
+  private final BiConsumer<Integer, Boolean> onComplete;
+  private final ScheduledExecutorService scheduler;
+  private final ThreadPoolExecutor ackExecutor;
+
+  private final Semaphore flushPermit = new Semaphore(1);
+  private final Set<Entry> pending = ConcurrentHashMap.newKeySet();
+  private final Object lock = new Object();
+  private List<Entry> buffer = new ArrayList<>();
+  private long bufferBytes;
+  private long bufferStartNanos;
+
+  /** @param onComplete called with the number of settled messages and whether they succeeded */
+  MessageAggregator(
+      Supplier<SqsQueue> queue,
+      AcknowledgementBatcher acknowledgementBatcher,
+      ExecutorService taskExecutor,
+      BiConsumer<Integer, Boolean> onComplete) {
+    this.queue = queue;
+    this.handler = queue.get().getBulkHandler();
+    this.policy = queue.get().getAggregationPolicy();
+    this.acknowledgementBatcher = acknowledgementBatcher;
+    this.taskExecutor = taskExecutor;
+    this.onComplete = onComplete;
+    this.scheduler =
+        new ScheduledThreadPoolExecutor(1, new PrefixedThreadFactory(SCHEDULER_THREAD_PREFIX));
+    this.ackExecutor =
+        new ThreadPoolExecutor(
+            ACK_PARALLELISM,
+            ACK_PARALLELISM,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            new PrefixedThreadFactory(ACK_THREAD_PREFIX));
+    // checked every second, so a reconfigured visibility timeout applies to buffered messages
+    scheduler.scheduleWithFixedDelay(this::extendVisibility, 1, 1, TimeUnit.SECONDS);
+  }
+
+  /** Buffers the messages, waits for the running batch if the buffer reached a threshold. */
+  void add(List<Message> messages) throws InterruptedException {
+    boolean full;
+    synchronized (lock) {
+      if (buffer.isEmpty()) {
+        bufferStartNanos = System.nanoTime();
+        scheduleFlush();
+      }
+      for (Message message : messages) {
+        Entry entry = new Entry(message);
+        buffer.add(entry);
+        pending.add(entry);
+        bufferBytes += entry.bytes;
+      }
+      full = isFull();
+    }
+    if (full) {
+      flushPermit.acquire();
+      flush();
+    }
+  }
+
+  /** Stops scheduling, buffered messages become visible again after the visibility timeout. */
+  void close() {
+    scheduler.shutdownNow();
+    ackExecutor.shutdown();
+  }
+
+  int getBufferedCount() {
+    synchronized (lock) {
+      return buffer.size();
+    }
+  }
+
+  private void scheduleFlush() {
+    try {
+      scheduler.schedule(this::flushIfDue, policy.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // listener is shutting down
+    }
+  }
+
+  private boolean isFull() {
+    return buffer.size() >= policy.getMaxMessages() || bufferBytes >= policy.getMaxBytes();
+  }
+
+  private void flushIfDue() {
+    boolean due;
+    synchronized (lock) {
+      due =
+          !buffer.isEmpty()
+              && (isFull()
+                  || System.nanoTime() - bufferStartNanos >= policy.getMaxWait().toNanos());
+    }
+    // a running batch checks again once it completes
+    if (due && flushPermit.tryAcquire()) {
+      flush();
+    }
+  }
+
+  /** Hands up to {@code maxMessages} buffered messages to the handler, requires the permit. */
+  private void flush() {
+    List<Entry> batch;
+    synchronized (lock) {
+      int size = Math.min(buffer.size(), policy.getMaxMessages());
+      batch = new ArrayList<>(buffer.subList(0, size));
+      buffer = new ArrayList<>(buffer.subList(size, buffer.size()));
+      bufferBytes = buffer.stream().mapToLong(entry -> entry.bytes).sum();
+      if (!buffer.isEmpty()) {
+        bufferStartNanos = System.nanoTime();
+        scheduleFlush();
+      }
+    }
+    if (batch.isEmpty()) {
+      flushPermit.release();
+      return;
+    }
+    try {
+      taskExecutor.execute(() -> handle(batch));
+    } catch (RejectedExecutionException e) {
+      log.warn("{} - bulk handler rejected {} messages", queue.get().getUrl(), batch.size());
+      complete(batch, false);
+    }
+  }
+
+  private void handle(List<Entry> batch) {
+    SqsQueue queue = this.queue.get();
+    List<Message> messages = new ArrayList<>(batch.size());
+    for (Entry entry : batch) {
+      try {
+        messages.add(
+            queue.getPayloadCodec() == null
+                ? entry.message
+                : queue.getPayloadCodec().decode(entry.message));
+      } catch (IllegalArgumentException e) {
+        // left for the redrive policy
+        log.error("{} - failed to decode message {}", queue.getUrl(), entry.message.messageId(), e);
+      }
+    }
+
+    boolean success = false;
+    try {
+      handler.handle(messages);
+      success = true;
+      if (!queue.getAutoAcknowledge()) {
+        return;
+      }
+      acknowledgementBatcher
+          .deleteAll(messages, ackExecutor)
+          .whenComplete(
+              (v, e) -> {
+                if (e != null) {
+                  log.warn("{} - failed to delete handled bulk messages", queue.getUrl(), e);
+                }
+              });
+    } catch (Exception e) {
+      log.error("{} - bulk handler failed for {} messages", queue.getUrl(), messages.size(), e);
+    } finally {
+      complete(batch, success);
+    }
+  }
+
+  private void complete(List<Entry> batch, boolean success) {
+    // failed messages become visible once their current visibility timeout expires
+    batch.forEach(pending::remove);
+    onComplete.accept(batch.size(), success);
+    flushPermit.release();
+    flushIfDue();
+  }
+
+  private void extendVisibility() {
+    try {
+      int visibilityTimeoutSeconds = queue.get().getVisibilityTimeoutSeconds();
+      if (visibilityTimeoutSeconds > 0) {
+        extendVisibility(Duration.ofSeconds(visibilityTimeoutSeconds));
+      }
+    } catch (RuntimeException e) {
+      // an exception would cancel the schedule
+      log.error("{} - failed to extend visibility", queue.get().getUrl(), e);
+    }
+  }
+
+  private void extendVisibility(Duration visibilityTimeout) {
+    long extendAfterNanos = visibilityTimeout.toNanos() / 2;
+    long now = System.nanoTime();
+    List<Entry> expiring =
+        pending.stream()
+            .filter(entry -> now - entry.visibleSinceNanos >= extendAfterNanos)
+            .collect(Collectors.toList());
+    for (Entry entry : expiring) {
+      entry.visibleSinceNanos = now;
+      acknowledgementBatcher.changeVisibility(entry.message, visibilityTimeout);
+    }
+  }
+
+  private static class Entry {
+
+    private final Message message;
+    private final long bytes;
+    private volatile long visibleSinceNanos = System.nanoTime();
+
+    private Entry(Message message) {
+      this.message = message;
+      this.bytes = message.body() == null ? 0 : message.body().length();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.vladc.sqslistener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+/** Copies messages to another queue with {@code SendMessageBatch} requests of up to 10 entries. */
+@Slf4j
+class MessageDiverter {
+
+  private static final int MAX_BATCH_SIZE = 10;
+
+  private final SqsClient sqsClient;
+  private final String targetUrl;
+
+  MessageDiverter(SqsClient sqsClient, String targetUrl) {
+    this.sqsClient = sqsClient;
+    this.targetUrl = targetUrl;
+  }
+
+  /** @return messages sent successfully, the rest is left on the source queue */
+  List<Message> send(List<Message> messages) {
+    List<Message> sent = new ArrayList<>(messages.size());
+    for (int from = 0; from < messages.size(); from += MAX_BATCH_SIZE) {
+      List<Message> batch =
+          messages.subList(from, Math.min(from + MAX_BATCH_SIZE, messages.size()));
+      List<SendMessageBatchRequestEntry> entries =
+          IntStream.range(0, batch.size())
+              .mapToObj(
+                  i ->
+                      SendMessageBatchRequestEntry.builder()
+                          .id(String.valueOf(i))
+                          .messageBody(batch.get(i).body())
+                          .messageAttributes(batch.get(i).messageAttributes())
+                          .build())
+              .collect(Collectors.toList());
+
+      SendMessageBatchResponse response;
+      try {
+        response =
+            sqsClient.sendMessageBatch(
+                SendMessageBatchRequest.builder().queueUrl(targetUrl).entries(entries).build());
+      } catch (AwsServiceException | SdkClientException e) {
+        log.error("{} - SQS sdk sendMessageBatch error", targetUrl, e);
+        continue;
+      }
+      Set<String> failed =
+          response.failed().stream().map(BatchResultErrorEntry::id).collect(Collectors.toSet());
+      for (int i = 0; i < batch.size(); i++) {
+        if (!failed.contains(String.valueOf(i))) {
+          sent.add(batch.get(i));
+        }
+      }
+      if (!failed.isEmpty()) {
+        log.warn("{} - failed to send {} diverted messages", targetUrl, failed.size());
+      }
+    }
+    return sent;
+  }
+}
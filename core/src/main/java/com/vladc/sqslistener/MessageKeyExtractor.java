@@ -0,0 +1,27 @@
+package com.vladc.sqslistener;
+
+import java.util.Objects;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Extracts the affinity key of a message. Messages with equal keys are processed serially on the
+ * same lane while different keys run in parallel.
+ *
+ * @see SqsMessageListenerBuilder#keyExtractor(MessageKeyExtractor)
+ */
+@FunctionalInterface
+public interface MessageKeyExtractor {
+
+  /**
+   * Returns the key of the message or {@code null} to process it on the worker pool without
+   * affinity. The message body is still encoded if it carries a {@code Content-Encoding}
+   * attribute.
+   */
+  String extractKey(Message message);
+
+  /** Uses the string value of the given message attribute as key. */
+  static MessageKeyExtractor attribute(String attributeName) {
+    Objects.requireNonNull(attributeName, "attributeName must not be null");
+    return new AttributeKeyExtractor(attributeName);
+  }
+}
@@ -4,9 +4,22 @@ import java.util.concurrent.TimeUnit;
 
 public interface MessageListener {
 
+  /**
+   * Resolves and validates the queue before the listener is subscribed. Called by {@linkplain
+   * #subscribe()} if not called before, may be called concurrently for different listeners.
+   *
+   * @throws IllegalStateException if the queue does not exist or can not be accessed
+   */
+  default void prepare() {}
+
   void subscribe();
 
+  /** Stops receiving, in-flight messages keep being processed. */
   void destroy();
 
+  /**
+   * Waits for in-flight messages after {@linkplain #destroy()}. Call it to make sure their
+   * acknowledgements are sent before the application exits.
+   */
   void awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException;
 }
@@ -0,0 +1,39 @@
+package com.vladc.sqslistener;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Tracing SPI bridging listeners and publishers to a tracing library. Listeners open a consumer
+ * span around each receive, linked to the producer context of every received message, and a span
+ * around each message handled, child of its producer context and linked to the receive span.
+ * Publishers add the current context to outgoing messages.
+ *
+ * <p>Listeners without tracer skip context extraction entirely. All methods default to no-op, so
+ * implementations override only what they record.
+ */
+public interface MessageTracer {
+
+  MessageTracer NOOP = new MessageTracer() {};
+
+  /** Starts a span around a {@code ReceiveMessage} request. */
+  default TraceSpan startReceive(String queueUrl) {
+    return TraceSpan.NOOP;
+  }
+
+  /**
+   * Starts a span around the handler of a message. The span stays open until an asynchronous
+   * handler completes.
+   *
+   * @param parent producer context of the message, {@code null} if it carries none
+   * @param receive context of the receive span, {@code null} if not recorded
+   */
+  default TraceSpan startHandle(
+      String queueUrl, Message message, TraceContext parent, TraceContext receive) {
+    return TraceSpan.NOOP;
+  }
+
+  /** @return context of the current span of the calling thread, {@code null} if none */
+  default TraceContext currentContext() {
+    return null;
+  }
+}
@@ -0,0 +1,281 @@
+package com.vladc.sqslistener;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+/**
+ * Compresses message bodies with gzip or deflate and base64-encodes the result, recording the
+ * encoding in the {@value #CONTENT_ENCODING_ATTRIBUTE} message attribute. Messages without the
+ * attribute, or with an encoding other than gzip and deflate, pass through unchanged.
+ *
+ * <p>Each thread reuses its own {@linkplain Deflater}, {@linkplain Inflater} and buffers, so the
+ * codec is safe to share between listeners and publishers.
+ */
+@Slf4j
+public class PayloadCodec {
+
+  public static final String CONTENT_ENCODING_ATTRIBUTE = "Content-Encoding";
+
+  private static final int DEFAULT_MAX_DECODED_BYTES = 16 * 1024 * 1024;
+  private static final int CHUNK_SIZE = 8192;
+  // larger buffers are dropped after use instead of being kept by the thread
+  private static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int GZIP_FEXTRA = 4;
+  private static final int GZIP_FNAME = 8;
+  private static final int GZIP_FCOMMENT = 16;
+  private static final int GZIP_FHCRC = 2;
+  private static final byte[] GZIP_HEADER = {
+    0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, -1
+  };
+
+  private static final ThreadLocal<CodecResources> RESOURCES =
+      ThreadLocal.withInitial(CodecResources::new);
+
+  private final int compressionLevel;
+  private final int maxDecodedBytes;
+
+  public PayloadCodec() {
+    this(Deflater.DEFAULT_COMPRESSION, DEFAULT_MAX_DECODED_BYTES);
+  }
+
+  /**
+   * @param compressionLevel {@linkplain Deflater} compression level
+   * @param maxDecodedBytes decoding fails for bodies that decompress to more bytes
+   */
+  public PayloadCodec(int compressionLevel, int maxDecodedBytes) {
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > 9) {
+      throw new IllegalArgumentException("compressionLevel must be between -1 and 9");
+    }
+    this.compressionLevel = compressionLevel;
+    this.maxDecodedBytes = maxDecodedBytes;
+  }
+
+  /**
+   * Compresses the body and sets the content encoding attribute. The request is returned
+   * unchanged if the encoded body is not smaller than the original one.
+   */
+  public SendMessageRequest encode(SendMessageRequest request, ContentEncoding encoding) {
+    String body = request.messageBody();
+    if (body == null || request.messageAttributes().containsKey(CONTENT_ENCODING_ATTRIBUTE)) {
+      return request;
+    }
+    String encoded = encode(body, encoding);
+    if (encoded.length() >= body.getBytes(StandardCharsets.UTF_8).length) {
+      return request;
+    }
+
+    Map<String, MessageAttributeValue> attributes = new HashMap<>(request.messageAttributes());
+    attributes.put(
+        CONTENT_ENCODING_ATTRIBUTE,
+        MessageAttributeValue.builder()
+            .dataType("String")
+            .stringValue(encoding.getValue())
+            .build());
+    return request.toBuilder().messageBody(encoded).messageAttributes(attributes).build();
+  }
+
+  /**
+   * @return message with decompressed body and without the content encoding attribute, or the
+   *     same message if it is not encoded or its encoding is not supported
+   * @throws IllegalArgumentException if the body is corrupt
+   */
+  public Message decode(Message message) {
+    MessageAttributeValue encoding = message.messageAttributes().get(CONTENT_ENCODING_ATTRIBUTE);
+    if (encoding == null || encoding.stringValue() == null) {
+      return message;
+    }
+    ContentEncoding contentEncoding;
+    try {
+      contentEncoding = ContentEncoding.fromValue(encoding.stringValue());
+    } catch (IllegalArgumentException e) {
+      // identity, br or other encodings set by producers are left to the handler
+      log.debug(
+          "message {} has unsupported content encoding {}, not decoded",
+          message.messageId(),
+          encoding.stringValue());
+      return message;
+    }
+
+    Map<String, MessageAttributeValue> attributes = new HashMap<>(message.messageAttributes());
+    attributes.remove(CONTENT_ENCODING_ATTRIBUTE);
+    return message.toBuilder()
+        .body(decode(message.body(), contentEncoding))
+        .messageAttributes(attributes)
+        .build();
+  }
+
+  public String encode(String body, ContentEncoding encoding) {
+    CodecResources resources = RESOURCES.get();
+    try {
+      byte[] input = body.getBytes(StandardCharsets.UTF_8);
+      boolean gzip = encoding == ContentEncoding.GZIP;
+      Deflater deflater = gzip ? resources.rawDeflater : resources.zlibDeflater;
+      deflater.reset();
+      deflater.setLevel(compressionLevel);
+      deflater.setInput(input);
+      deflater.finish();
+
+      OutputBuffer output = resources.output;
+      if (gzip) {
+        output.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+      }
+      while (!deflater.finished()) {
+        int length = deflater.deflate(resources.chunk);
+        output.write(resources.chunk, 0, length);
+      }
+      if (gzip) {
+        resources.crc.reset();
+        resources.crc.update(input);
+        output.writeIntLe((int) resources.crc.getValue());
+        output.writeIntLe(input.length);
+      }
+
+      ByteBuffer encoded = Base64.getEncoder().encode(output.asByteBuffer());
+      return new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1);
+    } finally {
+      resources.release();
+    }
+  }
+
+  public String decode(String body, ContentEncoding encoding) {
+    byte[] compressed = Base64.getDecoder().decode(body);
+    CodecResources resources = RESOURCES.get();
+    try {
+      boolean gzip = encoding == ContentEncoding.GZIP;
+      int offset = gzip ? gzipHeaderLength(compressed) : 0;
+      Inflater inflater = gzip ? resources.rawInflater : resources.zlibInflater;
+      inflater.reset();
+      inflater.setInput(compressed, offset, compressed.length - offset);
+
+      OutputBuffer output = resources.output;
+      while (!inflater.finished()) {
+        int length = inflater.inflate(resources.chunk);
+        if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalArgumentException("truncated %s payload".formatted(encoding.getValue()));
+        }
+        output.write(resources.chunk, 0, length);
+        if (output.size() > maxDecodedBytes) {
+          throw new IllegalArgumentException(
+              "decoded payload exceeds %d bytes".formatted(maxDecodedBytes));
+        }
+      }
+
+      if (gzip) {
+        int trailer = offset + (int) inflater.getBytesRead();
+        resources.crc.reset();
+        resources.crc.update(output.asByteBuffer());
+        if (trailer + 8 > compressed.length
+            || readIntLe(compressed, trailer) != (int) resources.crc.getValue()) {
+          throw new IllegalArgumentException("gzip payload checksum mismatch");
+        }
+      }
+      return output.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException(
+          "invalid %s payload".formatted(encoding.getValue()), e);
+    } finally {
+      resources.release();
+    }
+  }
+
+  private static int gzipHeaderLength(byte[] data) {
+    if (data.length < GZIP_HEADER.length
+        || ((data[0] & 0xff) | (data[1] & 0xff) << 8) != GZIP_MAGIC
+        || data[2] != Deflater.DEFLATED) {
+      throw new IllegalArgumentException("invalid gzip header");
+    }
+    int flags = data[3];
+    int position = GZIP_HEADER.length;
+    if ((flags & GZIP_FEXTRA) != 0) {
+      checkBounds(data, position + 2);
+      position += 2 + ((data[position] & 0xff) | (data[position + 1] & 0xff) << 8);
+    }
+    if ((flags & GZIP_FNAME) != 0) {
+      position = skipZeroTerminated(data, position);
+    }
+    if ((flags & GZIP_FCOMMENT) != 0) {
+      position = skipZeroTerminated(data, position);
+    }
+    if ((flags & GZIP_FHCRC) != 0) {
+      position += 2;
+    }
+    checkBounds(data, position);
+    return position;
+  }
+
+  private static int skipZeroTerminated(byte[] data, int position) {
+    while (position < data.length && data[position] != 0) {
+      position++;
+    }
+    checkBounds(data, position + 1);
+    return position + 1;
+  }
+
+  private static void checkBounds(byte[] data, int position) {
+    if (position > data.length) {
+      throw new IllegalArgumentException("invalid gzip header");
+    }
+  }
+
+  private static int readIntLe(byte[] data, int position) {
+    return (data[position] & 0xff)
+        | (data[position + 1] & 0xff) << 8
+        | (data[position + 2] & 0xff) << 16
+        | (data[position + 3] & 0xff) << 24;
+  }
+
+  private static class CodecResources {
+
+    private final Deflater zlibDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+    private final Deflater rawDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater zlibInflater = new Inflater(false);
+    private final Inflater rawInflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private OutputBuffer output = new OutputBuffer();
+
+    void release() {
+      if (output.capacity() > MAX_RETAINED_BUFFER_BYTES) {
+        output = new OutputBuffer();
+      } else {
+        output.reset();
+      }
+    }
+  }
+
+  private static class OutputBuffer extends ByteArrayOutputStream {
+
+    private OutputBuffer() {
+      super(CHUNK_SIZE);
+    }
+
+    int capacity() {
+      return buf.length;
+    }
+
+    ByteBuffer asByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    void writeIntLe(int value) {
+      write(value);
+      write(value >>> 8);
+      write(value >>> 16);
+      write(value >>> 24);
+    }
+  }
+}
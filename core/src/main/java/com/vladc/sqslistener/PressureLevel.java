@@ -0,0 +1,14 @@
+package com.vladc.sqslistener;
+
+/** JVM pressure level reported by {@linkplain JvmPressureMonitor}, ordered by severity. */
+public enum PressureLevel {
+
+  /** Listeners receive messages normally. */
+  NORMAL,
+
+  /** Listeners delay each receive by the monitor throttle delay. */
+  THROTTLE,
+
+  /** Listeners stop receiving until pressure drops. */
+  PAUSE
+}
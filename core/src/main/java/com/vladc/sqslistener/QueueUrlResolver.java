@@ -0,0 +1,51 @@
+package com.vladc.sqslistener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+
+/**
+ * Resolves queue names to queue urls with {@code GetQueueUrl}. Results are cached per client for
+ * the lifetime of the process, queue urls do not change while the queue exists.
+ */
+public final class QueueUrlResolver {
+
+  private static final Map<SqsClient, Map<String, String>> CACHE =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private QueueUrlResolver() {}
+
+  /** @return {@code true} if the value is a queue url rather than a queue name */
+  public static boolean isUrl(String queue) {
+    return queue.startsWith("https://") || queue.startsWith("http://");
+  }
+
+  /**
+   * @param queue queue url or name
+   * @return the url unchanged or the url of the named queue
+   * @throws software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException if there is no
+   *     queue with the given name
+   */
+  public static String resolve(SqsClient sqsClient, String queue) {
+    if (isUrl(queue)) {
+      return queue;
+    }
+
+    Map<String, String> urls = CACHE.computeIfAbsent(sqsClient, c -> new ConcurrentHashMap<>());
+    String url = urls.get(queue);
+    if (url == null) {
+      // concurrent lookups of the same name may both call GetQueueUrl, the result is the same
+      url =
+          sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queue).build()).queueUrl();
+      urls.put(queue, url);
+    }
+    return url;
+  }
+
+  static void clearCache() {
+    CACHE.clear();
+  }
+}
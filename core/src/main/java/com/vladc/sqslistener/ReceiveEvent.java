@@ -0,0 +1,42 @@
+package com.vladc.sqslistener;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** JFR event of a single {@code ReceiveMessage} request of a listener consumer. */
+@Name("com.vladc.sqslistener.Receive")
+@Label("SQS Receive")
+@Category({"SQS Listener"})
+@Description("ReceiveMessage request of a listener consumer")
+@StackTrace(false)
+class ReceiveEvent extends Event {
+
+  @Label("Queue Url")
+  String queueUrl;
+
+  @Label("Wait Time")
+  @Timespan(Timespan.SECONDS)
+  long waitTime;
+
+  @Label("Messages")
+  int messages;
+
+  @Label("Failed")
+  boolean failed;
+
+  void end(String queueUrl, int waitTimeSeconds, int messages, boolean failed) {
+    end();
+    if (shouldCommit()) {
+      this.queueUrl = queueUrl;
+      this.waitTime = waitTimeSeconds;
+      this.messages = messages;
+      this.failed = failed;
+      commit();
+    }
+  }
+}
@@ -1,52 +1,105 @@
 package com.vladc.sqslistener;
 
-import static java.util.Objects.requireNonNullElseGet;
+import static java.util.Objects.requireNonNullElse;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
-import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.AbortedException;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 import software.amazon.awssdk.services.sqs.model.SqsException;
 
 @Slf4j
-public class SqsMessageListener implements MessageListener {
+public class SqsMessageListener implements ManageableMessageListener {
+
+  /**
+   * Connections a listener may hold for acknowledgements at once: the concurrent batch senders,
+   * a submitting thread sending itself and the delete workers of a bulk handler.
+   */
+  public static final int MAX_ACKNOWLEDGEMENT_CONNECTIONS =
+      AcknowledgementBatcher.MAX_CONCURRENT_SENDS + 1 + MessageAggregator.ACK_PARALLELISM;
 
   private static final String CONSUMER_LOOP_THREAD_PREFIX = "sqs-consumer-loop";
   private static final String MESSAGE_PROCESSOR_THREAD_PREFIX = "sqs-listener";
+  private static final long ACKNOWLEDGEMENT_FLUSH_INTERVAL_MILLIS = 100;
+  private static final String DEADLINE_THREAD_PREFIX = "sqs-handler-deadline";
+  private static final String LANE_THREAD_PREFIX = "sqs-lane";
+  private static final int DEFAULT_VISIBILITY_TIMEOUT_SECONDS = 30;
+  private static final double DEFAULT_HANDLER_TIMEOUT_RATIO = 0.8;
+  private static final int DEFAULT_LANE_CAPACITY = 100;
+  private static final long WARM_UP_TIMEOUT_SECONDS = 10;
 
-  private final SqsQueue queue;
   private final SqsClient sqsClient;
 
-  private final Map<String, Future<?>> consumerMap = new ConcurrentHashMap<>();
+  private final Map<String, QueueConsumer> consumerMap = new ConcurrentHashMap<>();
   private final Object monitor = new Object();
+  private final Object pauseMonitor = new Object();
+  private volatile SqsQueue queue;
   private volatile boolean isRunning = false;
+  private volatile boolean isPaused = false;
+  private boolean isPrepared = false;
 
   private ExecutorService taskExecutor;
-  private ExecutorService consumerLoopExecutor;
+  private boolean isDefaultTaskExecutor = false;
+  private ThreadPoolExecutor consumerLoopExecutor;
+  private AcknowledgementBatcher acknowledgementBatcher;
+  private ScheduledThreadPoolExecutor deadlineExecutor;
+  private LaneExecutor laneExecutor;
+  private MessageAggregator messageAggregator;
+  private volatile MessageDiverter messageDiverter;
+  private volatile ReceiveMessageRequest receiveRequest;
+
+  private final ThroughputMeter throughput = new ThroughputMeter();
+  private final LongAdder processedCount = new LongAdder();
+  private final LongAdder failedCount = new LongAdder();
+  private final LongAdder timedOutCount = new LongAdder();
+  private final LongAdder conflatedCount = new LongAdder();
+  private final LongAdder expiredCount = new LongAdder();
+  private final MessageAgeRecorder messageAge = new MessageAgeRecorder();
+  private final MessageAgeRecorder firstReceiveAge = new MessageAgeRecorder();
+  private final AtomicInteger inFlightCount = new AtomicInteger();
+  private final AtomicInteger consumersInBackoff = new AtomicInteger();
+  private final AtomicInteger consumersBusy = new AtomicInteger();
+  private final AtomicInteger consecutiveReceiveFailures = new AtomicInteger();
+  private final HandlerCostRecorder costRecorder;
+  private volatile long lastReceiveMillis;
 
   public static SqsMessageListenerBuilder builder() {
     return new SqsMessageListenerBuilder();
@@ -56,6 +109,68 @@ public class SqsMessageListener implements MessageListener {
     this.sqsClient = Objects.requireNonNull(sqsClient);
     this.queue = Objects.requireNonNull(queue);
     this.taskExecutor = taskExecutor;
+    this.costRecorder =
+        queue.getCostAccountingPolicy() == null
+            ? null
+            : new HandlerCostRecorder(queue.getCostAccountingPolicy());
+  }
+
+  /**
+   * Resolves the queue url if a queue name was given and, if no visibility timeout was set, reads
+   * {@code VisibilityTimeout} and {@code FifoQueue} queue attributes. A queue given by url with an
+   * explicit visibility timeout is not looked up, FIFO queues are detected by the {@code .fifo}
+   * suffix.
+   */
+  @Override
+  public void prepare() {
+    synchronized (monitor) {
+      if (isPrepared) {
+        return;
+      }
+      SqsQueue current = queue;
+      try {
+        String url = QueueUrlResolver.resolve(sqsClient, current.getUrl());
+        Integer visibilityTimeout = current.getVisibilityTimeoutSeconds();
+        boolean fifo = url.endsWith(".fifo");
+        if (visibilityTimeout == null) {
+          Map<QueueAttributeName, String> attributes =
+              sqsClient
+                  .getQueueAttributes(
+                      GetQueueAttributesRequest.builder()
+                          .queueUrl(url)
+                          .attributeNames(
+                              QueueAttributeName.VISIBILITY_TIMEOUT, QueueAttributeName.FIFO_QUEUE)
+                          .build())
+                  .attributes();
+          visibilityTimeout =
+              Integer.valueOf(
+                  attributes.getOrDefault(
+                      QueueAttributeName.VISIBILITY_TIMEOUT,
+                      String.valueOf(DEFAULT_VISIBILITY_TIMEOUT_SECONDS)));
+          fifo = Boolean.parseBoolean(attributes.get(QueueAttributeName.FIFO_QUEUE));
+        }
+        queue =
+            current.toBuilder()
+                .url(url)
+                .visibilityTimeoutSeconds(visibilityTimeout)
+                .fifo(fifo)
+                .build();
+        MaxAgePolicy maxAgePolicy = current.getMaxAgePolicy();
+        if (maxAgePolicy != null && maxAgePolicy.getDivertQueue() != null) {
+          messageDiverter =
+              new MessageDiverter(
+                  sqsClient, QueueUrlResolver.resolve(sqsClient, maxAgePolicy.getDivertQueue()));
+        }
+      } catch (SdkClientException | SqsException e) {
+        throw new IllegalStateException(
+            "%s - queue validation failed".formatted(current.getUrl()), e);
+      }
+      isPrepared = true;
+      log.info(
+          "{} - queue resolved, visibility timeout {}s",
+          queue.getUrl(),
+          queue.getVisibilityTimeoutSeconds());
+    }
   }
 
   @Override
@@ -64,11 +179,39 @@ public class SqsMessageListener implements MessageListener {
       if (isRunning) {
         return;
       }
+      prepare();
       log.info("{} - starting SqsMessageListener", queue.getUrl());
       consumerLoopExecutor = createConsumerLoopExecutor();
-      taskExecutor = requireNonNullElseGet(taskExecutor, this::defaultMessageProcessorExecutor);
-      scheduleConsumers();
+      acknowledgementBatcher =
+          new AcknowledgementBatcher(
+              sqsClient, queue.getUrl(), ACKNOWLEDGEMENT_FLUSH_INTERVAL_MILLIS);
+      deadlineExecutor =
+          new ScheduledThreadPoolExecutor(1, new PrefixedThreadFactory(DEADLINE_THREAD_PREFIX));
+      deadlineExecutor.setRemoveOnCancelPolicy(true);
+      if (queue.getKeyExtractor() != null && !Boolean.TRUE.equals(queue.getFifo())) {
+        laneExecutor =
+            new LaneExecutor(
+                requireNonNullElse(
+                    queue.getLanes(), queue.getConcurrency() * queue.getMaxBatchSize() + 1),
+                requireNonNullElse(queue.getLaneCapacity(), DEFAULT_LANE_CAPACITY),
+                LANE_THREAD_PREFIX);
+      }
+      if (taskExecutor == null) {
+        taskExecutor = defaultMessageProcessorExecutor();
+        isDefaultTaskExecutor = true;
+      }
+      if (queue.getBulkHandler() != null) {
+        messageAggregator =
+            new MessageAggregator(
+                this::getQueue, acknowledgementBatcher, taskExecutor, this::settleBulk);
+      }
+      receiveRequest = createReceiveRequest(queue);
+      if (Boolean.TRUE.equals(queue.getWarmUp())) {
+        warmUp();
+      }
+      lastReceiveMillis = System.currentTimeMillis();
       isRunning = true;
+      scheduleConsumers(queue.getConcurrency());
       log.info("{} - SqsMessageListener started", queue.getUrl());
     }
   }
@@ -76,35 +219,266 @@ public class SqsMessageListener implements MessageListener {
   @Override
   public void destroy() {
     synchronized (monitor) {
+      if (consumerLoopExecutor == null) {
+        // never subscribed
+        return;
+      }
       log.info("{} - shutting down SqsMessageListener", queue.getUrl());
       isRunning = false;
-      consumerMap.values().forEach(consumer -> consumer.cancel(false));
+      consumerMap.values().forEach(QueueConsumer::stop);
       consumerMap.clear();
+      synchronized (pauseMonitor) {
+        pauseMonitor.notifyAll();
+      }
 
       taskExecutor.shutdown();
       consumerLoopExecutor.shutdown();
+      deadlineExecutor.shutdownNow();
+      if (laneExecutor != null) {
+        laneExecutor.shutdown();
+      }
+      if (messageAggregator != null) {
+        messageAggregator.close();
+      }
+      // stops the flush thread, handlers still running acknowledge with immediate requests
+      acknowledgementBatcher.close();
     }
   }
 
+  /**
+   * Waits for the consumers and the handlers still running. Their acknowledgements are sent
+   * immediately, the batcher was closed by {@linkplain #destroy()}.
+   */
   @Override
   public void awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
-    boolean terminated = consumerLoopExecutor.awaitTermination(timeout, timeUnit);
+    if (consumerLoopExecutor == null) {
+      return;
+    }
+    long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+    boolean terminated =
+        consumerLoopExecutor.awaitTermination(remainingNanos(deadline), TimeUnit.NANOSECONDS);
     if (!terminated) {
       consumerLoopExecutor.shutdownNow();
     }
+    taskExecutor.awaitTermination(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+    if (laneExecutor != null) {
+      laneExecutor.awaitTermination(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static long remainingNanos(long deadline) {
+    return Math.max(0, deadline - System.nanoTime());
+  }
+
+  /**
+   * Resizes the message processor executor. Note that if the executor is shared with other
+   * listeners they are affected too.
+   *
+   * @throws IllegalStateException if the listener is not running or the executor is not a
+   *     {@linkplain ThreadPoolExecutor}
+   */
+  @Override
+  public void resizeWorkerPool(int poolSize) {
+    if (poolSize < 1) {
+      throw new IllegalArgumentException("poolSize must be greater than 0");
+    }
+    synchronized (monitor) {
+      if (!(taskExecutor instanceof ThreadPoolExecutor)) {
+        throw new IllegalStateException(
+            "%s - worker pool is not resizable".formatted(queue.getUrl()));
+      }
+      resize((ThreadPoolExecutor) taskExecutor, poolSize);
+      queue = queue.toBuilder().workerPoolSize(poolSize).build();
+      log.info("{} - worker pool resized to {}", queue.getUrl(), poolSize);
+    }
+  }
+
+  @Override
+  public void pause() {
+    isPaused = true;
+    log.info("{} - SqsMessageListener paused", queue.getUrl());
+  }
+
+  @Override
+  public void resume() {
+    synchronized (pauseMonitor) {
+      isPaused = false;
+      pauseMonitor.notifyAll();
+    }
+    log.info("{} - SqsMessageListener resumed", queue.getUrl());
+  }
+
+  @Override
+  public boolean isPaused() {
+    return isPaused;
+  }
+
+  /**
+   * Changing concurrency starts new consumers or stops existing ones after their current receive
+   * completes. If the listener uses its default executor and the worker pool size was not set
+   * explicitly, the pool follows {@code concurrency * maxBatchSize + 1}.
+   */
+  @Override
+  public void reconfigure(ListenerSettings settings) {
+    Objects.requireNonNull(settings, "settings must not be null");
+    validate(settings);
+
+    synchronized (monitor) {
+      SqsQueue current = queue;
+      SqsQueue updated =
+          current.toBuilder()
+              .concurrency(requireNonNullElse(settings.getConcurrency(), current.getConcurrency()))
+              .maxBatchSize(
+                  requireNonNullElse(settings.getMaxBatchSize(), current.getMaxBatchSize()))
+              .visibilityTimeoutSeconds(
+                  requireNonNullElse(
+                      settings.getVisibilityTimeoutSeconds(),
+                      current.getVisibilityTimeoutSeconds()))
+              .longPolling(requireNonNullElse(settings.getLongPolling(), current.getLongPolling()))
+              .build();
+      queue = updated;
+      receiveRequest = createReceiveRequest(updated);
+
+      if (isRunning) {
+        int delta = updated.getConcurrency() - current.getConcurrency();
+        if (delta > 0) {
+          resize(consumerLoopExecutor, updated.getConcurrency());
+          scheduleConsumers(delta);
+        } else if (delta < 0) {
+          stopConsumers(-delta);
+          resize(consumerLoopExecutor, updated.getConcurrency());
+        }
+
+        if (settings.getWorkerPoolSize() != null) {
+          resizeWorkerPool(settings.getWorkerPoolSize());
+        } else if (isDefaultTaskExecutor && updated.getWorkerPoolSize() == null) {
+          resize(
+              (ThreadPoolExecutor) taskExecutor,
+              updated.getConcurrency() * updated.getMaxBatchSize() + 1);
+        }
+      } else if (settings.getWorkerPoolSize() != null) {
+        queue = queue.toBuilder().workerPoolSize(settings.getWorkerPoolSize()).build();
+      }
+      log.info("{} - SqsMessageListener reconfigured {}", queue.getUrl(), settings);
+    }
+  }
+
+  @Override
+  public ListenerSettings getSettings() {
+    SqsQueue current = queue;
+    Integer workerPoolSize =
+        taskExecutor instanceof ThreadPoolExecutor
+            ? ((ThreadPoolExecutor) taskExecutor).getMaximumPoolSize()
+            : current.getWorkerPoolSize();
+    return ListenerSettings.builder()
+        .concurrency(current.getConcurrency())
+        .maxBatchSize(current.getMaxBatchSize())
+        .visibilityTimeoutSeconds(current.getVisibilityTimeoutSeconds())
+        .longPolling(current.getLongPolling())
+        .workerPoolSize(workerPoolSize)
+        .build();
+  }
+
+  @Override
+  public ListenerStats getStats() {
+    long lastReceive = lastReceiveMillis;
+    ListenerStats.ListenerStatsBuilder stats =
+        ListenerStats.builder()
+            .queueUrl(queue.getUrl())
+            .running(isRunning)
+            .paused(isPaused)
+            .consumers(consumerMap.size())
+            .consumersInBackoff(consumersInBackoff.get())
+            .consumersBusy(consumersBusy.get())
+            .consecutiveReceiveFailures(consecutiveReceiveFailures.get())
+            .lastReceiveTime(lastReceive == 0 ? null : Instant.ofEpochMilli(lastReceive))
+            .inFlight(inFlightCount.get())
+            .processed(processedCount.sum())
+            .failed(failedCount.sum())
+            .timedOut(timedOutCount.sum())
+            .conflated(conflatedCount.sum())
+            .expired(expiredCount.sum())
+            .messageAge(messageAge.snapshot())
+            .firstReceiveAge(firstReceiveAge.snapshot())
+            .throughput(throughput.rate());
+    if (costRecorder != null) {
+      stats
+          .handlerCost(costRecorder.snapshot())
+          .handlerCostByType(costRecorder.snapshotByType());
+    }
+
+    if (taskExecutor instanceof ThreadPoolExecutor) {
+      ThreadPoolExecutor executor = (ThreadPoolExecutor) taskExecutor;
+      stats
+          .workerPoolSize(executor.getMaximumPoolSize())
+          .activeWorkers(executor.getActiveCount())
+          .queuedTasks(executor.getQueue().size());
+    } else {
+      stats.workerPoolSize(-1).activeWorkers(-1).queuedTasks(-1);
+    }
+    return stats.build();
   }
 
   SqsQueue getQueue() {
     return queue;
   }
 
-  private ExecutorService createConsumerLoopExecutor() {
-    return Executors.newFixedThreadPool(
-        queue.getConcurrency(), new PrefixedThreadFactory(CONSUMER_LOOP_THREAD_PREFIX));
+  ExecutorService getTaskExecutor() {
+    return taskExecutor;
+  }
+
+  AcknowledgementBatcher getAcknowledgementBatcher() {
+    return acknowledgementBatcher;
+  }
+
+  int getConsumerCount() {
+    return consumerMap.size();
+  }
+
+  private ThreadPoolExecutor createConsumerLoopExecutor() {
+    return new ThreadPoolExecutor(
+        queue.getConcurrency(),
+        queue.getConcurrency(),
+        0L,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        new PrefixedThreadFactory(CONSUMER_LOOP_THREAD_PREFIX));
+  }
+
+  private static void resize(ThreadPoolExecutor executor, int poolSize) {
+    // core size must never exceed maximum size
+    if (poolSize > executor.getMaximumPoolSize()) {
+      executor.setMaximumPoolSize(poolSize);
+      executor.setCorePoolSize(poolSize);
+    } else {
+      executor.setCorePoolSize(poolSize);
+      executor.setMaximumPoolSize(poolSize);
+    }
+  }
+
+  private static void validate(ListenerSettings settings) {
+    if (settings.getConcurrency() != null && settings.getConcurrency() < 1) {
+      throw new IllegalArgumentException("concurrency must be greater than 0");
+    }
+    if (settings.getMaxBatchSize() != null
+        && (settings.getMaxBatchSize() < 1 || settings.getMaxBatchSize() > 10)) {
+      throw new IllegalArgumentException("maxBatchSize must be between 1 and 10");
+    }
+    if (settings.getVisibilityTimeoutSeconds() != null
+        && (settings.getVisibilityTimeoutSeconds() < 0
+            || settings.getVisibilityTimeoutSeconds()
+                > AcknowledgementBatcher.MAX_VISIBILITY_TIMEOUT_SECONDS)) {
+      throw new IllegalArgumentException("visibilityTimeoutSeconds must be between 0 and 43200");
+    }
+    if (settings.getWorkerPoolSize() != null && settings.getWorkerPoolSize() < 1) {
+      throw new IllegalArgumentException("workerPoolSize must be greater than 0");
+    }
   }
 
   private ExecutorService defaultMessageProcessorExecutor() {
-    int poolSize = queue.getConcurrency() * queue.getMaxBatchSize() + 1;
+    int poolSize =
+        requireNonNullElse(
+            queue.getWorkerPoolSize(), queue.getConcurrency() * queue.getMaxBatchSize() + 1);
     ThreadPoolExecutor executor =
         new ThreadPoolExecutor(
             poolSize,
@@ -114,47 +488,191 @@ public class SqsMessageListener implements MessageListener {
             new LinkedBlockingQueue<>(),
             new PrefixedThreadFactory(MESSAGE_PROCESSOR_THREAD_PREFIX));
 
-    // Allow idle core threads to time out
-    executor.allowCoreThreadTimeOut(true);
+    // Allow idle core threads to time out, unless they were prestarted to be ready for traffic
+    executor.allowCoreThreadTimeOut(!Boolean.TRUE.equals(queue.getWarmUp()));
     return executor;
   }
 
-  private void scheduleConsumers() {
-    for (int i = 0; i < queue.getConcurrency(); i++) {
-      consumerMap.computeIfAbsent(
-          UUID.randomUUID().toString(),
-          consumerId -> consumerLoopExecutor.submit(new QueueConsumer(consumerId)));
+  /**
+   * Prestarts worker threads, opens a connection per consumer plus one for acknowledgements and
+   * runs the warm-up hook. Failures are logged, the listener starts regardless.
+   */
+  private void warmUp() {
+    long start = System.nanoTime();
+    int threads = deadlineExecutor.prestartAllCoreThreads();
+    if (taskExecutor instanceof ThreadPoolExecutor) {
+      threads += ((ThreadPoolExecutor) taskExecutor).prestartAllCoreThreads();
+    }
+    int connections = openConnections(queue.getConcurrency() + 1);
+    WarmUpHook hook = queue.getWarmUpHook();
+    if (hook != null) {
+      try {
+        hook.warmUp();
+      } catch (Exception e) {
+        log.warn("{} - warm-up hook failed", queue.getUrl(), e);
+      }
+    }
+    log.info(
+        "{} - warmed up in {}ms, {} threads started, {} connections opened",
+        queue.getUrl(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        threads,
+        connections);
+  }
+
+  /**
+   * Sends concurrent {@code GetQueueAttributes} requests, so the client pool opens a connection
+   * and TLS session for each of them.
+   *
+   * @return number of successful requests
+   */
+  private int openConnections(int count) {
+    GetQueueAttributesRequest request =
+        GetQueueAttributesRequest.builder()
+            .queueUrl(queue.getUrl())
+            .attributeNames(QueueAttributeName.QUEUE_ARN)
+            .build();
+    List<CompletableFuture<Void>> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      requests.add(
+          CompletableFuture.runAsync(() -> sqsClient.getQueueAttributes(request), taskExecutor));
+    }
+    try {
+      CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new))
+          .get(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      log.warn("{} - failed to open connections during warm-up", queue.getUrl(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return (int) requests.stream().filter(f -> f.isDone() && !f.isCompletedExceptionally()).count();
+  }
+
+  private void scheduleConsumers(int count) {
+    for (int i = 0; i < count; i++) {
+      QueueConsumer consumer = new QueueConsumer(UUID.randomUUID().toString());
+      consumerMap.put(consumer.id, consumer);
+      consumerLoopExecutor.submit(consumer);
+    }
+  }
+
+  private void stopConsumers(int count) {
+    consumerMap.values().stream()
+        .limit(count)
+        .collect(Collectors.toList())
+        .forEach(
+            consumer -> {
+              consumer.stop();
+              consumerMap.remove(consumer.id);
+            });
+    synchronized (pauseMonitor) {
+      pauseMonitor.notifyAll();
     }
   }
 
-  private boolean isActive(String consumerId) {
-    Future<?> consumer = consumerMap.get(consumerId);
-    return consumer != null && !consumer.isDone();
+  private void awaitResume(QueueConsumer consumer) {
+    synchronized (pauseMonitor) {
+      while (isPaused && consumer.active) {
+        try {
+          pauseMonitor.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits before the next receive while the JVM is under pressure.
+   *
+   * @return {@code true} if receives are paused and the pressure level has to be checked again
+   */
+  private boolean shedLoad() {
+    JvmPressureMonitor pressureMonitor = queue.getPressureMonitor();
+    if (pressureMonitor == null) {
+      return false;
+    }
+    PressureLevel level = pressureMonitor.getLevel();
+    if (level == PressureLevel.NORMAL) {
+      return false;
+    }
+
+    Duration wait =
+        level == PressureLevel.PAUSE
+            ? pressureMonitor.getSampleInterval()
+            : pressureMonitor.getThrottleDelay();
+    consumersBusy.incrementAndGet();
+    synchronized (pauseMonitor) {
+      try {
+        // destroy and stopConsumers notify pauseMonitor
+        pauseMonitor.wait(Math.max(wait.toMillis(), 1));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        consumersBusy.decrementAndGet();
+      }
+    }
+    return level == PressureLevel.PAUSE;
+  }
+
+  /** Requests are immutable, so one instance is reused until the queue is reconfigured. */
+  private static ReceiveMessageRequest createReceiveRequest(SqsQueue queue) {
+    // timestamps feed the age histograms, the max age policy and conflation
+    List<String> attributeNames = new ArrayList<>(4);
+    attributeNames.add(MessageSystemAttributeName.SENT_TIMESTAMP.toString());
+    attributeNames.add(MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP.toString());
+    if (queue.getBackoffPolicy() != null) {
+      // backoff delay is keyed on receive count
+      attributeNames.add(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT.toString());
+    }
+    if (queue.getTracer() != null) {
+      attributeNames.add(MessageSystemAttributeName.AWS_TRACE_HEADER.toString());
+    }
+    return ReceiveMessageRequest.builder()
+        .queueUrl(queue.getUrl())
+        .waitTimeSeconds(queue.getLongPolling() ? 20 : 1)
+        .maxNumberOfMessages(queue.getMaxBatchSize())
+        .visibilityTimeout(queue.getVisibilityTimeoutSeconds())
+        .messageAttributeNames(queue.receiveMessageAttributeNames())
+        .attributeNamesWithStrings(attributeNames)
+        .build();
   }
 
   private ReceiveMessageResponse receive() {
-    ReceiveMessageRequest request =
-        ReceiveMessageRequest.builder()
-            .queueUrl(queue.getUrl())
-            .waitTimeSeconds(queue.getLongPolling() ? 20 : 1)
-            .maxNumberOfMessages(queue.getMaxBatchSize())
-            .visibilityTimeout(queue.getVisibilityTimeoutSeconds())
-            .messageAttributeNames("All")
-            .build();
+    return receive(queue.getLongPolling() ? 20 : 1);
+  }
+
+  private ReceiveMessageResponse receive(int waitTimeSeconds) {
+    ReceiveMessageRequest request = receiveRequest;
+    if (request.waitTimeSeconds() != waitTimeSeconds) {
+      request = request.toBuilder().waitTimeSeconds(waitTimeSeconds).build();
+    }
 
+    ReceiveEvent event = new ReceiveEvent();
+    event.begin();
     try {
-      return sqsClient.receiveMessage(request);
+      ReceiveMessageResponse response = sqsClient.receiveMessage(request);
+      event.end(request.queueUrl(), waitTimeSeconds, response.messages().size(), false);
+      lastReceiveMillis = System.currentTimeMillis();
+      consecutiveReceiveFailures.set(0);
+      return response;
     } catch (AbortedException ae) {
       return ReceiveMessageResponse.builder().messages(List.of()).build();
     } catch (SdkClientException | SqsException e) {
+      event.end(request.queueUrl(), waitTimeSeconds, 0, true);
       log.error("{} - SQS sdk receiveMessage error", queue.getUrl(), e);
 
       // aws sdk exceptions usually mean that we have some network problem or the service is down
       // pause the loop for 5 seconds
+      consecutiveReceiveFailures.incrementAndGet();
+      consumersInBackoff.incrementAndGet();
       try {
         TimeUnit.SECONDS.sleep(5);
       } catch (InterruptedException ie) {
         Thread.currentThread().interrupt();
+      } finally {
+        consumersInBackoff.decrementAndGet();
       }
       return ReceiveMessageResponse.builder().messages(List.of()).build();
     } catch (Exception e) {
@@ -162,26 +680,229 @@ public class SqsMessageListener implements MessageListener {
     }
   }
 
-  private void deleteBatch(List<Message> messages) {
-    List<DeleteMessageBatchRequestEntry> entries =
-        messages.stream()
-            .map(
-                message ->
-                    DeleteMessageBatchRequestEntry.builder()
-                        .id(message.messageId())
-                        .receiptHandle(message.receiptHandle())
-                        .build())
-            .collect(Collectors.toList());
+  /**
+   * Keeps receiving until the conflation window elapses and returns messages without key and the
+   * newest message of each key. Superseded messages are deleted.
+   */
+  private List<Message> conflate(
+      ConflationPolicy policy,
+      List<Message> received,
+      QueueConsumer consumer,
+      SqsQueue queue,
+      TraceSpan receiveSpan) {
+    Map<String, Message> newest = new LinkedHashMap<>();
+    List<Message> result = new ArrayList<>();
+    long deadline = System.nanoTime() + policy.getWindow().toNanos();
+    List<Message> batch = received;
+    while (true) {
+      for (Message message : batch) {
+        String key = extractKey(policy.getKeyExtractor(), message);
+        if (key == null) {
+          result.add(message);
+          continue;
+        }
+        Message current = newest.get(key);
+        if (current != null && policy.version(message) < policy.version(current)) {
+          supersede(message);
+        } else {
+          if (current != null) {
+            supersede(current);
+          }
+          newest.put(key, message);
+        }
+      }
+      long remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0 || !consumer.active) {
+        break;
+      }
+      long waitSeconds = TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L);
+      batch = accept(queue, receive((int) Math.min(waitSeconds, 20)).messages(), receiveSpan);
+    }
+    result.addAll(newest.values());
+    return result;
+  }
+
+  private void supersede(Message message) {
+    conflatedCount.increment();
+    new MessageAcknowledgement(message, acknowledgementBatcher).ack();
+  }
+
+  /** Returns the handler deadline of the queue or {@code null} if it is disabled. */
+  private static Duration handlerTimeout(SqsQueue queue) {
+    Duration handlerTimeout = queue.getHandlerTimeout();
+    if (handlerTimeout == null) {
+      // leave time to release the message before another consumer can receive it
+      long visibilityMillis = queue.getVisibilityTimeoutSeconds() * 1000L;
+      handlerTimeout = Duration.ofMillis((long) (visibilityMillis * DEFAULT_HANDLER_TIMEOUT_RATIO));
+    }
+    return handlerTimeout.isZero() || handlerTimeout.isNegative() ? null : handlerTimeout;
+  }
+
+  private String extractKey(MessageKeyExtractor keyExtractor, Message message) {
+    try {
+      return keyExtractor.extractKey(message);
+    } catch (RuntimeException e) {
+      log.warn("{} - failed to extract key of message {}", queue.getUrl(), message.messageId(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Runs processors one after another, each once the message of the previous one is settled, so
+   * asynchronous handlers keep the order of a FIFO batch too.
+   */
+  private void runInOrder(Iterator<MessageProcessor> processors) {
+    if (!processors.hasNext()) {
+      return;
+    }
+    MessageProcessor processor = processors.next();
+    processor.settled.thenRun(() -> runInOrder(processors));
+    try {
+      taskExecutor.execute(processor);
+    } catch (RejectedExecutionException e) {
+      // listener is shutting down, the rest of the batch is redelivered in order
+      processor.reject();
+    }
+  }
+
+  private void dispatchByKey(SqsQueue queue, MessageProcessor processor) {
+    String key = extractKey(queue.getKeyExtractor(), processor.acknowledgement.getMessage());
+    if (key == null) {
+      taskExecutor.submit(processor);
+    } else {
+      laneExecutor.execute(key, processor);
+    }
+  }
+
+  private static TraceSpan startReceiveSpan(SqsQueue queue) {
+    MessageTracer tracer = queue.getTracer();
+    return tracer == null ? null : tracer.startReceive(queue.getUrl());
+  }
+
+  /**
+   * Links the producers of received messages to the receive span, records their ages and sheds
+   * expired messages. Applied to every received batch, including those of a conflation window.
+   *
+   * @return messages to handle
+   */
+  private List<Message> accept(SqsQueue queue, List<Message> messages, TraceSpan receiveSpan) {
+    if (messages.isEmpty()) {
+      return messages;
+    }
+    if (receiveSpan != null) {
+      for (Message message : messages) {
+        TraceContext producer = TraceContext.extract(message);
+        if (producer != null) {
+          receiveSpan.link(producer);
+        }
+      }
+    }
+    recordAges(messages);
+    MaxAgePolicy maxAgePolicy = queue.getMaxAgePolicy();
+    return maxAgePolicy == null ? messages : shedExpired(maxAgePolicy, messages);
+  }
+
+  /** Ends the receive span, returns its context. */
+  private static TraceContext endReceiveSpan(TraceSpan span) {
+    if (span == null) {
+      return null;
+    }
+    span.end();
+    return span.getContext();
+  }
 
-    if (entries.isEmpty()) {
+  private void recordAges(List<Message> messages) {
+    long now = System.currentTimeMillis();
+    for (Message message : messages) {
+      Map<MessageSystemAttributeName, String> attributes = message.attributes();
+      recordAge(messageAge, attributes.get(MessageSystemAttributeName.SENT_TIMESTAMP), now);
+      recordAge(
+          firstReceiveAge,
+          attributes.get(MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP),
+          now);
+    }
+  }
+
+  private static void recordAge(MessageAgeRecorder recorder, String timestamp, long now) {
+    if (timestamp == null) {
       return;
     }
+    try {
+      recorder.record(now - Long.parseLong(timestamp));
+    } catch (NumberFormatException e) {
+      // not an epoch timestamp, nothing to record
+    }
+  }
+
+  /**
+   * Deletes expired messages in batches, after copying them to the divert queue if one is set.
+   * Messages failed to divert are left for redelivery.
+   *
+   * @return messages that are not expired
+   */
+  private List<Message> shedExpired(MaxAgePolicy policy, List<Message> messages) {
+    long now = System.currentTimeMillis();
+    List<Message> current = new ArrayList<>(messages.size());
+    List<Message> expired = new ArrayList<>();
+    for (Message message : messages) {
+      (policy.isExpired(message, now) ? expired : current).add(message);
+    }
+    if (expired.isEmpty()) {
+      return messages;
+    }
+
+    MessageDiverter diverter = messageDiverter;
+    List<Message> shed = diverter == null ? expired : diverter.send(expired);
+    shed.forEach(acknowledgementBatcher::delete);
+    expiredCount.add(shed.size());
+    log.debug("{} - shed {} expired messages", queue.getUrl(), shed.size());
+    return current;
+  }
 
+  private void settleBulk(int count, boolean success) {
+    inFlightCount.addAndGet(-count);
+    processedCount.add(count);
+    for (int i = 0; i < count; i++) {
+      throughput.record();
+    }
+    if (!success) {
+      failedCount.add(count);
+    }
+  }
+
+  private void settle(MessageAcknowledgement acknowledgement, Disposition disposition) {
+    inFlightCount.decrementAndGet();
+    processedCount.increment();
+    throughput.record();
+
+    if (acknowledgement.isSettled()) {
+      // handler acknowledged the message itself
+      return;
+    }
+
+    switch (disposition.getType()) {
+      case ACK -> {
+        if (queue.getAutoAcknowledge()) {
+          acknowledgement.ack();
+        }
+      }
+      case RETRY -> {
+        BackoffPolicy backoffPolicy = queue.getBackoffPolicy();
+        if (backoffPolicy != null) {
+          acknowledgement.nack(backoffPolicy.delay(receiveCount(acknowledgement.getMessage())));
+        }
+      }
+      case RETRY_AFTER, RELEASE -> acknowledgement.nack(disposition.getDelay());
+    }
+  }
+
+  private static int receiveCount(Message message) {
+    String receiveCount =
+        message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
     try {
-      sqsClient.deleteMessageBatch(
-          DeleteMessageBatchRequest.builder().queueUrl(queue.getUrl()).entries(entries).build());
-    } catch (AwsServiceException | SdkClientException e) {
-      log.error("{} - SQS sdk deleteMessageBatch error", queue.getUrl(), e);
+      return receiveCount == null ? 1 : Integer.parseInt(receiveCount);
+    } catch (NumberFormatException e) {
+      return 1;
     }
   }
 
@@ -189,29 +910,89 @@ public class SqsMessageListener implements MessageListener {
   private class QueueConsumer implements Runnable {
 
     private final String id;
+    private volatile boolean active = true;
+
+    void stop() {
+      active = false;
+    }
 
     @Override
     public void run() {
-      while (isActive(id)) {
+      while (active) {
         try {
-          ReceiveMessageResponse response = receive();
+          if (isPaused) {
+            awaitResume(this);
+            continue;
+          }
+          if (shedLoad()) {
+            continue;
+          }
+
+          SqsQueue queue = SqsMessageListener.this.queue;
+          TraceSpan receiveSpan = startReceiveSpan(queue);
+          List<Message> messages = accept(queue, receive().messages(), receiveSpan);
+          ConflationPolicy conflationPolicy = queue.getConflationPolicy();
+          if (conflationPolicy != null && !messages.isEmpty()) {
+            messages = conflate(conflationPolicy, messages, this, queue, receiveSpan);
+          }
+          TraceContext receiveContext = endReceiveSpan(receiveSpan);
+          if (messageAggregator != null) {
+            if (!messages.isEmpty()) {
+              inFlightCount.addAndGet(messages.size());
+              consumersBusy.incrementAndGet();
+              try {
+                messageAggregator.add(messages);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } finally {
+                consumersBusy.decrementAndGet();
+              }
+            }
+            continue;
+          }
 
-          int batchSize = response.messages().size();
+          int batchSize = messages.size();
           CountDownLatch completionLatch = new CountDownLatch(batchSize);
-          List<Message> successful = new ArrayList<>(batchSize);
 
-          for (Message msg : response.messages()) {
-            taskExecutor.submit(new MessageProcessor(msg, queue, completionLatch, successful::add));
+          List<MessageProcessor> processors = new ArrayList<>(batchSize);
+          Duration handlerTimeout = handlerTimeout(queue);
+          for (Message msg : messages) {
+            MessageAcknowledgement acknowledgement =
+                new MessageAcknowledgement(msg, acknowledgementBatcher);
+            inFlightCount.incrementAndGet();
+            processors.add(
+                new MessageProcessor(
+                    acknowledgement,
+                    queue,
+                    completionLatch,
+                    failedCount,
+                    SqsMessageListener.this::settle,
+                    handlerTimeout,
+                    deadlineExecutor,
+                    timedOutCount,
+                    receiveContext,
+                    costRecorder));
           }
-
+          // full lanes block dispatch, the consumer is busy until the batch completes
+          consumersBusy.incrementAndGet();
           try {
+            if (Boolean.TRUE.equals(queue.getFifo())) {
+              // keep message group order within the batch, deadlines start when a message runs
+              runInOrder(processors.iterator());
+            } else {
+              // deadlines cover time spent queued behind workers held by timed out handlers
+              processors.forEach(MessageProcessor::startDeadline);
+              if (laneExecutor != null) {
+                processors.forEach(processor -> dispatchByKey(queue, processor));
+              } else {
+                processors.forEach(taskExecutor::submit);
+              }
+            }
             completionLatch.await();
           } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-          }
-
-          if (queue.getAutoAcknowledge()) {
-            deleteBatch(successful);
+          } finally {
+            consumersBusy.decrementAndGet();
           }
         } catch (Throwable t) {
           log.error("{} - Unhandled exception in QueueConsumer", queue.getUrl(), t);
@@ -220,31 +1001,238 @@ public class SqsMessageListener implements MessageListener {
     }
   }
 
+  /**
+   * Runs the handler of a single message. Asynchronous handlers release the worker thread when
+   * they return, the message is settled once the returned stage completes. If the handler exceeds
+   * its deadline the worker thread is interrupted or the pending stage cancelled, the message is
+   * released and the consumer stops waiting for it, a late result of the handler is ignored. The
+   * deadline starts when the message is dispatched, a message still queued at its deadline is
+   * released without running the handler.
+   */
   @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
   private static class MessageProcessor implements Runnable {
 
-    private final Message message;
+    private static final String MDC_TRACE_ID = "traceId";
+    private static final String MDC_SPAN_ID = "spanId";
+
+    private final MessageAcknowledgement acknowledgement;
     private final SqsQueue queue;
     private final CountDownLatch completionLatch;
-    private final Consumer<Message> onSuccess;
+    private final LongAdder failedCount;
+    private final BiConsumer<MessageAcknowledgement, Disposition> onComplete;
+    private final Duration handlerTimeout;
+    private final ScheduledExecutorService deadlineExecutor;
+    private final LongAdder timedOutCount;
+    private final TraceContext receiveContext;
+    private final HandlerCostRecorder costRecorder;
+
+    private final HandleEvent event = new HandleEvent();
+    /** Completes once the message is settled or its handler timed out. */
+    private final CompletableFuture<Void> settled = new CompletableFuture<>();
+    private volatile TraceSpan span = TraceSpan.NOOP;
+    private volatile ScheduledFuture<?> deadline;
+    private boolean started = false;
+    private Thread worker;
+    private CompletionStage<Disposition> pending;
+    private volatile boolean failed = false;
+    private boolean finished = false;
+    private volatile boolean timedOut = false;
 
     @Override
     public void run() {
+      Message message = acknowledgement.getMessage();
+      Disposition disposition = Disposition.retry();
+      CompletionStage<Disposition> stage = null;
+      synchronized (this) {
+        if (timedOut) {
+          // expired while queued, the message is already released
+          return;
+        }
+        started = true;
+        worker = Thread.currentThread();
+      }
+      event.begin();
+      startSpan(message);
+      if (deadline == null) {
+        startDeadline();
+      }
+      AcknowledgementContext.set(acknowledgement);
       try {
-        queue.getInterceptors().forEach(f -> f.beforeHandle(message));
-        queue.getHandler().handle(message);
-        onSuccess.accept(message);
-      } catch (Exception e) {
-        ErrorHandler errorHandler = queue.getErrorHandler();
-        if (errorHandler != null) {
-          errorHandler.onError(message, e);
-        } else {
-          log.error("{} failed to process message {}", queue.getUrl(), message.messageId(), e);
+        if (queue.getPayloadCodec() != null) {
+          message = queue.getPayloadCodec().decode(message);
         }
+        for (HandlerInterceptor interceptor : queue.getInterceptors()) {
+          interceptor.beforeHandle(message);
+        }
+        HandlerCostRecorder.Sample sample = costRecorder == null ? null : costRecorder.begin();
+        try {
+          stage = queue.getHandler().handle(message);
+        } finally {
+          if (sample != null) {
+            costRecorder.end(sample, message);
+          }
+        }
+        disposition = Disposition.ack();
+      } catch (Exception e) {
+        disposition = handleError(message, e);
       } finally {
         MDC.clear();
-        completionLatch.countDown();
+        AcknowledgementContext.clear();
+        synchronized (this) {
+          worker = null;
+          pending = stage;
+        }
+        if (timedOut) {
+          // the interrupt was meant for the timed out handler, not for the next task
+          Thread.interrupted();
+        }
+      }
+
+      if (stage == null) {
+        complete(disposition);
+        return;
+      }
+      Message handled = message;
+      stage.whenComplete(
+          (result, error) -> {
+            Disposition settled = Disposition.retry();
+            try {
+              settled =
+                  error == null
+                      ? requireNonNullElse(result, Disposition.ack())
+                      : handleError(handled, unwrap(error));
+            } finally {
+              complete(settled);
+            }
+          });
+    }
+
+    private Disposition handleError(Message message, Throwable error) {
+      if (timedOut) {
+        log.debug(
+            "{} - timed out handler of message {} failed",
+            queue.getUrl(),
+            message.messageId(),
+            error);
+        return Disposition.release();
+      }
+      span.error(error);
+      failed = true;
+      failedCount.increment();
+      ErrorHandler errorHandler = queue.getErrorHandler();
+      if (errorHandler == null) {
+        log.error("{} failed to process message {}", queue.getUrl(), message.messageId(), error);
+        return Disposition.retry();
+      }
+      Exception exception =
+          error instanceof Exception ? (Exception) error : new CompletionException(error);
+      // asynchronous failures complete on other threads, the error handler may acknowledge
+      Acknowledgement previous = AcknowledgementContext.replace(acknowledgement);
+      try {
+        return requireNonNullElse(
+            errorHandler.handleError(message, exception), Disposition.retry());
+      } catch (RuntimeException e) {
+        log.error(
+            "{} - error handler failed for message {}", queue.getUrl(), message.messageId(), e);
+        return Disposition.retry();
+      } finally {
+        AcknowledgementContext.restore(previous);
+      }
+    }
+
+    /** Opens the handle span and exposes its ids to the handler through the MDC. */
+    private void startSpan(Message message) {
+      MessageTracer tracer = queue.getTracer();
+      if (tracer == null) {
+        return;
+      }
+      TraceContext parent = TraceContext.extract(message);
+      span = tracer.startHandle(queue.getUrl(), message, parent, receiveContext);
+      TraceContext context = span.getContext() != null ? span.getContext() : parent;
+      if (context != null) {
+        MDC.put(MDC_TRACE_ID, context.getTraceId());
+        MDC.put(MDC_SPAN_ID, context.getSpanId());
+      }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+      return error instanceof CompletionException && error.getCause() != null
+          ? error.getCause()
+          : error;
+    }
+
+    /** Starts the handler deadline, called once before the processor runs. */
+    void startDeadline() {
+      if (handlerTimeout == null) {
+        return;
+      }
+      try {
+        deadline =
+            deadlineExecutor.schedule(
+                this::expire, handlerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // listener is shutting down
+      }
+    }
+
+    private void complete(Disposition disposition) {
+      ScheduledFuture<?> deadline = this.deadline;
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+      synchronized (this) {
+        if (timedOut) {
+          return;
+        }
+        finished = true;
+      }
+      event.end(queue, acknowledgement.getMessage(), disposition.getType().name(), failed);
+      span.end();
+      onComplete.accept(acknowledgement, disposition);
+      completionLatch.countDown();
+      settled.complete(null);
+    }
+
+    /** Releases the message without running the handler, it could not be dispatched. */
+    private void reject() {
+      synchronized (this) {
+        finished = true;
+      }
+      onComplete.accept(acknowledgement, Disposition.release());
+      completionLatch.countDown();
+      settled.complete(null);
+    }
+
+    private void expire() {
+      CompletionStage<Disposition> stage;
+      synchronized (this) {
+        if (finished) {
+          return;
+        }
+        timedOut = true;
+        if (worker != null) {
+          worker.interrupt();
+        }
+        stage = pending;
+        if (!started) {
+          event.begin();
+        }
+      }
+      if (stage instanceof Future) {
+        ((Future<?>) stage).cancel(true);
       }
+      log.warn(
+          "{} - handler of message {} exceeded timeout {}, releasing message",
+          queue.getUrl(),
+          acknowledgement.getMessage().messageId(),
+          handlerTimeout);
+      event.end(queue, acknowledgement.getMessage(), HandleEvent.TIMED_OUT, true);
+      span.end();
+      failedCount.increment();
+      timedOutCount.increment();
+      onComplete.accept(acknowledgement, Disposition.release());
+      completionLatch.countDown();
+      settled.complete(null);
     }
   }
 }
@@ -1,23 +1,50 @@
 package com.vladc.sqslistener;
 
+import static java.util.Objects.requireNonNullElse;
+
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
 public class SqsMessageListenerBuilder {
 
+  private static final CompletionStage<Disposition> ACK =
+      CompletableFuture.completedFuture(Disposition.ack());
+
   private SqsClient sqsClient;
   private ExecutorService executor;
   private String url;
   private Integer maxBatchSize = 10;
-  private Integer visibilityTimeoutSeconds = 60;
+  private Integer visibilityTimeoutSeconds;
   private Boolean longPolling = true;
-  private MessageHandler messageHandler;
+  private AsyncDispositionHandler messageHandler;
   private ErrorHandler errorHandler;
   private Boolean autoAcknowledge = true;
   private Integer concurrency = 1;
   private List<HandlerInterceptor> interceptors = new ArrayList<>();
+  private BackoffPolicy backoffPolicy;
+  private Integer workerPoolSize;
+  private JvmPressureMonitor pressureMonitor;
+  private PayloadCodec payloadCodec = new PayloadCodec();
+  private Duration handlerTimeout;
+  private MessageKeyExtractor keyExtractor;
+  private Integer lanes;
+  private Integer laneCapacity;
+  private ConflationPolicy conflationPolicy;
+  private BulkMessageHandler bulkHandler;
+  private AggregationPolicy aggregationPolicy;
+  private MaxAgePolicy maxAgePolicy;
+  private List<String> messageAttributeNames;
+  private MessageTracer tracer;
+  private CostAccountingPolicy costAccountingPolicy;
+  private String messageTypeAttribute;
+  private Boolean warmUp;
+  private WarmUpHook warmUpHook;
+  private WarmUpHook handlerWarmUpHook;
 
   public SqsMessageListenerBuilder client(SqsClient client) {
     this.sqsClient = client;
@@ -29,6 +56,7 @@ public class SqsMessageListenerBuilder {
     return this;
   }
 
+  /** Queue url or queue name resolved with {@code GetQueueUrl}. */
   public SqsMessageListenerBuilder url(String url) {
     this.url = url;
     return this;
@@ -39,6 +67,10 @@ public class SqsMessageListenerBuilder {
     return this;
   }
 
+  /**
+   * Defaults to the queue {@code VisibilityTimeout} attribute, read with a blocking {@code
+   * GetQueueAttributes} call when the listener is prepared.
+   */
   public SqsMessageListenerBuilder visibilityTimeoutSeconds(Integer visibilityTimeoutSeconds) {
     this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
     return this;
@@ -50,6 +82,58 @@ public class SqsMessageListenerBuilder {
   }
 
   public SqsMessageListenerBuilder handler(MessageHandler messageHandler) {
+    this.handlerWarmUpHook = warmUpHookOf(messageHandler);
+    this.messageHandler =
+        messageHandler == null
+            ? null
+            : message -> {
+              messageHandler.handle(message);
+              return ACK;
+            };
+    return this;
+  }
+
+  /**
+   * Handler completing asynchronously, the message is acknowledged when the returned stage
+   * completes.
+   */
+  public SqsMessageListenerBuilder asyncHandler(AsyncMessageHandler messageHandler) {
+    this.handlerWarmUpHook = warmUpHookOf(messageHandler);
+    this.messageHandler =
+        messageHandler == null
+            ? null
+            : message -> {
+              CompletionStage<Void> stage = messageHandler.handle(message);
+              return stage == null ? ACK : stage.thenApply(result -> Disposition.ack());
+            };
+    return this;
+  }
+
+  public SqsMessageListenerBuilder acknowledgingHandler(
+      AcknowledgingMessageHandler messageHandler) {
+    this.handlerWarmUpHook = warmUpHookOf(messageHandler);
+    this.messageHandler =
+        messageHandler == null
+            ? null
+            : message -> {
+              messageHandler.handle(message, Acknowledgement.current());
+              return ACK;
+            };
+    return this;
+  }
+
+  public SqsMessageListenerBuilder dispositionHandler(DispositionHandler messageHandler) {
+    this.handlerWarmUpHook = warmUpHookOf(messageHandler);
+    this.messageHandler =
+        messageHandler == null
+            ? null
+            : message -> CompletableFuture.completedFuture(messageHandler.handle(message));
+    return this;
+  }
+
+  public SqsMessageListenerBuilder asyncDispositionHandler(
+      AsyncDispositionHandler messageHandler) {
+    this.handlerWarmUpHook = warmUpHookOf(messageHandler);
     this.messageHandler = messageHandler;
     return this;
   }
@@ -74,19 +158,200 @@ public class SqsMessageListenerBuilder {
     return this;
   }
 
+  public SqsMessageListenerBuilder backoffPolicy(BackoffPolicy backoffPolicy) {
+    this.backoffPolicy = backoffPolicy;
+    return this;
+  }
+
+  public SqsMessageListenerBuilder workerPoolSize(Integer workerPoolSize) {
+    this.workerPoolSize = workerPoolSize;
+    return this;
+  }
+
+  public SqsMessageListenerBuilder pressureMonitor(JvmPressureMonitor pressureMonitor) {
+    this.pressureMonitor = pressureMonitor;
+    return this;
+  }
+
+  /** Codec decoding compressed message bodies, {@code null} disables decoding. */
+  public SqsMessageListenerBuilder payloadCodec(PayloadCodec payloadCodec) {
+    this.payloadCodec = payloadCodec;
+    return this;
+  }
+
+  /**
+   * Maximum time a handler may process a single message before it is interrupted and the message
+   * is made visible again. Defaults to 80% of the visibility timeout, {@linkplain Duration#ZERO}
+   * disables the deadline.
+   */
+  public SqsMessageListenerBuilder handlerTimeout(Duration handlerTimeout) {
+    this.handlerTimeout = handlerTimeout;
+    return this;
+  }
+
+  /**
+   * Routes messages by key onto single-threaded lanes so that messages with equal keys are
+   * processed serially, different keys run in parallel. Ignored for FIFO queues, which keep
+   * message group order already.
+   */
+  public SqsMessageListenerBuilder keyExtractor(MessageKeyExtractor keyExtractor) {
+    this.keyExtractor = keyExtractor;
+    return this;
+  }
+
+  /** Number of key affinity lanes, defaults to {@code concurrency * maxBatchSize + 1}. */
+  public SqsMessageListenerBuilder lanes(Integer lanes) {
+    this.lanes = lanes;
+    return this;
+  }
+
+  /** Maximum number of messages waiting per lane before the consumer blocks, defaults to 100. */
+  public SqsMessageListenerBuilder laneCapacity(Integer laneCapacity) {
+    this.laneCapacity = laneCapacity;
+    return this;
+  }
+
+  /**
+   * Buffers received messages for a window and handles only the newest message per key, superseded
+   * messages are deleted in batch.
+   */
+  public SqsMessageListenerBuilder conflationPolicy(ConflationPolicy conflationPolicy) {
+    this.conflationPolicy = conflationPolicy;
+    return this;
+  }
+
+  /**
+   * Aggregates messages of all consumers and handles them in batches larger than a single receive,
+   * replacing the per-message handler. Interceptors are not applied to bulk batches.
+   */
+  public SqsMessageListenerBuilder bulkHandler(BulkMessageHandler bulkHandler) {
+    this.handlerWarmUpHook = warmUpHookOf(bulkHandler);
+    this.bulkHandler = bulkHandler;
+    return this;
+  }
+
+  /** Batch thresholds of the {@linkplain #bulkHandler(BulkMessageHandler)}. */
+  public SqsMessageListenerBuilder aggregationPolicy(AggregationPolicy aggregationPolicy) {
+    this.aggregationPolicy = aggregationPolicy;
+    return this;
+  }
+
+  /** Deletes or diverts messages older than the policy allows without calling the handler. */
+  public SqsMessageListenerBuilder maxAgePolicy(MaxAgePolicy maxAgePolicy) {
+    this.maxAgePolicy = maxAgePolicy;
+    return this;
+  }
+
+  /**
+   * Requests only the given message attributes instead of all of them, which reduces response
+   * size and parsing on every receive. Attributes the listener reads itself (payload encoding, key
+   * and version attributes) are added automatically. SQS prefix patterns like {@code trace.*} are
+   * supported, an empty list requests no attributes beyond those.
+   */
+  public SqsMessageListenerBuilder messageAttributeNames(List<String> messageAttributeNames) {
+    this.messageAttributeNames = messageAttributeNames;
+    return this;
+  }
+
+  /**
+   * Traces receives and handled messages, continuing the trace of the producer from the {@code
+   * traceparent} or {@code AWSTraceHeader} attribute of each message.
+   */
+  public SqsMessageListenerBuilder tracer(MessageTracer tracer) {
+    this.tracer = tracer;
+    return this;
+  }
+
+  /**
+   * Samples thread CPU time and allocated bytes of handler calls, reported per message type in
+   * {@linkplain ListenerStats#getHandlerCostByType()}.
+   */
+  public SqsMessageListenerBuilder costAccountingPolicy(
+      CostAccountingPolicy costAccountingPolicy) {
+    this.costAccountingPolicy = costAccountingPolicy;
+    return this;
+  }
+
+  /**
+   * Message attribute holding the message type reported in flight recorder events. Defaults to the
+   * type attribute of the {@linkplain #costAccountingPolicy(CostAccountingPolicy)} if set, then
+   * {@code messageType}.
+   */
+  public SqsMessageListenerBuilder messageTypeAttribute(String messageTypeAttribute) {
+    this.messageTypeAttribute = messageTypeAttribute;
+    return this;
+  }
+
+  /**
+   * Runs a warm-up phase in {@linkplain SqsMessageListener#subscribe()} before the first receive:
+   * prestarts worker threads, opens a connection per consumer with a cheap {@code
+   * GetQueueAttributes} call and runs the handler {@linkplain WarmUpHook}. Shortens latency of the
+   * first messages after start at the cost of a slower subscribe.
+   */
+  public SqsMessageListenerBuilder warmUp(Boolean warmUp) {
+    this.warmUp = warmUp;
+    return this;
+  }
+
+  /**
+   * Hook run during the warm-up phase, replaces the hook of a handler implementing {@linkplain
+   * WarmUpHook}. Has no effect unless {@linkplain #warmUp(Boolean)} is enabled.
+   */
+  public SqsMessageListenerBuilder warmUpHook(WarmUpHook warmUpHook) {
+    this.warmUpHook = warmUpHook;
+    return this;
+  }
+
   public SqsMessageListener build() {
     SqsQueue queue =
-        new SqsQueue(
-            this.url,
-            this.maxBatchSize,
-            this.visibilityTimeoutSeconds,
-            this.messageHandler,
-            this.errorHandler,
-            this.longPolling,
-            this.autoAcknowledge,
-            this.concurrency,
-            this.interceptors);
+        SqsQueue.builder()
+            .url(this.url)
+            .maxBatchSize(this.maxBatchSize)
+            .visibilityTimeoutSeconds(this.visibilityTimeoutSeconds)
+            .handler(this.messageHandler)
+            .errorHandler(this.errorHandler)
+            .longPolling(this.longPolling)
+            .autoAcknowledge(this.autoAcknowledge)
+            .concurrency(this.concurrency)
+            .interceptors(this.interceptors)
+            .backoffPolicy(this.backoffPolicy)
+            .workerPoolSize(this.workerPoolSize)
+            .pressureMonitor(this.pressureMonitor)
+            .payloadCodec(this.payloadCodec)
+            .handlerTimeout(this.handlerTimeout)
+            .keyExtractor(this.keyExtractor)
+            .lanes(this.lanes)
+            .laneCapacity(this.laneCapacity)
+            .conflationPolicy(this.conflationPolicy)
+            .bulkHandler(this.bulkHandler)
+            .aggregationPolicy(
+                this.bulkHandler == null
+                    ? null
+                    : requireNonNullElse(
+                        this.aggregationPolicy, AggregationPolicy.builder().build()))
+            .maxAgePolicy(this.maxAgePolicy)
+            .messageAttributeNames(
+                this.messageAttributeNames == null ? null : List.copyOf(this.messageAttributeNames))
+            .tracer(this.tracer)
+            .costAccountingPolicy(this.costAccountingPolicy)
+            .messageTypeAttribute(resolveMessageTypeAttribute())
+            .warmUp(this.warmUp)
+            .warmUpHook(this.warmUpHook != null ? this.warmUpHook : this.handlerWarmUpHook)
+            .build();
 
     return new SqsMessageListener(this.sqsClient, this.executor, queue);
   }
+
+  private String resolveMessageTypeAttribute() {
+    if (this.messageTypeAttribute != null) {
+      return this.messageTypeAttribute;
+    }
+    return this.costAccountingPolicy != null
+        ? this.costAccountingPolicy.getTypeAttribute()
+        : SqsQueue.DEFAULT_MESSAGE_TYPE_ATTRIBUTE;
+  }
+
+  private static WarmUpHook warmUpHookOf(Object handler) {
+    return handler instanceof WarmUpHook ? (WarmUpHook) handler : null;
+  }
 }
@@ -0,0 +1,398 @@
+package com.vladc.sqslistener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeNameForSends;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+/**
+ * Buffers messages per queue and sends them with {@code SendMessageBatch} once a batch holds 10
+ * messages, would exceed the 256 KB payload limit or its linger time elapses. Bodies can be
+ * compressed with a {@linkplain PayloadCodec} to fit more messages into a batch. Entries failed by
+ * SQS (not sender faults) and failed requests are retried with backoff.
+ *
+ * <p>At most {@code maxPendingMessages} messages are buffered or in flight, {@linkplain
+ * #publish(SendMessageRequest)} blocks up to {@code maxBlockTime} for free capacity. Retried
+ * messages can be sent out of order, including messages of FIFO queues.
+ */
+@Slf4j
+public class SqsMessagePublisher implements AutoCloseable {
+
+  static final int MAX_BATCH_SIZE = 10;
+  static final int MAX_BATCH_BYTES = 262_144;
+
+  private static final String SENDER_THREAD_PREFIX = "sqs-publisher";
+  private static final int MAX_MESSAGE_ATTRIBUTES = 10;
+  private static final String STRING_DATA_TYPE = "String";
+  private static final String AWS_TRACE_HEADER =
+      MessageSystemAttributeNameForSends.AWS_TRACE_HEADER.toString();
+
+  private final SqsClient sqsClient;
+  private final Duration lingerTime;
+  private final Duration maxBlockTime;
+  private final int maxRetries;
+  private final BackoffPolicy retryBackoff;
+  private final Semaphore capacity;
+  private final ScheduledExecutorService senderExecutor;
+  private final ContentEncoding compression;
+  private final int compressionThreshold;
+  private final PayloadCodec payloadCodec;
+  private final MessageTracer tracer;
+
+  private final Map<String, QueueBuffer> buffers = new ConcurrentHashMap<>();
+  private volatile boolean closed = false;
+
+  SqsMessagePublisher(
+      SqsClient sqsClient,
+      Duration lingerTime,
+      int maxPendingMessages,
+      Duration maxBlockTime,
+      int maxRetries,
+      BackoffPolicy retryBackoff,
+      int senderThreads,
+      ContentEncoding compression,
+      int compressionThreshold,
+      PayloadCodec payloadCodec,
+      MessageTracer tracer) {
+    this.sqsClient = Objects.requireNonNull(sqsClient);
+    this.lingerTime = Objects.requireNonNull(lingerTime);
+    this.maxBlockTime = Objects.requireNonNull(maxBlockTime);
+    this.maxRetries = maxRetries;
+    this.retryBackoff = Objects.requireNonNull(retryBackoff);
+    this.capacity = new Semaphore(maxPendingMessages);
+    this.senderExecutor =
+        new ScheduledThreadPoolExecutor(
+            senderThreads, new PrefixedThreadFactory(SENDER_THREAD_PREFIX));
+    this.compression = compression;
+    this.compressionThreshold = compressionThreshold;
+    this.payloadCodec = compression == null ? null : Objects.requireNonNull(payloadCodec);
+    this.tracer = tracer;
+  }
+
+  public static SqsMessagePublisherBuilder builder() {
+    return new SqsMessagePublisherBuilder();
+  }
+
+  public CompletableFuture<SendMessageBatchResultEntry> publish(String queueUrl, String body) {
+    return publish(SendMessageRequest.builder().queueUrl(queueUrl).messageBody(body).build());
+  }
+
+  /**
+   * Buffers the message for sending. The id of the returned result entry is assigned by the
+   * publisher and is only unique within its batch.
+   *
+   * @return future completed when SQS accepts the message, or exceptionally when the message is
+   *     rejected, retries are exhausted or the buffer stays full for {@code maxBlockTime}
+   */
+  public CompletableFuture<SendMessageBatchResultEntry> publish(SendMessageRequest request) {
+    Objects.requireNonNull(request.queueUrl(), "queueUrl must not be null");
+    if (closed) {
+      return CompletableFuture.failedFuture(new IllegalStateException("publisher is closed"));
+    }
+
+    if (tracer != null) {
+      request = injectTraceContext(request);
+    }
+    if (compression != null
+        && request.messageBody() != null
+        && request.messageBody().length() >= compressionThreshold) {
+      request = payloadCodec.encode(request, compression);
+    }
+
+    SendMessageBatchRequestEntry entry = toEntry(request);
+    int size = payloadSize(entry);
+    if (size > MAX_BATCH_BYTES) {
+      return CompletableFuture.failedFuture(
+          new IllegalArgumentException("message size %d exceeds 256 KB".formatted(size)));
+    }
+
+    try {
+      if (!capacity.tryAcquire(maxBlockTime.toMillis(), TimeUnit.MILLISECONDS)) {
+        return CompletableFuture.failedFuture(
+            new RejectedExecutionException("publisher buffer is full"));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    }
+
+    PendingMessage message = new PendingMessage(entry, size);
+    message.future.whenComplete((result, e) -> capacity.release());
+    buffer(request.queueUrl()).add(message);
+    return message.future;
+  }
+
+  /** Sends all buffered messages without waiting for their linger time. */
+  public void flush() {
+    buffers.values().forEach(QueueBuffer::flush);
+  }
+
+  /** Sends buffered messages and waits up to 30 seconds for pending sends to complete. */
+  @Override
+  public void close() {
+    closed = true;
+    flush();
+    senderExecutor.shutdown();
+    try {
+      if (!senderExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+        senderExecutor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private QueueBuffer buffer(String queueUrl) {
+    return buffers.computeIfAbsent(queueUrl, QueueBuffer::new);
+  }
+
+  private void schedule(Runnable task, Duration delay) {
+    try {
+      senderExecutor.schedule(task, delay.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // closed publisher sends on the calling thread
+      task.run();
+    }
+  }
+
+  private void send(String queueUrl, List<PendingMessage> batch) {
+    schedule(() -> sendBatch(queueUrl, batch), Duration.ZERO);
+  }
+
+  private void sendBatch(String queueUrl, List<PendingMessage> batch) {
+    List<SendMessageBatchRequestEntry> entries =
+        IntStream.range(0, batch.size())
+            .mapToObj(i -> batch.get(i).entry.toBuilder().id(String.valueOf(i)).build())
+            .collect(Collectors.toList());
+
+    SendMessageBatchResponse response;
+    try {
+      response =
+          sqsClient.sendMessageBatch(
+              SendMessageBatchRequest.builder().queueUrl(queueUrl).entries(entries).build());
+    } catch (AwsServiceException | SdkClientException e) {
+      log.error("{} - SQS sdk sendMessageBatch error", queueUrl, e);
+      batch.forEach(message -> retry(queueUrl, message, e));
+      return;
+    }
+
+    response
+        .successful()
+        .forEach(result -> batch.get(Integer.parseInt(result.id())).future.complete(result));
+    for (BatchResultErrorEntry error : response.failed()) {
+      PendingMessage message = batch.get(Integer.parseInt(error.id()));
+      String errorMessage = "%s: %s".formatted(error.code(), error.message());
+      AwsServiceException exception =
+          SqsException.builder()
+              .message(errorMessage)
+              .awsErrorDetails(
+                  AwsErrorDetails.builder()
+                      .errorCode(error.code())
+                      .errorMessage(errorMessage)
+                      .build())
+              .build();
+      if (Boolean.TRUE.equals(error.senderFault())) {
+        message.future.completeExceptionally(exception);
+      } else {
+        retry(queueUrl, message, exception);
+      }
+    }
+  }
+
+  private void retry(String queueUrl, PendingMessage message, Exception cause) {
+    message.attempts++;
+    if (message.attempts > maxRetries) {
+      message.future.completeExceptionally(cause);
+      return;
+    }
+    schedule(() -> buffer(queueUrl).add(message), retryBackoff.delay(message.attempts));
+  }
+
+  private SendMessageRequest injectTraceContext(SendMessageRequest request) {
+    TraceContext context = tracer.currentContext();
+    if (context == null) {
+      return request;
+    }
+    SendMessageRequest.Builder builder = request.toBuilder();
+    Map<String, MessageAttributeValue> attributes = request.messageAttributes();
+    // SQS allows at most 10 message attributes, the system attribute does not count
+    if (!attributes.containsKey(TraceContext.TRACEPARENT_ATTRIBUTE)
+        && attributes.size() < MAX_MESSAGE_ATTRIBUTES) {
+      Map<String, MessageAttributeValue> traced = new HashMap<>(attributes);
+      traced.put(
+          TraceContext.TRACEPARENT_ATTRIBUTE,
+          MessageAttributeValue.builder()
+              .dataType(STRING_DATA_TYPE)
+              .stringValue(context.toTraceparent())
+              .build());
+      builder.messageAttributes(traced);
+    }
+    Map<String, MessageSystemAttributeValue> systemAttributes =
+        request.messageSystemAttributesAsStrings();
+    if (!systemAttributes.containsKey(AWS_TRACE_HEADER)) {
+      Map<String, MessageSystemAttributeValue> traced = new HashMap<>(systemAttributes);
+      traced.put(
+          AWS_TRACE_HEADER,
+          MessageSystemAttributeValue.builder()
+              .dataType(STRING_DATA_TYPE)
+              .stringValue(context.toAwsTraceHeader())
+              .build());
+      builder.messageSystemAttributesWithStrings(traced);
+    }
+    return builder.build();
+  }
+
+  private static SendMessageBatchRequestEntry toEntry(SendMessageRequest request) {
+    return SendMessageBatchRequestEntry.builder()
+        .id("0")
+        .messageBody(request.messageBody())
+        .delaySeconds(request.delaySeconds())
+        .messageAttributes(request.messageAttributes())
+        .messageSystemAttributesWithStrings(request.messageSystemAttributesAsStrings())
+        .messageDeduplicationId(request.messageDeduplicationId())
+        .messageGroupId(request.messageGroupId())
+        .build();
+  }
+
+  static int payloadSize(SendMessageBatchRequestEntry entry) {
+    int size = utf8Length(entry.messageBody());
+    for (Map.Entry<String, MessageAttributeValue> attribute :
+        entry.messageAttributes().entrySet()) {
+      MessageAttributeValue value = attribute.getValue();
+      size += utf8Length(attribute.getKey()) + utf8Length(value.dataType());
+      size += utf8Length(value.stringValue()) + binaryLength(value.binaryValue());
+    }
+    for (Map.Entry<String, MessageSystemAttributeValue> attribute :
+        entry.messageSystemAttributesAsStrings().entrySet()) {
+      MessageSystemAttributeValue value = attribute.getValue();
+      size += utf8Length(attribute.getKey()) + utf8Length(value.dataType());
+      size += utf8Length(value.stringValue()) + binaryLength(value.binaryValue());
+    }
+    return size;
+  }
+
+  private static int utf8Length(String value) {
+    return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static int binaryLength(SdkBytes value) {
+    return value == null ? 0 : value.asByteBuffer().remaining();
+  }
+
+  private class QueueBuffer {
+
+    private final String queueUrl;
+    private List<PendingMessage> pending = new ArrayList<>(MAX_BATCH_SIZE);
+    private int pendingBytes = 0;
+    private ScheduledFuture<?> lingerFlush;
+
+    private QueueBuffer(String queueUrl) {
+      this.queueUrl = queueUrl;
+    }
+
+    void add(PendingMessage message) {
+      List<List<PendingMessage>> ready = new ArrayList<>(2);
+      boolean scheduleFlush = false;
+      synchronized (this) {
+        if (pendingBytes + message.size > MAX_BATCH_BYTES) {
+          ready.add(drain());
+        }
+        pending.add(message);
+        pendingBytes += message.size;
+        if (pending.size() >= MAX_BATCH_SIZE) {
+          ready.add(drain());
+        } else if (pending.size() == 1) {
+          scheduleFlush = true;
+        }
+      }
+      ready.forEach(batch -> send(queueUrl, batch));
+      if (scheduleFlush) {
+        scheduleLingerFlush();
+      }
+    }
+
+    void flush() {
+      List<PendingMessage> batch;
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = drain();
+      }
+      send(queueUrl, batch);
+    }
+
+    private void scheduleLingerFlush() {
+      ScheduledFuture<?> future;
+      try {
+        future =
+            senderExecutor.schedule(this::flush, lingerTime.toMillis(), TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        flush();
+        return;
+      }
+      synchronized (this) {
+        if (lingerFlush == null && !pending.isEmpty()) {
+          lingerFlush = future;
+        } else {
+          // batch was already drained or has its own flush scheduled
+          future.cancel(false);
+        }
+      }
+    }
+
+    private List<PendingMessage> drain() {
+      if (lingerFlush != null) {
+        lingerFlush.cancel(false);
+        lingerFlush = null;
+      }
+      List<PendingMessage> batch = pending;
+      pending = new ArrayList<>(MAX_BATCH_SIZE);
+      pendingBytes = 0;
+      return batch;
+    }
+  }
+
+  private static class PendingMessage {
+
+    private final SendMessageBatchRequestEntry entry;
+    private final int size;
+    private final CompletableFuture<SendMessageBatchResultEntry> future =
+        new CompletableFuture<>();
+    private int attempts = 0;
+
+    private PendingMessage(SendMessageBatchRequestEntry entry, int size) {
+      this.entry = entry;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.vladc.sqslistener;
+
+import java.time.Duration;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+public class SqsMessagePublisherBuilder {
+
+  private SqsClient sqsClient;
+  private Duration lingerTime = Duration.ofMillis(50);
+  private int maxPendingMessages = 1000;
+  private Duration maxBlockTime = Duration.ofSeconds(10);
+  private int maxRetries = 3;
+  private BackoffPolicy retryBackoff =
+      BackoffPolicy.exponential(Duration.ofMillis(100), Duration.ofSeconds(5));
+  private int senderThreads = 2;
+  private ContentEncoding compression;
+  private int compressionThreshold = 1024;
+  private PayloadCodec payloadCodec = new PayloadCodec();
+  private MessageTracer tracer;
+
+  public SqsMessagePublisherBuilder client(SqsClient client) {
+    this.sqsClient = client;
+    return this;
+  }
+
+  /** Maximum time a message waits in a partially filled batch. */
+  public SqsMessagePublisherBuilder lingerTime(Duration lingerTime) {
+    this.lingerTime = lingerTime;
+    return this;
+  }
+
+  /** Maximum number of messages buffered or in flight. */
+  public SqsMessagePublisherBuilder maxPendingMessages(int maxPendingMessages) {
+    this.maxPendingMessages = maxPendingMessages;
+    return this;
+  }
+
+  /** Maximum time {@code publish} blocks while the buffer is full. */
+  public SqsMessagePublisherBuilder maxBlockTime(Duration maxBlockTime) {
+    this.maxBlockTime = maxBlockTime;
+    return this;
+  }
+
+  public SqsMessagePublisherBuilder maxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /** Delay before a failed message is sent again, keyed on the number of attempts. */
+  public SqsMessagePublisherBuilder retryBackoff(BackoffPolicy retryBackoff) {
+    this.retryBackoff = retryBackoff;
+    return this;
+  }
+
+  public SqsMessagePublisherBuilder senderThreads(int senderThreads) {
+    this.senderThreads = senderThreads;
+    return this;
+  }
+
+  /** Compresses message bodies with the given encoding, disabled if {@code null}. */
+  public SqsMessagePublisherBuilder compression(ContentEncoding compression) {
+    this.compression = compression;
+    return this;
+  }
+
+  /** Bodies shorter than this number of characters are sent uncompressed. */
+  public SqsMessagePublisherBuilder compressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+    return this;
+  }
+
+  public SqsMessagePublisherBuilder payloadCodec(PayloadCodec payloadCodec) {
+    this.payloadCodec = payloadCodec;
+    return this;
+  }
+
+  /**
+   * Adds the current trace context to published messages as {@code traceparent} attribute and
+   * {@code AWSTraceHeader} system attribute, unless the message already carries them.
+   */
+  public SqsMessagePublisherBuilder tracer(MessageTracer tracer) {
+    this.tracer = tracer;
+    return this;
+  }
+
+  public SqsMessagePublisher build() {
+    return new SqsMessagePublisher(
+        this.sqsClient,
+        this.lingerTime,
+        this.maxPendingMessages,
+        this.maxBlockTime,
+        this.maxRetries,
+        this.retryBackoff,
+        this.senderThreads,
+        this.compression,
+        this.compressionThreshold,
+        this.payloadCodec,
+        this.tracer);
+  }
+}
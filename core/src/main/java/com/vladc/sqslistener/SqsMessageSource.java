@@ -0,0 +1,261 @@
+package com.vladc.sqslistener;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+/**
+ * Exposes a queue as a {@linkplain Flow.Publisher} of {@linkplain AcknowledgeableMessage}s.
+ * Receives follow subscriber demand: each {@code ReceiveMessage} asks for at most the outstanding
+ * demand capped by {@code maxBatchSize}, and no receive is issued while there is no demand.
+ * Messages are not acknowledged automatically, subscribers call {@linkplain
+ * AcknowledgeableMessage#ack()} or {@linkplain AcknowledgeableMessage#nack()} once done.
+ *
+ * <p>Every subscriber polls independently. Receive errors are logged and retried after a delay,
+ * subscribers are completed when the source is {@linkplain #close() closed}.
+ */
+@Slf4j
+public class SqsMessageSource implements Flow.Publisher<AcknowledgeableMessage>, AutoCloseable {
+
+  private static final String POLLER_THREAD_PREFIX = "sqs-source";
+  private static final long ACKNOWLEDGEMENT_FLUSH_INTERVAL_MILLIS = 100;
+  private static final long RECEIVE_ERROR_DELAY_MILLIS = 5000;
+
+  private final SqsClient sqsClient;
+  private final SqsQueue queue;
+  private final ExecutorService pollerExecutor;
+  private final boolean isDefaultExecutor;
+
+  private final Object monitor = new Object();
+  private final Set<SqsSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private volatile String queueUrl;
+  private volatile AcknowledgementBatcher acknowledgementBatcher;
+  private volatile boolean closed = false;
+
+  public static SqsMessageSourceBuilder builder() {
+    return new SqsMessageSourceBuilder();
+  }
+
+  SqsMessageSource(SqsClient sqsClient, ExecutorService pollerExecutor, SqsQueue queue) {
+    this.sqsClient = Objects.requireNonNull(sqsClient);
+    this.queue = Objects.requireNonNull(queue);
+    this.isDefaultExecutor = pollerExecutor == null;
+    this.pollerExecutor =
+        pollerExecutor == null
+            ? Executors.newCachedThreadPool(new PrefixedThreadFactory(POLLER_THREAD_PREFIX))
+            : pollerExecutor;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super AcknowledgeableMessage> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber must not be null");
+    SqsSubscription subscription = new SqsSubscription(subscriber);
+    try {
+      // the queue url must be known before the subscriber requests messages
+      prepare();
+    } catch (RuntimeException e) {
+      subscription.cancelled = true;
+      subscriber.onSubscribe(subscription);
+      subscriber.onError(e);
+      return;
+    }
+    subscriber.onSubscribe(subscription);
+    subscriptions.add(subscription);
+    if (closed) {
+      subscription.complete();
+    }
+  }
+
+  /**
+   * Completes all subscribers and flushes pending acknowledgements. Receives in progress are
+   * aborted if the source uses its default executor.
+   */
+  @Override
+  public void close() {
+    synchronized (monitor) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    subscriptions.forEach(SqsSubscription::complete);
+    subscriptions.clear();
+    if (isDefaultExecutor) {
+      pollerExecutor.shutdownNow();
+    }
+    if (acknowledgementBatcher != null) {
+      acknowledgementBatcher.close();
+    }
+  }
+
+  private void prepare() {
+    synchronized (monitor) {
+      if (closed) {
+        throw new IllegalStateException("source is closed");
+      }
+      if (acknowledgementBatcher != null) {
+        return;
+      }
+      try {
+        queueUrl = QueueUrlResolver.resolve(sqsClient, queue.getUrl());
+      } catch (SdkClientException | SqsException e) {
+        throw new IllegalStateException(
+            "%s - queue validation failed".formatted(queue.getUrl()), e);
+      }
+      acknowledgementBatcher =
+          new AcknowledgementBatcher(sqsClient, queueUrl, ACKNOWLEDGEMENT_FLUSH_INTERVAL_MILLIS);
+    }
+  }
+
+  private List<Message> receive(int maxMessages) {
+    ReceiveMessageRequest request =
+        ReceiveMessageRequest.builder()
+            .queueUrl(queueUrl)
+            .waitTimeSeconds(queue.getLongPolling() ? 20 : 1)
+            .maxNumberOfMessages(maxMessages)
+            .visibilityTimeout(queue.getVisibilityTimeoutSeconds())
+            .messageAttributeNames("All")
+            .build();
+    try {
+      return sqsClient.receiveMessage(request).messages();
+    } catch (AbortedException e) {
+      return List.of();
+    } catch (SdkClientException | SqsException e) {
+      log.error("{} - SQS sdk receiveMessage error", queueUrl, e);
+      try {
+        TimeUnit.MILLISECONDS.sleep(RECEIVE_ERROR_DELAY_MILLIS);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+      return List.of();
+    }
+  }
+
+  private AcknowledgeableMessage acknowledgeable(Message message) {
+    PayloadCodec payloadCodec = queue.getPayloadCodec();
+    if (payloadCodec == null) {
+      return new MessageAcknowledgement(message, acknowledgementBatcher);
+    }
+    try {
+      return new MessageAcknowledgement(payloadCodec.decode(message), acknowledgementBatcher);
+    } catch (IllegalArgumentException e) {
+      log.error("{} - failed to decode message {}", queueUrl, message.messageId(), e);
+      // left for the redrive policy
+      return null;
+    }
+  }
+
+  private class SqsSubscription implements Flow.Subscription, Runnable {
+
+    private final Flow.Subscriber<? super AcknowledgeableMessage> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private volatile boolean done = false;
+    private volatile Throwable error;
+
+    private SqsSubscription(Flow.Subscriber<? super AcknowledgeableMessage> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        fail(new IllegalArgumentException("requested demand must be positive, got " + n));
+        return;
+      }
+      // demand of Long.MAX_VALUE is unbounded
+      demand.accumulateAndGet(
+          n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      subscriptions.remove(this);
+    }
+
+    /**
+     * Polls while there is demand and signals termination. At most one poll loop runs per
+     * subscription, so subscriber signals are never concurrent.
+     */
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        while (!cancelled && !done && demand.get() > 0) {
+          int maxMessages = (int) Math.min(demand.get(), queue.getMaxBatchSize());
+          for (Message message : receive(maxMessages)) {
+            AcknowledgeableMessage acknowledgeable = acknowledgeable(message);
+            if (acknowledgeable == null) {
+              continue;
+            }
+            if (cancelled || done) {
+              // not delivered, make it visible again for other consumers
+              acknowledgeable.nack();
+              continue;
+            }
+            demand.decrementAndGet();
+            deliver(acknowledgeable);
+          }
+        }
+        if (done && !cancelled) {
+          cancel();
+          if (error != null) {
+            subscriber.onError(error);
+          } else {
+            subscriber.onComplete();
+          }
+        }
+        missed = pending.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void schedule() {
+      if (pending.getAndIncrement() == 0) {
+        try {
+          pollerExecutor.execute(this);
+        } catch (RejectedExecutionException e) {
+          // source closed, only the termination signal is left
+          run();
+        }
+      }
+    }
+
+    private void deliver(AcknowledgeableMessage message) {
+      try {
+        subscriber.onNext(message);
+      } catch (RuntimeException e) {
+        log.error("{} - subscriber failed, cancelling subscription", queueUrl, e);
+        cancel();
+      }
+    }
+
+    private void complete() {
+      done = true;
+      schedule();
+    }
+
+    private void fail(Throwable error) {
+      this.error = error;
+      done = true;
+      schedule();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.vladc.sqslistener;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+public class SqsMessageSourceBuilder {
+
+  private SqsClient sqsClient;
+  private ExecutorService executor;
+  private String url;
+  private Integer maxBatchSize = 10;
+  private Integer visibilityTimeoutSeconds;
+  private Boolean longPolling = true;
+  private PayloadCodec payloadCodec = new PayloadCodec();
+
+  public SqsMessageSourceBuilder client(SqsClient client) {
+    this.sqsClient = client;
+    return this;
+  }
+
+  /** Executor running one poll loop per subscriber with outstanding demand. */
+  public SqsMessageSourceBuilder executor(ExecutorService executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /** Queue url or queue name resolved with {@code GetQueueUrl}. */
+  public SqsMessageSourceBuilder url(String url) {
+    this.url = url;
+    return this;
+  }
+
+  public SqsMessageSourceBuilder maxBatchSize(Integer maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  /** Defaults to the queue {@code VisibilityTimeout} attribute. */
+  public SqsMessageSourceBuilder visibilityTimeoutSeconds(Integer visibilityTimeoutSeconds) {
+    this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+    return this;
+  }
+
+  public SqsMessageSourceBuilder longPolling(Boolean longPolling) {
+    this.longPolling = longPolling;
+    return this;
+  }
+
+  /** Codec decoding compressed message bodies, {@code null} disables decoding. */
+  public SqsMessageSourceBuilder payloadCodec(PayloadCodec payloadCodec) {
+    this.payloadCodec = payloadCodec;
+    return this;
+  }
+
+  public SqsMessageSource build() {
+    SqsQueue queue =
+        SqsQueue.builder()
+            .url(this.url)
+            .maxBatchSize(this.maxBatchSize)
+            .visibilityTimeoutSeconds(this.visibilityTimeoutSeconds)
+            .longPolling(this.longPolling)
+            .autoAcknowledge(false)
+            .concurrency(1)
+            .interceptors(List.of())
+            .payloadCodec(this.payloadCodec)
+            .build();
+
+    return new SqsMessageSource(this.sqsClient, this.executor, queue);
+  }
+}
@@ -1,19 +1,25 @@
 package com.vladc.sqslistener;
 
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import lombok.Builder;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
-@RequiredArgsConstructor
+@Builder(toBuilder = true)
 @Getter
 class SqsQueue {
 
-  /** AWS SQS queue url */
+  static final String ALL_ATTRIBUTES = "All";
+
+  static final String DEFAULT_MESSAGE_TYPE_ATTRIBUTE = "messageType";
+
+  /** AWS SQS queue url, or queue name until the listener is prepared */
   private final String url;
 
   /**
@@ -25,16 +31,17 @@ class SqsQueue {
 
   /**
    * The duration (in seconds) that the received messages are hidden from subsequent retrieve
-   * requests
+   * requests. If not set, the queue {@code VisibilityTimeout} attribute is used.
    *
    * @see ReceiveMessageRequest#visibilityTimeout()
    */
   private final Integer visibilityTimeoutSeconds;
 
   /**
-   * The handler invoked by {@linkplain SqsMessageListener} on each received {@linkplain Message}
+   * The handler invoked by {@linkplain SqsMessageListener} on each received {@linkplain Message},
+   * synchronous handlers return a completed stage
    */
-  private final MessageHandler handler;
+  private final AsyncDispositionHandler handler;
 
   /**
    * The handler invoked by {@linkplain SqsMessageListener} if exception is thrown from {@linkplain
@@ -53,11 +60,11 @@ class SqsQueue {
   /**
    * Enables automatic deletion of message from the queue if handler method returns successfully.
    * Note that disabling autoAcknowledge will prevent messages from being removed form the queue
-   * automatically thus must be removed manually by calling {@linkplain
-   * SqsClient#deleteMessage(DeleteMessageRequest)}
+   * automatically thus must be removed manually by calling {@linkplain Acknowledgement#ack()}
    *
    * @see SqsClient#deleteMessageBatch
    * @see MessageHandler
+   * @see AcknowledgingMessageHandler
    */
   private final Boolean autoAcknowledge;
 
@@ -65,6 +72,128 @@ class SqsQueue {
 
   private final List<HandlerInterceptor> interceptors;
 
+  /**
+   * Computes redelivery delay of messages retried with {@linkplain Disposition#retry()}. If not
+   * set, failed messages become visible again after visibility timeout expires.
+   */
+  private final BackoffPolicy backoffPolicy;
+
+  /**
+   * Size of the default message processor executor, used only if no executor is provided. Defaults
+   * to {@code concurrency * maxBatchSize + 1}.
+   */
+  private final Integer workerPoolSize;
+
+  /**
+   * Throttles or pauses receives while the JVM is under memory, GC or CPU pressure. Usually shared
+   * by all listeners of the application.
+   */
+  private final JvmPressureMonitor pressureMonitor;
+
+  /**
+   * Decompresses message bodies carrying the {@value PayloadCodec#CONTENT_ENCODING_ATTRIBUTE}
+   * attribute before they reach the handler. Decoding is disabled if not set.
+   */
+  private final PayloadCodec payloadCodec;
+
+  /**
+   * Messages of a FIFO queue received in one batch are processed sequentially to preserve their
+   * order. Detected when the listener is prepared.
+   */
+  private final Boolean fifo;
+
+  /**
+   * Maximum time a handler may process a single message. When it expires the handler thread is
+   * interrupted and the message is made visible again. Defaults to a fraction of the visibility
+   * timeout, {@linkplain Duration#ZERO} disables the deadline.
+   */
+  private final Duration handlerTimeout;
+
+  /**
+   * Routes messages of standard queues by key hash onto single-threaded lanes, so messages with
+   * equal keys are processed serially. Messages without key use the worker pool.
+   */
+  private final MessageKeyExtractor keyExtractor;
+
+  /** Number of lanes, defaults to {@code concurrency * maxBatchSize + 1}. */
+  private final Integer lanes;
+
+  /** Maximum number of messages waiting per lane, a full lane blocks the consumer. Default 100. */
+  private final Integer laneCapacity;
+
+  /** Drops messages superseded by a newer message of the same key before they are handled. */
+  private final ConflationPolicy conflationPolicy;
+
+  /**
+   * Handles messages aggregated across receives in batches bounded by the {@linkplain
+   * #aggregationPolicy}. Replaces the per-message handler if set.
+   */
+  private final BulkMessageHandler bulkHandler;
+
+  private final AggregationPolicy aggregationPolicy;
+
+  /** Sheds messages older than a maximum age without calling the handler, disabled if not set. */
+  private final MaxAgePolicy maxAgePolicy;
+
+  /**
+   * Message attributes requested on receive, all attributes if not set. Attributes the listener
+   * itself reads (encoding, key, version, trace and message type attributes) are always added.
+   *
+   * @see ReceiveMessageRequest#messageAttributeNames()
+   */
+  private final List<String> messageAttributeNames;
+
+  /** Opens receive and handle spans, tracing is disabled if not set. */
+  private final MessageTracer tracer;
+
+  /** Samples CPU time and allocations of handler calls, disabled if not set. */
+  private final CostAccountingPolicy costAccountingPolicy;
+
+  /** Message attribute holding the message type reported in flight recorder events. */
+  private final String messageTypeAttribute;
+
+  /**
+   * Prestarts worker threads, opens connections and runs the {@linkplain #warmUpHook} before the
+   * first receive.
+   */
+  private final Boolean warmUp;
+
+  private final WarmUpHook warmUpHook;
+
+  /** Returns the message attribute names to request, {@code All} if no projection is set. */
+  List<String> receiveMessageAttributeNames() {
+    if (messageAttributeNames == null) {
+      return List.of(ALL_ATTRIBUTES);
+    }
+    Set<String> names = new LinkedHashSet<>(messageAttributeNames);
+    if (payloadCodec != null) {
+      names.add(PayloadCodec.CONTENT_ENCODING_ATTRIBUTE);
+    }
+    if (tracer != null) {
+      names.add(TraceContext.TRACEPARENT_ATTRIBUTE);
+    }
+    if (costAccountingPolicy != null) {
+      names.add(costAccountingPolicy.getTypeAttribute());
+    }
+    if (messageTypeAttribute != null) {
+      names.add(messageTypeAttribute);
+    }
+    addKeyAttribute(names, keyExtractor);
+    if (conflationPolicy != null) {
+      addKeyAttribute(names, conflationPolicy.getKeyExtractor());
+      if (conflationPolicy.getVersionAttribute() != null) {
+        names.add(conflationPolicy.getVersionAttribute());
+      }
+    }
+    return List.copyOf(names);
+  }
+
+  private static void addKeyAttribute(Set<String> names, MessageKeyExtractor keyExtractor) {
+    if (keyExtractor instanceof AttributeKeyExtractor) {
+      names.add(((AttributeKeyExtractor) keyExtractor).getAttributeName());
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
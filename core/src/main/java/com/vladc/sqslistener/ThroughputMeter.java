@@ -0,0 +1,48 @@
+package com.vladc.sqslistener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate per-second rate over the last minute. Events are counted in one-second buckets, a
+ * bucket is reset lazily when it is reused. Lock-free, concurrent updates may lose single events
+ * while a bucket is being reset.
+ */
+class ThroughputMeter {
+
+  private static final int WINDOW_SECONDS = 60;
+
+  private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+  private final AtomicLongArray bucketSeconds = new AtomicLongArray(WINDOW_SECONDS);
+  private final LongSupplier clock;
+
+  ThroughputMeter() {
+    this(System::currentTimeMillis);
+  }
+
+  ThroughputMeter(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  void record() {
+    long second = clock.getAsLong() / 1000;
+    int bucket = (int) (second % WINDOW_SECONDS);
+    long bucketSecond = bucketSeconds.get(bucket);
+    if (bucketSecond != second && bucketSeconds.compareAndSet(bucket, bucketSecond, second)) {
+      counts.set(bucket, 0);
+    }
+    counts.incrementAndGet(bucket);
+  }
+
+  /** @return average number of events per second during the last minute */
+  double rate() {
+    long second = clock.getAsLong() / 1000;
+    long total = 0;
+    for (int i = 0; i < WINDOW_SECONDS; i++) {
+      if (second - bucketSeconds.get(i) < WINDOW_SECONDS) {
+        total += counts.get(i);
+      }
+    }
+    return (double) total / WINDOW_SECONDS;
+  }
+}
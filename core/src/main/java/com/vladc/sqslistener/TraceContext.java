@@ -0,0 +1,128 @@
+package com.vladc.sqslistener;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * Trace and span id carried by a message, either as W3C {@code traceparent} message attribute or
+ * as {@code AWSTraceHeader} system attribute set by X-Ray instrumented producers.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class TraceContext {
+
+  public static final String TRACEPARENT_ATTRIBUTE = "traceparent";
+
+  private static final Pattern TRACE_ID = Pattern.compile("[0-9a-f]{32}");
+  private static final Pattern SPAN_ID = Pattern.compile("[0-9a-f]{16}");
+  private static final String INVALID_TRACE_ID = "0".repeat(32);
+  private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+  /** 32 lowercase hex characters. */
+  private final String traceId;
+
+  /** 16 lowercase hex characters. */
+  private final String spanId;
+
+  private final boolean sampled;
+
+  public TraceContext(String traceId, String spanId, boolean sampled) {
+    this.traceId = Objects.requireNonNull(traceId, "traceId must not be null");
+    this.spanId = Objects.requireNonNull(spanId, "spanId must not be null");
+    this.sampled = sampled;
+    if (!TRACE_ID.matcher(traceId).matches() || INVALID_TRACE_ID.equals(traceId)) {
+      throw new IllegalArgumentException("invalid trace id " + traceId);
+    }
+    if (!SPAN_ID.matcher(spanId).matches() || INVALID_SPAN_ID.equals(spanId)) {
+      throw new IllegalArgumentException("invalid span id " + spanId);
+    }
+  }
+
+  /**
+   * Reads the context of the message producer, preferring {@code traceparent} over {@code
+   * AWSTraceHeader}.
+   *
+   * @return context or {@code null} if the message carries none or it is malformed
+   */
+  public static TraceContext extract(Message message) {
+    MessageAttributeValue traceparent = message.messageAttributes().get(TRACEPARENT_ATTRIBUTE);
+    if (traceparent != null) {
+      TraceContext context = fromTraceparent(traceparent.stringValue());
+      if (context != null) {
+        return context;
+      }
+    }
+    String awsTraceHeader = message.attributes().get(MessageSystemAttributeName.AWS_TRACE_HEADER);
+    return fromAwsTraceHeader(awsTraceHeader);
+  }
+
+  /** Parses {@code 00-<trace-id>-<span-id>-<flags>}, {@code null} if malformed. */
+  public static TraceContext fromTraceparent(String traceparent) {
+    if (traceparent == null) {
+      return null;
+    }
+    String[] parts = traceparent.trim().split("-");
+    if (parts.length < 4 || parts[0].length() != 2 || "ff".equals(parts[0])) {
+      return null;
+    }
+    try {
+      boolean sampled = (Integer.parseInt(parts[3], 16) & 1) == 1;
+      return new TraceContext(parts[1], parts[2], sampled);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses {@code Root=1-<epoch>-<unique>;Parent=<span-id>;Sampled=<0|1>}, {@code null} if
+   * malformed or without parent.
+   */
+  public static TraceContext fromAwsTraceHeader(String header) {
+    if (header == null) {
+      return null;
+    }
+    String root = null;
+    String parent = null;
+    boolean sampled = false;
+    for (String field : header.split(";")) {
+      int separator = field.indexOf('=');
+      if (separator < 0) {
+        continue;
+      }
+      String key = field.substring(0, separator).trim();
+      String value = field.substring(separator + 1).trim();
+      switch (key) {
+        case "Root" -> root = value;
+        case "Parent" -> parent = value;
+        case "Sampled" -> sampled = "1".equals(value);
+        default -> {
+          // lineage and custom fields are not propagated
+        }
+      }
+    }
+    if (root == null || parent == null || !root.startsWith("1-") || root.length() != 35) {
+      return null;
+    }
+    try {
+      return new TraceContext(root.substring(2, 10) + root.substring(11), parent, sampled);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  public String toTraceparent() {
+    return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+  }
+
+  public String toAwsTraceHeader() {
+    return "Root=1-%s-%s;Parent=%s;Sampled=%d"
+        .formatted(traceId.substring(0, 8), traceId.substring(8), spanId, sampled ? 1 : 0);
+  }
+}
@@ -0,0 +1,22 @@
+package com.vladc.sqslistener;
+
+/**
+ * Span opened by a {@linkplain MessageTracer}. Ended exactly once, possibly on a different thread
+ * than the one that started it.
+ */
+public interface TraceSpan {
+
+  TraceSpan NOOP = new TraceSpan() {};
+
+  /** @return context of this span or {@code null} if it is not recorded */
+  default TraceContext getContext() {
+    return null;
+  }
+
+  /** Links a related context, e.g. the producer of a message received in a batch. */
+  default void link(TraceContext context) {}
+
+  default void error(Throwable error) {}
+
+  default void end() {}
+}
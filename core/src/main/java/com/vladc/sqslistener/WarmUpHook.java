@@ -0,0 +1,14 @@
+package com.vladc.sqslistener;
+
+/**
+ * Primes a handler before the listener receives its first message, e.g. loads handler classes,
+ * initializes JSON readers or fills caches. Handlers implementing this interface are registered
+ * automatically, other hooks with {@linkplain SqsMessageListenerBuilder#warmUpHook(WarmUpHook)}.
+ * Runs during the warm-up phase of {@linkplain MessageListener#subscribe()}, a failing hook is
+ * logged and does not prevent the listener from starting.
+ */
+@FunctionalInterface
+public interface WarmUpHook {
+
+  void warmUp() throws Exception;
+}
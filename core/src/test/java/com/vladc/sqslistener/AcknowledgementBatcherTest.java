@@ -0,0 +1,148 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AcknowledgementBatcherTest {
+
+  private AcknowledgementBatcher underTest;
+
+  @Mock private SqsClient mockSqsClient;
+  @Captor private ArgumentCaptor<DeleteMessageBatchRequest> deleteRequestCaptor;
+  @Captor private ArgumentCaptor<ChangeMessageVisibilityBatchRequest> visibilityRequestCaptor;
+
+  @BeforeEach
+  void setUp() {
+    when(mockSqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenReturn(DeleteMessageBatchResponse.builder().build());
+    when(mockSqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+        .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    underTest.close();
+  }
+
+  @Test
+  void fullBatchIsSentImmediately() throws Exception {
+    underTest = new AcknowledgementBatcher(mockSqsClient, "testQueue", TimeUnit.HOURS.toMillis(1));
+
+    List<CompletableFuture<Void>> futures =
+        messages(25).stream().map(underTest::delete).collect(Collectors.toList());
+
+    CompletableFuture.allOf(futures.subList(0, 20).toArray(CompletableFuture[]::new))
+        .get(1, TimeUnit.SECONDS);
+    verify(mockSqsClient, times(2)).deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues())
+        .allSatisfy(request -> assertThat(request.entries()).hasSize(10));
+    assertThat(futures.get(24)).isNotDone();
+  }
+
+  @Test
+  void pendingEntriesAreFlushedAfterInterval() throws Exception {
+    underTest = new AcknowledgementBatcher(mockSqsClient, "testQueue", 50);
+
+    CompletableFuture<Void> future =
+        underTest.changeVisibility(messages(1).get(0), Duration.ofSeconds(15));
+
+    future.get(1, TimeUnit.SECONDS);
+    verify(mockSqsClient).changeMessageVisibilityBatch(visibilityRequestCaptor.capture());
+    verify(mockSqsClient, never()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    assertThat(visibilityRequestCaptor.getValue().entries().get(0).visibilityTimeout())
+        .isEqualTo(15);
+  }
+
+  @Test
+  void failedEntriesCompleteExceptionally() {
+    when(mockSqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenReturn(
+            DeleteMessageBatchResponse.builder()
+                .failed(
+                    BatchResultErrorEntry.builder().id("1").code("ReceiptHandleIsInvalid").build())
+                .build());
+    underTest = new AcknowledgementBatcher(mockSqsClient, "testQueue", TimeUnit.HOURS.toMillis(1));
+
+    List<Message> messages = messages(2);
+    CompletableFuture<Void> first = underTest.delete(messages.get(0));
+    CompletableFuture<Void> second = underTest.delete(messages.get(1));
+    underTest.flush();
+
+    assertThat(first).isCompleted();
+    assertThat(second)
+        .failsWithin(Duration.ZERO)
+        .withThrowableOfType(ExecutionException.class)
+        .withMessageContaining("ReceiptHandleIsInvalid");
+  }
+
+  @Test
+  void closeFlushesPendingAndSendsLaterEntriesImmediately() throws Exception {
+    underTest = new AcknowledgementBatcher(mockSqsClient, "testQueue", TimeUnit.HOURS.toMillis(1));
+    List<Message> messages = messages(2);
+
+    CompletableFuture<Void> pending = underTest.delete(messages.get(0));
+    underTest.close();
+    assertThat(pending).isCompleted();
+
+    CompletableFuture<Void> afterClose = underTest.delete(messages.get(1));
+    afterClose.get(1, TimeUnit.SECONDS);
+    verify(mockSqsClient, times(2)).deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues().get(1).entries().get(0).receiptHandle())
+        .isEqualTo("receipt1");
+  }
+
+  @Test
+  void unexpectedErrorsDoNotStopScheduledFlush() throws Exception {
+    when(mockSqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenThrow(new IllegalStateException("testFailure"))
+        .thenReturn(DeleteMessageBatchResponse.builder().build());
+    underTest = new AcknowledgementBatcher(mockSqsClient, "testQueue", 50);
+    List<Message> messages = messages(2);
+
+    CompletableFuture<Void> failed = underTest.delete(messages.get(0));
+    assertThat(failed)
+        .failsWithin(1, TimeUnit.SECONDS)
+        .withThrowableOfType(Exception.class)
+        .withMessageContaining("testFailure");
+
+    underTest.delete(messages.get(1)).get(1, TimeUnit.SECONDS);
+  }
+
+  private static List<Message> messages(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i -> Message.builder().messageId("id" + i).receiptHandle("receipt" + i).build())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,37 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ExponentialBackoffPolicyTest {
+
+  @Test
+  void delayGrowsWithReceiveCount() {
+    BackoffPolicy underTest =
+        new ExponentialBackoffPolicy(Duration.ofSeconds(1), 2.0, Duration.ofMinutes(1));
+
+    assertThat(underTest.delay(0)).isEqualTo(Duration.ofSeconds(1));
+    assertThat(underTest.delay(1)).isEqualTo(Duration.ofSeconds(1));
+    assertThat(underTest.delay(2)).isEqualTo(Duration.ofSeconds(2));
+    assertThat(underTest.delay(4)).isEqualTo(Duration.ofSeconds(8));
+  }
+
+  @Test
+  void delayIsCappedAtMaxDelay() {
+    BackoffPolicy underTest =
+        new ExponentialBackoffPolicy(Duration.ofSeconds(1), 2.0, Duration.ofMinutes(1));
+
+    assertThat(underTest.delay(7)).isEqualTo(Duration.ofMinutes(1));
+    assertThat(underTest.delay(Integer.MAX_VALUE)).isEqualTo(Duration.ofMinutes(1));
+  }
+
+  @Test
+  void invalidMultiplier() {
+    assertThatThrownBy(
+            () -> new ExponentialBackoffPolicy(Duration.ofSeconds(1), 0.5, Duration.ofMinutes(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,78 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+class HandlerCostRecorderTest {
+
+  @Test
+  void aggregatesByMessageType() {
+    HandlerCostRecorder underTest =
+        new HandlerCostRecorder(CostAccountingPolicy.builder().samplingRate(1.0).build());
+
+    record(underTest, typed("OrderPlaced"), 1024 * 1024);
+    record(underTest, typed("OrderPlaced"), 0);
+    record(underTest, typed("OrderCancelled"), 0);
+    record(underTest, Message.builder().build(), 0);
+
+    assertThat(underTest.snapshot().getSamples()).isEqualTo(4);
+    Map<String, HandlerCost> byType = underTest.snapshotByType();
+    assertThat(byType)
+        .containsOnlyKeys("OrderCancelled", "OrderPlaced", HandlerCostRecorder.UNTYPED);
+    HandlerCost orderPlaced = byType.get("OrderPlaced");
+    assertThat(orderPlaced.getSamples()).isEqualTo(2);
+    assertThat(orderPlaced.getMaxAllocatedBytes()).isGreaterThanOrEqualTo(1024 * 1024);
+    assertThat(orderPlaced.getTotalAllocatedBytes())
+        .isGreaterThanOrEqualTo(orderPlaced.getMaxAllocatedBytes());
+    assertThat(orderPlaced.getTotalCpuTime()).isNotNull();
+  }
+
+  @Test
+  void boundsMessageTypes() {
+    HandlerCostRecorder underTest =
+        new HandlerCostRecorder(
+            CostAccountingPolicy.builder().samplingRate(1.0).maxMessageTypes(2).build());
+
+    record(underTest, typed("a"), 0);
+    record(underTest, typed("b"), 0);
+    record(underTest, typed("c"), 0);
+    record(underTest, typed("d"), 0);
+
+    assertThat(underTest.snapshotByType()).containsOnlyKeys("a", "b", HandlerCostRecorder.OTHER);
+    assertThat(underTest.snapshotByType().get(HandlerCostRecorder.OTHER).getSamples())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void emptySnapshot() {
+    HandlerCostRecorder underTest =
+        new HandlerCostRecorder(CostAccountingPolicy.builder().build());
+
+    HandlerCost cost = underTest.snapshot();
+    assertThat(cost.getSamples()).isZero();
+    assertThat(cost.getMeanCpuTime()).isNull();
+    assertThat(cost.getMeanAllocatedBytes()).isEqualTo(-1);
+    assertThat(underTest.snapshotByType()).isEmpty();
+  }
+
+  private static void record(HandlerCostRecorder recorder, Message message, int allocate) {
+    HandlerCostRecorder.Sample sample = recorder.begin();
+    assertThat(sample).isNotNull();
+    byte[] allocated = new byte[allocate];
+    assertThat(allocated).hasSize(allocate);
+    recorder.end(sample, message);
+  }
+
+  private static Message typed(String type) {
+    return Message.builder()
+        .messageAttributes(
+            Map.of(
+                CostAccountingPolicy.DEFAULT_TYPE_ATTRIBUTE,
+                MessageAttributeValue.builder().stringValue(type).build()))
+        .build();
+  }
+}
@@ -0,0 +1,46 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricCollector;
+
+class HttpPoolMetricsTest {
+
+  private final HttpPoolMetrics underTest = new HttpPoolMetrics();
+
+  @Test
+  void testNoRequests() {
+    HttpPoolStats stats = underTest.getStats();
+    assertThat(stats.getMaxConcurrency()).isEqualTo(-1);
+    assertThat(stats.getRequests()).isZero();
+    assertThat(stats.getSaturation()).isZero();
+  }
+
+  @Test
+  void testRecordsAttemptMetrics() {
+    underTest.publish(apiCall(50, 10, 0));
+    underTest.publish(apiCall(50, 50, 3));
+    underTest.publish(apiCall(50, 40, 0));
+
+    HttpPoolStats stats = underTest.getStats();
+    assertThat(stats.getMaxConcurrency()).isEqualTo(50);
+    assertThat(stats.getLeasedConcurrency()).isEqualTo(40);
+    assertThat(stats.getPendingAcquires()).isZero();
+    assertThat(stats.getPeakPendingAcquires()).isEqualTo(3);
+    assertThat(stats.getRequests()).isEqualTo(3);
+    assertThat(stats.getSaturatedRequests()).isEqualTo(1);
+    assertThat(stats.getSaturation()).isEqualTo(0.8);
+  }
+
+  private static MetricCollection apiCall(int max, int leased, int pending) {
+    MetricCollector apiCall = MetricCollector.create("ApiCall");
+    MetricCollector httpClient = apiCall.createChild("ApiCallAttempt").createChild("HttpClient");
+    httpClient.reportMetric(HttpMetric.MAX_CONCURRENCY, max);
+    httpClient.reportMetric(HttpMetric.LEASED_CONCURRENCY, leased);
+    httpClient.reportMetric(HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending);
+    return apiCall.collect();
+  }
+}
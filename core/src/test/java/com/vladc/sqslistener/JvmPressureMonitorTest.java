@@ -0,0 +1,50 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class JvmPressureMonitorTest {
+
+  private final JvmPressureMonitor underTest =
+      JvmPressureMonitor.builder()
+          .heapThrottleThreshold(0.8)
+          .heapPauseThreshold(0.9)
+          .gcThrottleThreshold(0.1)
+          .gcPauseThreshold(0.25)
+          .cpuThrottleThreshold(0.9)
+          .cpuPauseThreshold(2.0)
+          .hysteresis(0.05)
+          .build();
+
+  @Test
+  void levelFollowsHighestMetric() {
+    assertThat(underTest.update(0.5, 0.0, 0.5)).isEqualTo(PressureLevel.NORMAL);
+    assertThat(underTest.update(0.5, 0.12, 0.5)).isEqualTo(PressureLevel.THROTTLE);
+    assertThat(underTest.update(0.92, 0.0, 0.5)).isEqualTo(PressureLevel.PAUSE);
+  }
+
+  @Test
+  void levelIsReleasedWithHysteresis() {
+    underTest.update(0.92, 0.0, 0.0);
+
+    assertThat(underTest.update(0.87, 0.0, 0.0)).isEqualTo(PressureLevel.PAUSE);
+    assertThat(underTest.update(0.84, 0.0, 0.0)).isEqualTo(PressureLevel.THROTTLE);
+    assertThat(underTest.update(0.77, 0.0, 0.0)).isEqualTo(PressureLevel.THROTTLE);
+    assertThat(underTest.update(0.74, 0.0, 0.0)).isEqualTo(PressureLevel.NORMAL);
+    assertThat(underTest.getLevel()).isEqualTo(PressureLevel.NORMAL);
+  }
+
+  @Test
+  void disabledThresholdIsIgnored() {
+    assertThat(underTest.update(0.0, 0.0, 1.0)).isEqualTo(PressureLevel.THROTTLE);
+  }
+
+  @Test
+  void startAndClose() {
+    underTest.start();
+    underTest.close();
+
+    assertThat(underTest.getLevel()).isEqualTo(PressureLevel.NORMAL);
+  }
+}
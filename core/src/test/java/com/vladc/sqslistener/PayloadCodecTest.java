@@ -0,0 +1,110 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+class PayloadCodecTest {
+
+  private static final String BODY = "{\"value\":\"zażółć gęślą jaźń\"}".repeat(200);
+
+  private final PayloadCodec underTest = new PayloadCodec();
+
+  @Test
+  void roundTrip() {
+    for (ContentEncoding encoding : ContentEncoding.values()) {
+      String encoded = underTest.encode(BODY, encoding);
+
+      assertThat(encoded.length()).isLessThan(BODY.length());
+      assertThat(underTest.decode(encoded, encoding)).isEqualTo(BODY);
+    }
+  }
+
+  @Test
+  void gzipIsCompatibleWithJdkStreams() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(BODY.getBytes(StandardCharsets.UTF_8));
+    }
+    String encoded = Base64.getEncoder().encodeToString(compressed.toByteArray());
+    assertThat(underTest.decode(encoded, ContentEncoding.GZIP)).isEqualTo(BODY);
+
+    byte[] decoded = Base64.getDecoder().decode(underTest.encode(BODY, ContentEncoding.GZIP));
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(decoded))) {
+      assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+    }
+  }
+
+  @Test
+  void encodeRequest() {
+    SendMessageRequest request = SendMessageRequest.builder().messageBody(BODY).build();
+
+    SendMessageRequest encoded = underTest.encode(request, ContentEncoding.DEFLATE);
+    assertThat(encoded.messageAttributes().get(PayloadCodec.CONTENT_ENCODING_ATTRIBUTE))
+        .extracting(MessageAttributeValue::stringValue)
+        .isEqualTo("deflate");
+
+    SendMessageRequest small = SendMessageRequest.builder().messageBody("x").build();
+    assertThat(underTest.encode(small, ContentEncoding.DEFLATE)).isSameAs(small);
+  }
+
+  @Test
+  void decodeMessage() {
+    Message plain = Message.builder().body("plain").build();
+    assertThat(underTest.decode(plain)).isSameAs(plain);
+
+    Message encoded =
+        Message.builder()
+            .body(underTest.encode(BODY, ContentEncoding.GZIP))
+            .messageAttributes(
+                Map.of(
+                    PayloadCodec.CONTENT_ENCODING_ATTRIBUTE,
+                    MessageAttributeValue.builder().dataType("String").stringValue("GZIP").build()))
+            .build();
+    Message decoded = underTest.decode(encoded);
+    assertThat(decoded.body()).isEqualTo(BODY);
+    assertThat(decoded.messageAttributes()).isEmpty();
+  }
+
+  @Test
+  void unsupportedEncodingPassesThrough() {
+    Message brotli =
+        Message.builder()
+            .body("plain")
+            .messageAttributes(
+                Map.of(
+                    PayloadCodec.CONTENT_ENCODING_ATTRIBUTE,
+                    MessageAttributeValue.builder().dataType("String").stringValue("br").build()))
+            .build();
+
+    assertThat(underTest.decode(brotli)).isSameAs(brotli);
+  }
+
+  @Test
+  void invalidPayloads() {
+    assertThatThrownBy(() -> underTest.decode("aGVsbG8=", ContentEncoding.GZIP))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> underTest.decode("aGVsbG8=", ContentEncoding.DEFLATE))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    String encoded = underTest.encode(BODY, ContentEncoding.GZIP);
+    assertThatThrownBy(
+            () -> new PayloadCodec(Deflater.BEST_SPEED, 100).decode(encoded, ContentEncoding.GZIP))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("exceeds");
+    assertThatThrownBy(() -> ContentEncoding.fromValue("br"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
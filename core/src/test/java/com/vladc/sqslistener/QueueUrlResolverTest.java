@@ -0,0 +1,47 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+
+@ExtendWith(MockitoExtension.class)
+class QueueUrlResolverTest {
+
+  @Mock private SqsClient mockSqsClient;
+
+  @AfterEach
+  void tearDown() {
+    QueueUrlResolver.clearCache();
+  }
+
+  @Test
+  void queueNameIsResolvedOnce() {
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(GetQueueUrlResponse.builder().queueUrl("https://sqs.test/1/orders").build());
+
+    assertThat(QueueUrlResolver.resolve(mockSqsClient, "orders"))
+        .isEqualTo("https://sqs.test/1/orders");
+    assertThat(QueueUrlResolver.resolve(mockSqsClient, "orders"))
+        .isEqualTo("https://sqs.test/1/orders");
+    verify(mockSqsClient, times(1)).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  void queueUrlIsReturnedUnchanged() {
+    assertThat(QueueUrlResolver.resolve(mockSqsClient, "https://sqs.test/1/orders"))
+        .isEqualTo("https://sqs.test/1/orders");
+    verify(mockSqsClient, never()).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+}
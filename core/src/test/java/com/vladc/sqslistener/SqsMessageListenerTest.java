@@ -1,56 +1,104 @@
 package com.vladc.sqslistener;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.internal.stubbing.answers.AnswersWithDelay;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.slf4j.MDC;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 class SqsMessageListenerTest {
 
+  private static final String TEST_QUEUE_URL = "https://sqs.test/000000000000/testQueue";
+
   private SqsMessageListener underTest;
 
   @Mock private SqsClient mockSqsClient;
   @Mock private MessageHandler mockHandler;
   @Captor private ArgumentCaptor<ReceiveMessageRequest> receiveRequestCaptor;
+  @Captor private ArgumentCaptor<ChangeMessageVisibilityBatchRequest> visibilityRequestCaptor;
+  @Captor private ArgumentCaptor<DeleteMessageBatchRequest> deleteRequestCaptor;
 
   @BeforeEach
   void setUp() {
     List<Message> testMessages =
         List.of(
-            Message.builder().messageId("testId").build(),
-            Message.builder().messageId("testId2").build());
+            Message.builder().messageId("testId").receiptHandle("testReceipt").build(),
+            Message.builder().messageId("testId2").receiptHandle("testReceipt2").build());
 
     doAnswer(
             new AnswersWithDelay(
                 10, i -> ReceiveMessageResponse.builder().messages(testMessages).build()))
         .when(mockSqsClient)
         .receiveMessage(any(ReceiveMessageRequest.class));
+    when(mockSqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenReturn(DeleteMessageBatchResponse.builder().build());
+    when(mockSqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+        .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(GetQueueUrlResponse.builder().queueUrl(TEST_QUEUE_URL).build());
   }
 
   @AfterEach
@@ -79,6 +127,165 @@ class SqsMessageListenerTest {
     assertThat(receiveMessageRequest.messageAttributeNames()).containsExactly("All");
   }
 
+  @Test
+  void testMessageAttributeProjection() {
+    underTest =
+        createListenerBuilder()
+            .messageAttributeNames(List.of("tenant"))
+            .keyExtractor(MessageKeyExtractor.attribute("entityId"))
+            .build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, timeout(1000).atLeast(2))
+        .receiveMessage(receiveRequestCaptor.capture());
+    List<ReceiveMessageRequest> requests = receiveRequestCaptor.getAllValues();
+    assertThat(requests.get(0).messageAttributeNames())
+        .containsExactly("tenant", "Content-Encoding", "messageType", "entityId");
+    assertThat(requests.get(1)).isSameAs(requests.get(0));
+  }
+
+  @Test
+  void testHandlerCostAccounting() {
+    Message typed =
+        Message.builder()
+            .messageId("typed")
+            .receiptHandle("receiptTyped")
+            .messageAttributes(
+                Map.of("messageType", MessageAttributeValue.builder().stringValue("Order").build()))
+            .build();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(ReceiveMessageResponse.builder().messages(typed).build())
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    underTest =
+        createListenerBuilder()
+            .messageAttributeNames(List.of())
+            .costAccountingPolicy(CostAccountingPolicy.builder().samplingRate(1.0).build())
+            .build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    ListenerStats stats = underTest.getStats();
+    assertThat(stats.getHandlerCost().getSamples()).isEqualTo(1);
+    assertThat(stats.getHandlerCostByType()).containsOnlyKeys("Order");
+
+    verify(mockSqsClient, atLeastOnce()).receiveMessage(receiveRequestCaptor.capture());
+    assertThat(receiveRequestCaptor.getValue().messageAttributeNames()).contains("messageType");
+  }
+
+  @Test
+  void testWarmUpBeforeFirstReceive() {
+    AtomicBoolean warmedUp = new AtomicBoolean();
+    underTest = createListenerBuilder().warmUp(true).warmUpHook(() -> warmedUp.set(true)).build();
+    underTest.subscribe();
+
+    assertThat(warmedUp).isTrue();
+    assertThat(((ThreadPoolExecutor) underTest.getTaskExecutor()).getPoolSize()).isEqualTo(11);
+    InOrder inOrder = inOrder(mockSqsClient);
+    inOrder
+        .verify(mockSqsClient, times(2))
+        .getQueueAttributes(
+            argThat(
+                (GetQueueAttributesRequest request) ->
+                    request.attributeNames().equals(List.of(QueueAttributeName.QUEUE_ARN))));
+    inOrder
+        .verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void testFlightRecorderEvents(@TempDir Path tempDir) throws Exception {
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.vladc.sqslistener.Receive");
+      recording.enable("com.vladc.sqslistener.Handle");
+      recording.enable("com.vladc.sqslistener.DeleteBatch");
+      recording.start();
+
+      underTest = createListener();
+      underTest.subscribe();
+      verify(mockSqsClient, timeout(1000).atLeastOnce())
+          .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+      underTest.destroy();
+
+      recording.stop();
+      Path file = tempDir.resolve("listener.jfr");
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    }
+
+    assertThat(events)
+        .extracting(event -> event.getEventType().getName())
+        .contains(
+            "com.vladc.sqslistener.Receive",
+            "com.vladc.sqslistener.Handle",
+            "com.vladc.sqslistener.DeleteBatch");
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().endsWith("Handle"))
+        .first()
+        .satisfies(
+            event -> {
+              assertThat(event.getString("messageId")).startsWith("testId");
+              assertThat(event.getString("outcome")).isEqualTo("ACK");
+              assertThat(event.getBoolean("failed")).isFalse();
+            });
+  }
+
+  @Test
+  void testVisibilityFlightRecorderEvents(@TempDir Path tempDir) throws Exception {
+    Message typed =
+        Message.builder()
+            .messageId("typed")
+            .receiptHandle("receiptTyped")
+            .messageAttributes(
+                Map.of("kind", MessageAttributeValue.builder().stringValue("Order").build()))
+            .build();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(ReceiveMessageResponse.builder().messages(typed).build())
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.vladc.sqslistener.Handle");
+      recording.enable("com.vladc.sqslistener.ChangeVisibilityBatch");
+      recording.start();
+
+      underTest =
+          createListenerBuilder()
+              .messageAttributeNames(List.of())
+              .messageTypeAttribute("kind")
+              .dispositionHandler(message -> Disposition.retryAfter(Duration.ofSeconds(30)))
+              .build();
+      underTest.subscribe();
+      verify(mockSqsClient, timeout(1000).atLeastOnce())
+          .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+      underTest.destroy();
+
+      recording.stop();
+      Path file = tempDir.resolve("listener.jfr");
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    }
+
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().endsWith("ChangeVisibilityBatch"))
+        .first()
+        .satisfies(
+            event -> {
+              assertThat(event.getInt("entries")).isEqualTo(1);
+              assertThat(event.getInt("failures")).isZero();
+            });
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().endsWith("Handle"))
+        .first()
+        .satisfies(event -> assertThat(event.getString("messageType")).isEqualTo("Order"));
+    verify(mockSqsClient, atLeastOnce()).receiveMessage(receiveRequestCaptor.capture());
+    assertThat(receiveRequestCaptor.getValue().messageAttributeNames()).contains("kind");
+  }
+
   @Test
   void testReceiveFailed() {
     underTest = createListener();
@@ -105,7 +312,815 @@ class SqsMessageListenerTest {
         .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
   }
 
+  @Test
+  void testRetryAfterDisposition() {
+    underTest =
+        createListenerBuilder()
+            .dispositionHandler(message -> Disposition.retryAfter(Duration.ofSeconds(30)))
+            .build();
+
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(500)).atLeastOnce())
+        .changeMessageVisibilityBatch(visibilityRequestCaptor.capture());
+    verify(mockSqsClient, never()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+
+    ChangeMessageVisibilityBatchRequest request = visibilityRequestCaptor.getValue();
+    assertThat(request.queueUrl()).isEqualTo(underTest.getQueue().getUrl());
+    assertThat(request.entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+        .containsOnly(30);
+  }
+
+  @Test
+  void testProcessMessageFailedWithBackoff() {
+    underTest =
+        createListenerBuilder()
+            .backoffPolicy(BackoffPolicy.exponential(Duration.ofSeconds(5), Duration.ofMinutes(5)))
+            .build();
+    doThrow(new RuntimeException("processingFailure")).when(mockHandler).handle(any(Message.class));
+
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(500)).atLeastOnce())
+        .receiveMessage(receiveRequestCaptor.capture());
+    verify(mockSqsClient, atLeastOnce())
+        .changeMessageVisibilityBatch(visibilityRequestCaptor.capture());
+    verify(mockSqsClient, never()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+
+    assertThat(receiveRequestCaptor.getValue().attributeNamesAsStrings())
+        .contains("ApproximateReceiveCount");
+    assertThat(visibilityRequestCaptor.getValue().entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+        .containsOnly(5);
+  }
+
+  @Test
+  void testManualAcknowledgement() {
+    underTest =
+        createListenerBuilder()
+            .autoAcknowledge(false)
+            .acknowledgingHandler(
+                (message, acknowledgement) -> {
+                  if (message.messageId().equals("testId")) {
+                    CompletableFuture.runAsync(acknowledgement::ack);
+                  }
+                })
+            .build();
+
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(500)).atLeastOnce())
+        .deleteMessageBatch(deleteRequestCaptor.capture());
+    verify(mockSqsClient, never())
+        .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+
+    assertThat(deleteRequestCaptor.getAllValues())
+        .allSatisfy(request -> assertThat(request.entries()).hasSizeBetween(1, 10))
+        .flatExtracting(DeleteMessageBatchRequest::entries)
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .containsOnly("testReceipt");
+  }
+
+  @Test
+  void testResizeWorkerPool() {
+    underTest = createListener();
+    assertThatThrownBy(() -> underTest.resizeWorkerPool(5))
+        .isInstanceOf(IllegalStateException.class);
+
+    underTest.subscribe();
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) underTest.getTaskExecutor();
+
+    underTest.resizeWorkerPool(20);
+    assertThat(executor.getCorePoolSize()).isEqualTo(20);
+    assertThat(executor.getMaximumPoolSize()).isEqualTo(20);
+
+    underTest.resizeWorkerPool(2);
+    assertThat(executor.getCorePoolSize()).isEqualTo(2);
+    assertThat(executor.getMaximumPoolSize()).isEqualTo(2);
+    verify(mockHandler, after(TimeUnit.MILLISECONDS.toMillis(200)).atLeastOnce()).handle(any());
+  }
+
+  @Test
+  void testPauseAndResume() throws InterruptedException {
+    underTest = createListener();
+    underTest.subscribe();
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(100)).atLeastOnce())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+
+    underTest.pause();
+    assertThat(underTest.isPaused()).isTrue();
+    // let the in-flight receive complete
+    TimeUnit.MILLISECONDS.sleep(100);
+    clearInvocations(mockSqsClient);
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(300)).never())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+
+    underTest.resume();
+    assertThat(underTest.isPaused()).isFalse();
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(300)).atLeastOnce())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void testReconfigure() {
+    underTest = createListener();
+    underTest.subscribe();
+
+    underTest.reconfigure(
+        ListenerSettings.builder()
+            .concurrency(3)
+            .maxBatchSize(5)
+            .visibilityTimeoutSeconds(30)
+            .longPolling(false)
+            .build());
+    clearInvocations(mockSqsClient);
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(300)).atLeastOnce())
+        .receiveMessage(receiveRequestCaptor.capture());
+    ReceiveMessageRequest request = receiveRequestCaptor.getValue();
+    assertThat(request.maxNumberOfMessages()).isEqualTo(5);
+    assertThat(request.visibilityTimeout()).isEqualTo(30);
+    assertThat(request.waitTimeSeconds()).isEqualTo(1);
+
+    ListenerSettings settings = underTest.getSettings();
+    assertThat(settings.getConcurrency()).isEqualTo(3);
+    assertThat(settings.getWorkerPoolSize()).isEqualTo(16);
+    assertThat(underTest.getConsumerCount()).isEqualTo(3);
+
+    underTest.reconfigure(ListenerSettings.builder().concurrency(1).build());
+    assertThat(underTest.getConsumerCount()).isEqualTo(1);
+
+    assertThatThrownBy(
+            () -> underTest.reconfigure(ListenerSettings.builder().maxBatchSize(11).build()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void testStats() {
+    underTest = createListener();
+    underTest.subscribe();
+
+    verify(mockHandler, after(TimeUnit.MILLISECONDS.toMillis(300)).atLeast(2)).handle(any());
+    ListenerStats stats = underTest.getStats();
+    assertThat(stats.getQueueUrl()).isEqualTo(TEST_QUEUE_URL);
+    assertThat(stats.isRunning()).isTrue();
+    assertThat(stats.getConsumers()).isEqualTo(1);
+    assertThat(stats.getProcessed()).isGreaterThanOrEqualTo(2);
+    assertThat(stats.getFailed()).isZero();
+    assertThat(stats.getThroughput()).isPositive();
+    assertThat(stats.getLastReceiveTime()).isNotNull();
+    assertThat(stats.getWorkerPoolSize()).isEqualTo(11);
+  }
+
+  @Test
+  void testStatsCountConsumersWaitingForHandlers() {
+    CountDownLatch handling = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            i -> {
+              handling.countDown();
+              awaitUninterruptibly(release);
+              return null;
+            })
+        .when(mockHandler)
+        .handle(any());
+    underTest = createListener();
+    underTest.subscribe();
+
+    awaitUninterruptibly(handling);
+    assertThat(underTest.getStats().getConsumersBusy()).isEqualTo(1);
+    release.countDown();
+  }
+
+  @Test
+  void testStatsReceiveFailed() {
+    underTest = createListener();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenThrow(SdkClientException.create("testFailure"));
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(100)).atLeastOnce())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+    ListenerStats stats = underTest.getStats();
+    assertThat(stats.getConsecutiveReceiveFailures()).isEqualTo(1);
+    assertThat(stats.getConsumersInBackoff()).isEqualTo(1);
+  }
+
+  @Test
+  void testPressureMonitorPausesReceive() {
+    JvmPressureMonitor pressureMonitor =
+        JvmPressureMonitor.builder().sampleInterval(Duration.ofMillis(50)).build();
+    pressureMonitor.update(1.0, 0.0, 0.0);
+    underTest = createListenerBuilder().pressureMonitor(pressureMonitor).build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(300)).never())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+
+    pressureMonitor.update(0.0, 0.0, 0.0);
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(300)).atLeastOnce())
+        .receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void testCompressedMessageIsDecoded() {
+    PayloadCodec codec = new PayloadCodec();
+    Message compressed =
+        Message.builder()
+            .messageId("compressed")
+            .receiptHandle("compressedReceipt")
+            .body(codec.encode("payload", ContentEncoding.DEFLATE))
+            .messageAttributes(
+                Map.of(
+                    PayloadCodec.CONTENT_ENCODING_ATTRIBUTE,
+                    MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue("deflate")
+                        .build()))
+            .build();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(ReceiveMessageResponse.builder().messages(compressed).build());
+    ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+    underTest = createListener();
+    underTest.subscribe();
+
+    verify(mockHandler, after(TimeUnit.MILLISECONDS.toMillis(200)).atLeastOnce())
+        .handle(messageCaptor.capture());
+    assertThat(messageCaptor.getValue().body()).isEqualTo("payload");
+  }
+
+  @Test
+  void testQueueNameIsResolved() {
+    when(mockSqsClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+        .thenReturn(
+            GetQueueAttributesResponse.builder()
+                .attributes(
+                    Map.of(
+                        QueueAttributeName.VISIBILITY_TIMEOUT, "45",
+                        QueueAttributeName.FIFO_QUEUE, "true"))
+                .build());
+    underTest = createListenerBuilder().visibilityTimeoutSeconds(null).build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(TimeUnit.MILLISECONDS.toMillis(100)).atLeastOnce())
+        .receiveMessage(receiveRequestCaptor.capture());
+    assertThat(receiveRequestCaptor.getValue().queueUrl()).isEqualTo(TEST_QUEUE_URL);
+    assertThat(receiveRequestCaptor.getValue().visibilityTimeout()).isEqualTo(45);
+    assertThat(underTest.getQueue().getFifo()).isTrue();
+    verify(mockSqsClient).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  void testQueueValidationFailed() {
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenThrow(QueueDoesNotExistException.builder().message("missing").build());
+    underTest = createListenerBuilder().url("missingQueue").build();
+
+    assertThatThrownBy(underTest::prepare)
+        .isInstanceOf(IllegalStateException.class)
+        .hasCauseInstanceOf(QueueDoesNotExistException.class);
+  }
+
+  @Test
+  void testHandlerTimeoutReleasesMessage() {
+    doAnswer(
+            i -> {
+              TimeUnit.SECONDS.sleep(10);
+              return null;
+            })
+        .when(mockHandler)
+        .handle(any());
+    underTest = createListenerBuilder().handlerTimeout(Duration.ofMillis(100)).build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .changeMessageVisibilityBatch(visibilityRequestCaptor.capture());
+    assertThat(visibilityRequestCaptor.getValue().entries())
+        .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+        .containsOnly(0);
+    verify(mockSqsClient, never()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+
+    ListenerStats stats = underTest.getStats();
+    assertThat(stats.getTimedOut()).isGreaterThanOrEqualTo(2);
+    assertThat(stats.getFailed()).isEqualTo(stats.getTimedOut());
+  }
+
+  @Test
+  void testHandlerTimeoutReleasesQueuedMessage() {
+    CountDownLatch hung = new CountDownLatch(1);
+    doAnswer(
+            i -> {
+              // ignores interrupts and keeps the only worker
+              while (true) {
+                try {
+                  hung.await();
+                  return null;
+                } catch (InterruptedException e) {
+                  // keep waiting
+                }
+              }
+            })
+        .when(mockHandler)
+        .handle(any());
+    underTest =
+        createListenerBuilder()
+            .workerPoolSize(1)
+            .handlerTimeout(Duration.ofMillis(100))
+            .build();
+    try {
+      underTest.subscribe();
+
+      verify(mockSqsClient, timeout(1000).atLeastOnce())
+          .changeMessageVisibilityBatch(visibilityRequestCaptor.capture());
+      assertThat(visibilityRequestCaptor.getAllValues())
+          .flatExtracting(ChangeMessageVisibilityBatchRequest::entries)
+          .extracting(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+          .contains("testReceipt2");
+      verify(mockHandler, times(1)).handle(any());
+    } finally {
+      hung.countDown();
+    }
+  }
+
+  @Test
+  void testAsyncHandlerAcknowledgesOnCompletion() {
+    List<CompletableFuture<Void>> pending = new CopyOnWriteArrayList<>();
+    underTest =
+        createListenerBuilder()
+            .asyncHandler(
+                message -> {
+                  CompletableFuture<Void> future = new CompletableFuture<>();
+                  pending.add(future);
+                  return future;
+                })
+            .workerPoolSize(1)
+            .build();
+    underTest.subscribe();
+
+    // a single worker starts both messages of the batch without waiting for completion
+    verify(mockSqsClient, after(300).never())
+        .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    assertThat(pending).hasSize(2);
+    assertThat(underTest.getStats().getInFlight()).isEqualTo(2);
+
+    pending.get(0).complete(null);
+    pending.get(1).completeExceptionally(new IllegalStateException("testFailure"));
+    verify(mockSqsClient, timeout(1000)).deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getValue().entries())
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .containsExactly("testReceipt");
+    assertThat(underTest.getStats().getFailed()).isEqualTo(1);
+  }
+
+  @Test
+  void testInFlightMessagesAreDeletedOnShutdown() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    underTest =
+        createListenerBuilder()
+            .handler(
+                message -> {
+                  started.countDown();
+                  awaitUninterruptibly(release);
+                })
+            .build();
+    underTest.subscribe();
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+    underTest.destroy();
+    release.countDown();
+    underTest.awaitTermination(1, TimeUnit.SECONDS);
+
+    verify(mockSqsClient, atLeastOnce()).deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues())
+        .flatExtracting(DeleteMessageBatchRequest::entries)
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .contains("testReceipt");
+  }
+
+  @Test
+  void testDestroyClosesAcknowledgementBatcher() {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    underTest =
+        createListenerBuilder()
+            .handler(
+                message -> {
+                  started.countDown();
+                  awaitUninterruptibly(release);
+                })
+            .build();
+    underTest.subscribe();
+    awaitUninterruptibly(started);
+
+    underTest.destroy();
+    assertThat(underTest.getAcknowledgementBatcher().isClosed()).isTrue();
+
+    // late acknowledgements are sent without awaitTermination
+    release.countDown();
+    verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues())
+        .flatExtracting(DeleteMessageBatchRequest::entries)
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .contains("testReceipt");
+  }
+
+  @Test
+  void testFailingErrorHandlerCompletesMessages() {
+    doThrow(new IllegalStateException("testFailure")).when(mockHandler).handle(any());
+    underTest =
+        createListenerBuilder()
+            .errorHandler(
+                (message, exception) -> {
+                  throw new IllegalStateException("errorHandlerFailure");
+                })
+            .build();
+    underTest.subscribe();
+
+    // the consumer is not blocked by the failed batch
+    verify(mockSqsClient, timeout(1000).atLeast(3))
+        .receiveMessage(any(ReceiveMessageRequest.class));
+    assertThat(underTest.getStats().getFailed()).isGreaterThanOrEqualTo(2);
+  }
+
+  @Test
+  void testErrorHandlerAcknowledgesAsyncFailure() {
+    underTest =
+        createListenerBuilder()
+            .asyncHandler(
+                message ->
+                    CompletableFuture.runAsync(
+                        () -> {
+                          throw new IllegalStateException("testFailure");
+                        }))
+            .errorHandler((message, exception) -> Acknowledgement.current().ack())
+            .build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues())
+        .flatExtracting(DeleteMessageBatchRequest::entries)
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .contains("testReceipt", "testReceipt2");
+  }
+
+  @Test
+  void testAsyncHandlerKeepsFifoOrder() {
+    List<String> started = new CopyOnWriteArrayList<>();
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    List<CompletableFuture<Void>> pending = new CopyOnWriteArrayList<>();
+    underTest =
+        createListenerBuilder()
+            .url(TEST_QUEUE_URL + ".fifo")
+            .asyncHandler(
+                message -> {
+                  started.add(message.messageId());
+                  CompletableFuture<Void> future = new CompletableFuture<>();
+                  pending.add(future);
+                  bothStarted.countDown();
+                  return future;
+                })
+            .workerPoolSize(2)
+            .build();
+    underTest.subscribe();
+
+    // the next message of the batch starts only once the previous one is settled
+    verify(mockSqsClient, after(300).never())
+        .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    assertThat(started).containsExactly("testId");
+
+    pending.get(0).complete(null);
+    awaitUninterruptibly(bothStarted);
+    assertThat(started).containsExactly("testId", "testId2");
+    pending.get(1).complete(null);
+  }
+
+  @Test
+  void testKeyAffinityRoutesMessagesOntoLanes() {
+    List<Message> messages =
+        List.of(keyedMessage("1", "a"), keyedMessage("2", "b"), keyedMessage("3", "a"));
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(ReceiveMessageResponse.builder().messages(messages).build())
+        .thenReturn(ReceiveMessageResponse.builder().messages(List.of()).build());
+    Map<String, String> threads = new ConcurrentHashMap<>();
+    underTest =
+        createListenerBuilder()
+            .handler(message -> threads.put(message.messageId(), Thread.currentThread().getName()))
+            .keyExtractor(MessageKeyExtractor.attribute("entityId"))
+            .lanes(4)
+            .build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(300).atLeastOnce())
+        .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    assertThat(threads).hasSize(3);
+    assertThat(threads.values()).allMatch(thread -> thread.startsWith("sqs-lane"));
+    assertThat(threads.get("1")).isEqualTo(threads.get("3"));
+  }
+
+  @Test
+  void testConflationHandlesNewestMessagePerKey() {
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(
+            ReceiveMessageResponse.builder()
+                .messages(
+                    sentMessage(keyedMessage("1", "a"), 100),
+                    sentMessage(keyedMessage("2", "a"), 300),
+                    sentMessage(keyedMessage("3", "b"), 200))
+                .build())
+        .thenReturn(
+            ReceiveMessageResponse.builder()
+                .messages(sentMessage(keyedMessage("4", "a"), 200))
+                .build())
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    underTest =
+        createListenerBuilder()
+            .conflationPolicy(
+                ConflationPolicy.builder()
+                    .keyExtractor(MessageKeyExtractor.attribute("entityId"))
+                    .window(Duration.ofMillis(200))
+                    .build())
+            .build();
+    underTest.subscribe();
+
+    ArgumentCaptor<Message> handled = ArgumentCaptor.forClass(Message.class);
+    verify(mockHandler, timeout(2000).times(2)).handle(handled.capture());
+    assertThat(handled.getAllValues())
+        .extracting(Message::messageId)
+        .containsExactlyInAnyOrder("2", "3");
+    assertThat(underTest.getStats().getConflated()).isEqualTo(2);
+
+    verify(mockSqsClient, atLeastOnce()).receiveMessage(receiveRequestCaptor.capture());
+    assertThat(receiveRequestCaptor.getValue().attributeNamesAsStrings())
+        .containsExactly("SentTimestamp", "ApproximateFirstReceiveTimestamp");
+  }
+
+  @Test
+  void testBulkHandlerAggregatesAcrossReceives() {
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(receivedMessages(0, 5), receivedMessages(5, 5), receivedMessages(10, 5))
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    List<List<Message>> batches = new CopyOnWriteArrayList<>();
+    underTest =
+        createListenerBuilder()
+            .bulkHandler(batches::add)
+            .aggregationPolicy(
+                AggregationPolicy.builder()
+                    .maxMessages(10)
+                    .maxWait(Duration.ofMillis(200))
+                    .build())
+            .build();
+    underTest.subscribe();
+
+    verify(mockHandler, after(500).never()).handle(any(Message.class));
+    assertThat(batches).extracting(List::size).containsExactly(10, 5);
+    verify(mockSqsClient, timeout(1000).times(2))
+        .deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues())
+        .flatExtracting(DeleteMessageBatchRequest::entries)
+        .hasSize(15);
+    assertThat(underTest.getStats().getProcessed()).isEqualTo(15);
+    assertThat(underTest.getStats().getInFlight()).isZero();
+  }
+
+  @Test
+  void testBulkHandlerWithManualAcknowledgement() {
+    List<List<Message>> batches = new CopyOnWriteArrayList<>();
+    underTest =
+        createListenerBuilder()
+            .autoAcknowledge(false)
+            .bulkHandler(batches::add)
+            .aggregationPolicy(
+                AggregationPolicy.builder()
+                    .maxMessages(2)
+                    .maxWait(Duration.ofMillis(100))
+                    .build())
+            .build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, after(500).never())
+        .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    assertThat(batches).isNotEmpty();
+  }
+
+  @Test
+  void testBulkHandlerFollowsReconfiguredVisibilityTimeout() {
+    CountDownLatch release = new CountDownLatch(1);
+    underTest =
+        createListenerBuilder()
+            .bulkHandler(messages -> release.await(5, TimeUnit.SECONDS))
+            .aggregationPolicy(
+                AggregationPolicy.builder()
+                    .maxMessages(2)
+                    .maxWait(Duration.ofMillis(100))
+                    .build())
+            .build();
+    try {
+      underTest.subscribe();
+      underTest.reconfigure(ListenerSettings.builder().visibilityTimeoutSeconds(2).build());
+
+      verify(mockSqsClient, timeout(3000).atLeastOnce())
+          .changeMessageVisibilityBatch(visibilityRequestCaptor.capture());
+      assertThat(visibilityRequestCaptor.getValue().entries())
+          .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+          .containsOnly(2);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void testExpiredMessagesAreDiverted() {
+    long now = System.currentTimeMillis();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(
+            ReceiveMessageResponse.builder()
+                .messages(
+                    sentMessage(keyedMessage("stale", "a"), now - 120_000),
+                    sentMessage(keyedMessage("fresh", "b"), now - 1_000))
+                .build())
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenReturn(SendMessageBatchResponse.builder().build());
+    underTest =
+        createListenerBuilder()
+            .maxAgePolicy(
+                MaxAgePolicy.builder()
+                    .maxAge(Duration.ofMinutes(1))
+                    .divertQueue("https://sqs.test/000000000000/staleQueue")
+                    .build())
+            .build();
+    underTest.subscribe();
+
+    ArgumentCaptor<Message> handled = ArgumentCaptor.forClass(Message.class);
+    verify(mockHandler, timeout(1000)).handle(handled.capture());
+    assertThat(handled.getValue().messageId()).isEqualTo("fresh");
+
+    ArgumentCaptor<SendMessageBatchRequest> sent =
+        ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+    verify(mockSqsClient, timeout(1000)).sendMessageBatch(sent.capture());
+    assertThat(sent.getValue().queueUrl()).endsWith("staleQueue");
+    assertThat(sent.getValue().entries())
+        .singleElement()
+        .satisfies(entry -> assertThat(entry.messageAttributes()).containsKey("entityId"));
+    verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .deleteMessageBatch(deleteRequestCaptor.capture());
+    assertThat(deleteRequestCaptor.getAllValues())
+        .flatExtracting(DeleteMessageBatchRequest::entries)
+        .extracting(DeleteMessageBatchRequestEntry::receiptHandle)
+        .contains("receiptstale");
+    verify(mockHandler, never()).handle(argThat(message -> "stale".equals(message.messageId())));
+
+    ListenerStats stats = underTest.getStats();
+    assertThat(stats.getExpired()).isEqualTo(1);
+    assertThat(stats.getMessageAge().getCount()).isEqualTo(2);
+    assertThat(stats.getMessageAge().getMax()).isGreaterThanOrEqualTo(Duration.ofMinutes(2));
+  }
+
+  @Test
+  void testExpiredMessagesReceivedDuringConflationAreShed() {
+    long now = System.currentTimeMillis();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(
+            ReceiveMessageResponse.builder()
+                .messages(sentMessage(keyedMessage("1", "a"), now - 1_000))
+                .build())
+        .thenReturn(
+            ReceiveMessageResponse.builder()
+                .messages(
+                    sentMessage(keyedMessage("stale", "b"), now - 120_000),
+                    sentMessage(keyedMessage("2", "c"), now - 1_000))
+                .build())
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    underTest =
+        createListenerBuilder()
+            .conflationPolicy(
+                ConflationPolicy.builder()
+                    .keyExtractor(MessageKeyExtractor.attribute("entityId"))
+                    .window(Duration.ofMillis(200))
+                    .build())
+            .maxAgePolicy(MaxAgePolicy.builder().maxAge(Duration.ofMinutes(1)).build())
+            .build();
+    underTest.subscribe();
+
+    ArgumentCaptor<Message> handled = ArgumentCaptor.forClass(Message.class);
+    verify(mockHandler, timeout(2000).times(2)).handle(handled.capture());
+    assertThat(handled.getAllValues())
+        .extracting(Message::messageId)
+        .containsExactlyInAnyOrder("1", "2");
+    verify(mockHandler, never()).handle(argThat(message -> "stale".equals(message.messageId())));
+
+    ListenerStats stats = underTest.getStats();
+    assertThat(stats.getExpired()).isEqualTo(1);
+    assertThat(stats.getMessageAge().getCount()).isEqualTo(3);
+  }
+
+  @Test
+  void testTracerContinuesProducerTrace() {
+    String producerTrace = "00-5759e988bd862e3fe1be46a994272793-53995c3f42cd8ad8-01";
+    Message traced =
+        Message.builder()
+            .messageId("traced")
+            .receiptHandle("receiptTraced")
+            .messageAttributes(
+                Map.of(
+                    TraceContext.TRACEPARENT_ATTRIBUTE,
+                    MessageAttributeValue.builder().stringValue(producerTrace).build()))
+            .build();
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(ReceiveMessageResponse.builder().messages(traced).build())
+        .thenAnswer(
+            new AnswersWithDelay(
+                10, i -> ReceiveMessageResponse.builder().messages(List.of()).build()));
+    TraceContext receiveContext =
+        new TraceContext("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", true);
+    List<TraceContext> links = new CopyOnWriteArrayList<>();
+    List<TraceContext> parents = new CopyOnWriteArrayList<>();
+    List<String> handlerTraceIds = new CopyOnWriteArrayList<>();
+    MessageTracer tracer =
+        new MessageTracer() {
+          @Override
+          public TraceSpan startReceive(String queueUrl) {
+            return new TraceSpan() {
+              @Override
+              public TraceContext getContext() {
+                return receiveContext;
+              }
+
+              @Override
+              public void link(TraceContext context) {
+                links.add(context);
+              }
+            };
+          }
+
+          @Override
+          public TraceSpan startHandle(
+              String queueUrl, Message message, TraceContext parent, TraceContext receive) {
+            assertThat(receive).isEqualTo(receiveContext);
+            parents.add(parent);
+            return TraceSpan.NOOP;
+          }
+        };
+    underTest =
+        createListenerBuilder()
+            .handler(message -> handlerTraceIds.add(MDC.get("traceId")))
+            .tracer(tracer)
+            .build();
+    underTest.subscribe();
+
+    verify(mockSqsClient, timeout(1000).atLeastOnce())
+        .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    TraceContext producer = TraceContext.fromTraceparent(producerTrace);
+    assertThat(links).containsExactly(producer);
+    assertThat(parents).containsExactly(producer);
+    assertThat(handlerTraceIds).containsExactly(producer.getTraceId());
+
+    verify(mockSqsClient, atLeastOnce()).receiveMessage(receiveRequestCaptor.capture());
+    assertThat(receiveRequestCaptor.getValue().attributeNamesAsStrings())
+        .contains("AWSTraceHeader");
+  }
+
+  private static ReceiveMessageResponse receivedMessages(int from, int count) {
+    List<Message> messages = new ArrayList<>();
+    for (int i = from; i < from + count; i++) {
+      messages.add(Message.builder().messageId("id" + i).receiptHandle("receipt" + i).build());
+    }
+    return ReceiveMessageResponse.builder().messages(messages).build();
+  }
+
+  private static Message sentMessage(Message message, long sentTimestamp) {
+    return message.toBuilder()
+        .attributesWithStrings(Map.of("SentTimestamp", String.valueOf(sentTimestamp)))
+        .build();
+  }
+
+  private static Message keyedMessage(String id, String key) {
+    return Message.builder()
+        .messageId(id)
+        .receiptHandle("receipt" + id)
+        .messageAttributes(
+            Map.of("entityId", MessageAttributeValue.builder().stringValue(key).build()))
+        .build();
+  }
+
   private SqsMessageListener createListener() {
+    return createListenerBuilder().build();
+  }
+
+  private SqsMessageListenerBuilder createListenerBuilder() {
     return SqsMessageListener.builder()
         .client(mockSqsClient)
         .url("testQueue")
@@ -115,7 +1130,14 @@ class SqsMessageListenerTest {
         .errorHandler(null)
         .longPolling(true)
         .autoAcknowledge(true)
-        .concurrency(1)
-        .build();
+        .concurrency(1);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 }
@@ -0,0 +1,215 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SqsMessagePublisherTest {
+
+  private SqsMessagePublisher underTest;
+
+  @Mock private SqsClient mockSqsClient;
+  @Captor private ArgumentCaptor<SendMessageBatchRequest> requestCaptor;
+
+  @AfterEach
+  void tearDown() {
+    underTest.close();
+  }
+
+  @Test
+  void fullBatchIsSentImmediately() throws Exception {
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenAnswer(i -> succeedAll(i.getArgument(0)));
+    underTest = createPublisher(Duration.ofHours(1));
+
+    List<CompletableFuture<SendMessageBatchResultEntry>> futures =
+        IntStream.range(0, 15)
+            .mapToObj(i -> underTest.publish("testQueue", "body" + i))
+            .collect(Collectors.toList());
+
+    CompletableFuture.allOf(futures.subList(0, 10).toArray(CompletableFuture[]::new))
+        .get(1, TimeUnit.SECONDS);
+    verify(mockSqsClient).sendMessageBatch(requestCaptor.capture());
+    assertThat(requestCaptor.getValue().entries()).hasSize(10);
+    assertThat(futures.get(14)).isNotDone();
+  }
+
+  @Test
+  void partialBatchIsSentAfterLingerTime() throws Exception {
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenAnswer(i -> succeedAll(i.getArgument(0)));
+    underTest = createPublisher(Duration.ofMillis(50));
+
+    underTest.publish("testQueue", "body").get(1, TimeUnit.SECONDS);
+    underTest.publish("otherQueue", "body").get(1, TimeUnit.SECONDS);
+
+    verify(mockSqsClient, times(2)).sendMessageBatch(requestCaptor.capture());
+    assertThat(requestCaptor.getAllValues())
+        .extracting(SendMessageBatchRequest::queueUrl)
+        .containsExactlyInAnyOrder("testQueue", "otherQueue");
+  }
+
+  @Test
+  void batchIsSplitAtPayloadLimit() throws Exception {
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenAnswer(i -> succeedAll(i.getArgument(0)));
+    underTest = createPublisher(Duration.ofMillis(50));
+    String body = "x".repeat(100_000);
+
+    CompletableFuture.allOf(
+            underTest.publish("testQueue", body),
+            underTest.publish("testQueue", body),
+            underTest.publish("testQueue", body))
+        .get(1, TimeUnit.SECONDS);
+
+    verify(mockSqsClient, times(2)).sendMessageBatch(requestCaptor.capture());
+    assertThat(requestCaptor.getAllValues().get(0).entries()).hasSize(2);
+    assertThatThrownBy(() -> underTest.publish("testQueue", "x".repeat(300_000)).get())
+        .hasCauseInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void failedEntriesAreRetried() throws Exception {
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenReturn(
+            SendMessageBatchResponse.builder()
+                .successful(SendMessageBatchResultEntry.builder().id("0").build())
+                .failed(
+                    BatchResultErrorEntry.builder()
+                        .id("1")
+                        .code("ServiceUnavailable")
+                        .senderFault(false)
+                        .build(),
+                    BatchResultErrorEntry.builder()
+                        .id("2")
+                        .code("InvalidMessageContents")
+                        .senderFault(true)
+                        .build())
+                .build())
+        .thenAnswer(i -> succeedAll(i.getArgument(0)));
+    underTest = createPublisher(Duration.ofMillis(10));
+
+    CompletableFuture<SendMessageBatchResultEntry> first = underTest.publish("testQueue", "1");
+    CompletableFuture<SendMessageBatchResultEntry> second = underTest.publish("testQueue", "2");
+    CompletableFuture<SendMessageBatchResultEntry> third = underTest.publish("testQueue", "3");
+
+    first.get(1, TimeUnit.SECONDS);
+    second.get(1, TimeUnit.SECONDS);
+    assertThatThrownBy(() -> third.get(1, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(SqsException.class);
+    verify(mockSqsClient, times(2)).sendMessageBatch(requestCaptor.capture());
+    assertThat(requestCaptor.getAllValues().get(1).entries())
+        .singleElement()
+        .satisfies(entry -> assertThat(entry.messageBody()).isEqualTo("2"));
+  }
+
+  @Test
+  void publishIsRejectedWhenBufferIsFull() throws Exception {
+    CountDownLatch sendLatch = new CountDownLatch(1);
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenAnswer(
+            i -> {
+              sendLatch.await();
+              return succeedAll(i.getArgument(0));
+            });
+    underTest =
+        SqsMessagePublisher.builder()
+            .client(mockSqsClient)
+            .lingerTime(Duration.ofMillis(1))
+            .maxPendingMessages(1)
+            .maxBlockTime(Duration.ofMillis(50))
+            .build();
+
+    CompletableFuture<SendMessageBatchResultEntry> first = underTest.publish("testQueue", "1");
+    assertThatThrownBy(() -> underTest.publish("testQueue", "2").get())
+        .hasCauseInstanceOf(RejectedExecutionException.class);
+
+    sendLatch.countDown();
+    first.get(1, TimeUnit.SECONDS);
+    assertThat(underTest.publish("testQueue", "3").get(1, TimeUnit.SECONDS)).isNotNull();
+  }
+
+  @Test
+  void currentTraceContextIsInjected() throws Exception {
+    when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+        .thenAnswer(i -> succeedAll(i.getArgument(0)));
+    TraceContext context =
+        new TraceContext("5759e988bd862e3fe1be46a994272793", "53995c3f42cd8ad8", true);
+    MessageTracer tracer =
+        new MessageTracer() {
+          @Override
+          public TraceContext currentContext() {
+            return context;
+          }
+        };
+    underTest =
+        SqsMessagePublisher.builder()
+            .client(mockSqsClient)
+            .lingerTime(Duration.ofMillis(10))
+            .tracer(tracer)
+            .build();
+
+    underTest.publish("testQueue", "body").get(1, TimeUnit.SECONDS);
+
+    verify(mockSqsClient).sendMessageBatch(requestCaptor.capture());
+    SendMessageBatchRequestEntry entry = requestCaptor.getValue().entries().get(0);
+    assertThat(entry.messageAttributes().get(TraceContext.TRACEPARENT_ATTRIBUTE).stringValue())
+        .isEqualTo(context.toTraceparent());
+    assertThat(entry.messageSystemAttributesAsStrings().get("AWSTraceHeader").stringValue())
+        .isEqualTo(context.toAwsTraceHeader());
+  }
+
+  private SqsMessagePublisher createPublisher(Duration lingerTime) {
+    return SqsMessagePublisher.builder()
+        .client(mockSqsClient)
+        .lingerTime(lingerTime)
+        .retryBackoff(attempt -> Duration.ofMillis(10))
+        .build();
+  }
+
+  private static SendMessageBatchResponse succeedAll(SendMessageBatchRequest request) {
+    return SendMessageBatchResponse.builder()
+        .successful(
+            request.entries().stream()
+                .map(
+                    entry ->
+                        SendMessageBatchResultEntry.builder()
+                            .id(entry.id())
+                            .messageId("id-" + entry.messageBody().hashCode())
+                            .build())
+                .collect(Collectors.toList()))
+        .build();
+  }
+}
@@ -0,0 +1,200 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SqsMessageSourceTest {
+
+  private static final String TEST_QUEUE_URL = "https://sqs.test/000000000000/testQueue";
+
+  private SqsMessageSource underTest;
+
+  @Mock private SqsClient mockSqsClient;
+  @Captor private ArgumentCaptor<ReceiveMessageRequest> receiveRequestCaptor;
+
+  @BeforeEach
+  void setUp() {
+    when(mockSqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenAnswer(
+            i -> {
+              ReceiveMessageRequest request = i.getArgument(0);
+              List<Message> messages =
+                  IntStream.range(0, request.maxNumberOfMessages())
+                      .mapToObj(
+                          n -> Message.builder().messageId("id" + n).receiptHandle("r" + n).build())
+                      .collect(Collectors.toList());
+              return ReceiveMessageResponse.builder().messages(messages).build();
+            });
+    when(mockSqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+        .thenReturn(DeleteMessageBatchResponse.builder().build());
+
+    underTest =
+        SqsMessageSource.builder()
+            .client(mockSqsClient)
+            .url(TEST_QUEUE_URL)
+            .maxBatchSize(10)
+            .visibilityTimeoutSeconds(30)
+            .longPolling(false)
+            .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    underTest.close();
+  }
+
+  @Test
+  void testReceivesOnlyRequestedMessages() throws Exception {
+    TestSubscriber subscriber = new TestSubscriber();
+    underTest.subscribe(subscriber);
+
+    verify(mockSqsClient, after(200).never()).receiveMessage(any(ReceiveMessageRequest.class));
+
+    subscriber.subscription.request(3);
+    assertThat(subscriber.received.await(1, TimeUnit.SECONDS)).isTrue();
+    verify(mockSqsClient, after(200)).receiveMessage(receiveRequestCaptor.capture());
+
+    ReceiveMessageRequest request = receiveRequestCaptor.getValue();
+    assertThat(request.queueUrl()).isEqualTo(TEST_QUEUE_URL);
+    assertThat(request.maxNumberOfMessages()).isEqualTo(3);
+    assertThat(request.visibilityTimeout()).isEqualTo(30);
+    assertThat(request.waitTimeSeconds()).isEqualTo(1);
+    assertThat(subscriber.messages).hasSize(3);
+  }
+
+  @Test
+  void testAcknowledgeAndComplete() throws Exception {
+    TestSubscriber subscriber = new TestSubscriber();
+    underTest.subscribe(subscriber);
+    subscriber.subscription.request(3);
+    assertThat(subscriber.received.await(1, TimeUnit.SECONDS)).isTrue();
+
+    subscriber.messages.forEach(AcknowledgeableMessage::ack);
+    verify(mockSqsClient, timeout(1000)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+
+    underTest.close();
+    assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(subscriber.error).isNull();
+  }
+
+  @Test
+  void testInvalidDemandFailsSubscription() throws Exception {
+    TestSubscriber subscriber = new TestSubscriber();
+    underTest.subscribe(subscriber);
+    subscriber.subscription.request(0);
+
+    assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    verify(mockSqsClient, never()).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void testQueueNameIsResolvedBeforeSubscription() throws Exception {
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenReturn(GetQueueUrlResponse.builder().queueUrl(TEST_QUEUE_URL).build());
+    underTest =
+        SqsMessageSource.builder()
+            .client(mockSqsClient)
+            .url("testQueue")
+            .maxBatchSize(10)
+            .visibilityTimeoutSeconds(30)
+            .longPolling(false)
+            .build();
+    TestSubscriber subscriber =
+        new TestSubscriber() {
+          @Override
+          public void onSubscribe(Flow.Subscription subscription) {
+            super.onSubscribe(subscription);
+            subscription.request(3);
+          }
+        };
+    underTest.subscribe(subscriber);
+
+    assertThat(subscriber.received.await(1, TimeUnit.SECONDS)).isTrue();
+    verify(mockSqsClient, atLeastOnce()).receiveMessage(receiveRequestCaptor.capture());
+    assertThat(receiveRequestCaptor.getAllValues())
+        .extracting(ReceiveMessageRequest::queueUrl)
+        .containsOnly(TEST_QUEUE_URL);
+  }
+
+  @Test
+  void testFailedValidationSignalsError() throws Exception {
+    when(mockSqsClient.getQueueUrl(any(GetQueueUrlRequest.class)))
+        .thenThrow(QueueDoesNotExistException.builder().message("testFailure").build());
+    underTest = SqsMessageSource.builder().client(mockSqsClient).url("missingQueue").build();
+    TestSubscriber subscriber = new TestSubscriber();
+    underTest.subscribe(subscriber);
+
+    assertThat(subscriber.subscription).isNotNull();
+    assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+    subscriber.subscription.request(1);
+    verify(mockSqsClient, after(100).never()).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  private static class TestSubscriber implements Flow.Subscriber<AcknowledgeableMessage> {
+
+    private final List<AcknowledgeableMessage> messages = new CopyOnWriteArrayList<>();
+    private final CountDownLatch received = new CountDownLatch(3);
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(AcknowledgeableMessage item) {
+      messages.add(item);
+      received.countDown();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      completed.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed.countDown();
+    }
+  }
+}
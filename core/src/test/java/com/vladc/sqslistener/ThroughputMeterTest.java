@@ -0,0 +1,36 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ThroughputMeterTest {
+
+  private final AtomicLong clock = new AtomicLong(1_000_000L);
+  private final ThroughputMeter underTest = new ThroughputMeter(clock::get);
+
+  @Test
+  void rateIsAveragedOverLastMinute() {
+    for (int i = 0; i < 120; i++) {
+      underTest.record();
+    }
+    clock.addAndGet(30_000);
+    for (int i = 0; i < 60; i++) {
+      underTest.record();
+    }
+
+    assertThat(underTest.rate()).isEqualTo(3.0);
+  }
+
+  @Test
+  void oldBucketsAreIgnored() {
+    underTest.record();
+    clock.addAndGet(60_000);
+
+    assertThat(underTest.rate()).isZero();
+
+    underTest.record();
+    assertThat(underTest.rate()).isEqualTo(1.0 / 60);
+  }
+}
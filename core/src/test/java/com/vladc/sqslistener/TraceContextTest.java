@@ -0,0 +1,63 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+class TraceContextTest {
+
+  private static final String TRACEPARENT =
+      "00-5759e988bd862e3fe1be46a994272793-53995c3f42cd8ad8-01";
+  private static final String AWS_TRACE_HEADER =
+      "Root=1-5759e988-bd862e3fe1be46a994272793;Parent=53995c3f42cd8ad8;Sampled=1";
+
+  @Test
+  void traceparentRoundTrip() {
+    TraceContext context = TraceContext.fromTraceparent(TRACEPARENT);
+
+    assertThat(context.getTraceId()).isEqualTo("5759e988bd862e3fe1be46a994272793");
+    assertThat(context.getSpanId()).isEqualTo("53995c3f42cd8ad8");
+    assertThat(context.isSampled()).isTrue();
+    assertThat(context.toTraceparent()).isEqualTo(TRACEPARENT);
+  }
+
+  @Test
+  void awsTraceHeaderRoundTrip() {
+    TraceContext context = TraceContext.fromAwsTraceHeader(AWS_TRACE_HEADER);
+
+    assertThat(context).isEqualTo(TraceContext.fromTraceparent(TRACEPARENT));
+    assertThat(context.toAwsTraceHeader()).isEqualTo(AWS_TRACE_HEADER);
+  }
+
+  @Test
+  void malformedContextIsIgnored() {
+    assertThat(TraceContext.fromTraceparent("00-abc-def-01")).isNull();
+    assertThat(
+            TraceContext.fromTraceparent(
+                "00-00000000000000000000000000000000-53995c3f42cd8ad8-01"))
+        .isNull();
+    assertThat(TraceContext.fromAwsTraceHeader("Root=1-5759e988-bd862e3fe1be46a994272793"))
+        .isNull();
+  }
+
+  @Test
+  void traceparentIsPreferredOverAwsTraceHeader() {
+    Message message =
+        Message.builder()
+            .messageAttributes(
+                Map.of(
+                    TraceContext.TRACEPARENT_ATTRIBUTE,
+                    MessageAttributeValue.builder()
+                        .stringValue("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-00")
+                        .build()))
+            .attributesWithStrings(Map.of("AWSTraceHeader", AWS_TRACE_HEADER))
+            .build();
+
+    assertThat(TraceContext.extract(message).getTraceId())
+        .isEqualTo("0af7651916cd43dd8448eb211c80319c");
+    assertThat(TraceContext.extract(Message.builder().build())).isNull();
+  }
+}
@@ -1,10 +1,15 @@
 package com.vladc.sqslistener;
 
 import com.vladc.sqslistener.annotation.EnableSqs;
+import com.vladc.sqslistener.index.SqsListenerIndex;
 import com.vladc.sqslistener.internal.DefaultSqsListenerRegistry;
 import com.vladc.sqslistener.internal.DefaultSqsMessageListenerFactory;
 import com.vladc.sqslistener.internal.MessageListenerAnnotatedMethodBeanPostProcessor;
+import com.vladc.sqslistener.internal.SqsClientPoolSizing;
 import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -12,7 +17,9 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsClientBuilder;
 
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnClass(EnableSqs.class)
@@ -28,27 +35,43 @@ public class AnnotationSqsMessageListenerAutoConfiguration {
   @ConditionalOnMissingBean
   public MessageListenerAnnotatedMethodBeanPostProcessor
       messageListenerAnnotatedMethodBeanPostProcessor(
-          SqsMessageListenerFactory factory, SqsListenerRegistry registry) {
-    return new MessageListenerAnnotatedMethodBeanPostProcessor(factory, registry);
+          SqsMessageListenerFactory factory,
+          SqsListenerRegistry registry,
+          MessageListenerProperties properties) {
+    return new MessageListenerAnnotatedMethodBeanPostProcessor(
+        factory, registry, properties.isUseListenerIndex());
   }
 
   @Bean
   @ConditionalOnMissingBean
   public SqsMessageListenerFactory sqsMessageListenerFactory(
       SqsClient sqsClient,
-      ThreadPoolTaskExecutor messageProcessorExecutor,
-      List<HandlerInterceptor> filters) {
-    return new DefaultSqsMessageListenerFactory(sqsClient, messageProcessorExecutor, filters);
+      @Qualifier("messageProcessorExecutor")
+          ObjectProvider<ThreadPoolTaskExecutor> messageProcessorExecutor,
+      List<HandlerInterceptor> filters,
+      MessageListenerProperties properties,
+      ObjectProvider<JvmPressureMonitor> pressureMonitor,
+      ObjectProvider<MessageTracer> tracer) {
+    return DefaultSqsMessageListenerFactory.builder()
+        .sqsClient(sqsClient)
+        .messageProcessorTaskExecutor(messageProcessorExecutor.getIfAvailable())
+        .filters(filters)
+        .properties(properties)
+        .pressureMonitor(pressureMonitor.getIfAvailable())
+        .tracer(tracer.getIfAvailable())
+        .build();
   }
 
   @Bean
   @ConditionalOnMissingBean
-  public SqsListenerRegistry sqsListenerRegistry() {
-    return new DefaultSqsListenerRegistry();
+  public SqsListenerRegistry sqsListenerRegistry(MessageListenerProperties properties) {
+    return new DefaultSqsListenerRegistry(
+        properties.isValidateOnStartup() ? properties.getStartupValidationTimeout() : null);
   }
 
   @Bean(name = "messageProcessorExecutor")
   @ConditionalOnMissingBean(name = "messageProcessorExecutor")
+  @ConditionalOnProperty(prefix = "messaging.sqs", name = "shared-pool", havingValue = "true")
   public ThreadPoolTaskExecutor messageProcessorExecutor(MessageListenerProperties properties) {
     ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
     executor.setCorePoolSize(properties.getPoolSize());
@@ -61,9 +84,75 @@ public class AnnotationSqsMessageListenerAutoConfiguration {
     return executor;
   }
 
+  @Bean(destroyMethod = "close")
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "messaging.sqs.pressure", name = "enabled", havingValue = "true")
+  public JvmPressureMonitor jvmPressureMonitor(MessageListenerProperties properties) {
+    MessageListenerProperties.Pressure pressure = properties.getPressure();
+    JvmPressureMonitor monitor =
+        JvmPressureMonitor.builder()
+            .heapThrottleThreshold(pressure.getHeapThrottleThreshold())
+            .heapPauseThreshold(pressure.getHeapPauseThreshold())
+            .gcThrottleThreshold(pressure.getGcThrottleThreshold())
+            .gcPauseThreshold(pressure.getGcPauseThreshold())
+            .cpuThrottleThreshold(pressure.getCpuThrottleThreshold())
+            .cpuPauseThreshold(pressure.getCpuPauseThreshold())
+            .hysteresis(pressure.getHysteresis())
+            .sampleInterval(pressure.getSampleInterval())
+            .throttleDelay(pressure.getThrottleDelay())
+            .build();
+    monitor.start();
+    return monitor;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(SqsClient.class)
+  public HttpPoolMetrics sqsClientPoolMetrics() {
+    return new HttpPoolMetrics();
+  }
+
+  /** Sized from the declared listeners, see {@linkplain MessageListenerProperties.Client}. */
   @Bean
   @ConditionalOnMissingBean
-  public SqsClient sqsClient() {
-    return SqsClient.create();
+  public SqsClient sqsClient(
+      MessageListenerProperties properties,
+      ConfigurableListableBeanFactory beanFactory,
+      ObjectProvider<HttpPoolMetrics> poolMetrics) {
+    MessageListenerProperties.Client client = properties.getClient();
+    int maxConnections =
+        client.getMaxConnections() != null
+            ? client.getMaxConnections()
+            : SqsClientPoolSizing.maxConnections(
+                beanFactory,
+                client.getConnectionHeadroom(),
+                properties.isUseListenerIndex()
+                    ? SqsListenerIndex.load(beanFactory.getBeanClassLoader())
+                    : null);
+    ApacheHttpClient.Builder httpClient = ApacheHttpClient.builder().maxConnections(maxConnections);
+    if (client.getConnectionTimeout() != null) {
+      httpClient.connectionTimeout(client.getConnectionTimeout());
+    }
+    if (client.getSocketTimeout() != null) {
+      httpClient.socketTimeout(client.getSocketTimeout());
+    }
+    if (client.getConnectionAcquisitionTimeout() != null) {
+      httpClient.connectionAcquisitionTimeout(client.getConnectionAcquisitionTimeout());
+    }
+    if (client.getConnectionMaxIdleTime() != null) {
+      httpClient.connectionMaxIdleTime(client.getConnectionMaxIdleTime());
+    }
+    if (client.getConnectionTimeToLive() != null) {
+      httpClient.connectionTimeToLive(client.getConnectionTimeToLive());
+    }
+    if (client.getTcpKeepAlive() != null) {
+      httpClient.tcpKeepAlive(client.getTcpKeepAlive());
+    }
+
+    SqsClientBuilder builder = SqsClient.builder().httpClientBuilder(httpClient);
+    HttpPoolMetrics metrics = poolMetrics.getIfAvailable();
+    if (metrics != null) {
+      builder.overrideConfiguration(override -> override.addMetricPublisher(metrics));
+    }
+    return builder.build();
   }
 }
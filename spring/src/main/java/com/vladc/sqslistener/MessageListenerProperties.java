@@ -1,5 +1,8 @@
 package com.vladc.sqslistener;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -8,7 +11,140 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class MessageListenerProperties {
 
   private boolean enabled = true;
+
+  /**
+   * Look up listener beans in {@code META-INF/sqs-listeners.index} generated at compile time, if
+   * present. Disable when some listener classes are compiled without the index processor.
+   */
+  private boolean useListenerIndex = true;
+
+  /**
+   * Resolve queue names and validate queues of all listeners concurrently before they start.
+   * Otherwise each listener is validated when it subscribes.
+   */
+  private boolean validateOnStartup = true;
+
+  /** Time allowed for validation of all queues. */
+  private Duration startupValidationTimeout = Duration.ofSeconds(30);
+
+  /**
+   * Process messages of all listeners using single shared {@code messageProcessorExecutor}. By
+   * default each listener has its own worker pool.
+   */
+  private boolean sharedPool = false;
+
+  /** Size of the shared pool. */
   private int poolSize = 10;
+
   private int poolKeepAlive = 120;
   private String poolThreadPrefix = "sqsListener-";
+
+  /**
+   * Warm up listeners when they start: prestart worker threads, open SQS connections and run
+   * handler {@linkplain WarmUpHook}s before the first receive.
+   */
+  private boolean warmUp = false;
+
+  /** Per-listener settings keyed by {@code @SqsListener} id. */
+  private Map<String, Listener> listeners = new HashMap<>();
+
+  private Health health = new Health();
+
+  private Pressure pressure = new Pressure();
+
+  private Client client = new Client();
+
+  private CostAccounting costAccounting = new CostAccounting();
+
+  @Data
+  public static class Listener {
+
+    /** Worker pool size, defaults to {@code concurrency * maxBatchSize + 1}. */
+    private Integer poolSize;
+
+    /** Maximum handler time per message, defaults to 80% of the visibility timeout. */
+    private Duration handlerTimeout;
+
+    /** Overrides {@code messaging.sqs.warmUp} for this listener. */
+    private Boolean warmUp;
+
+    /** Overrides {@linkplain CostAccounting#samplingRate}, 0 disables cost accounting. */
+    private Double costSamplingRate;
+  }
+
+  @Data
+  public static class Health {
+
+    /** A running listener that has not completed a receive for this long is reported stalled. */
+    private Duration stallTimeout = Duration.ofMinutes(2);
+
+    /** Number of failed receives in a row after which a listener is reported in backoff. */
+    private int maxReceiveFailures = 3;
+  }
+
+  /**
+   * JVM-pressure load shedding shared by all listeners, see {@linkplain JvmPressureMonitor}. Unset
+   * thresholds use the monitor defaults.
+   */
+  @Data
+  public static class Pressure {
+
+    private boolean enabled = false;
+    private Double heapThrottleThreshold;
+    private Double heapPauseThreshold;
+    private Double gcThrottleThreshold;
+    private Double gcPauseThreshold;
+    private Double cpuThrottleThreshold;
+    private Double cpuPauseThreshold;
+    private Double hysteresis;
+    private Duration sampleInterval;
+    private Duration throttleDelay;
+  }
+
+  /**
+   * Sampled CPU time and allocation accounting of handler calls, see {@linkplain
+   * CostAccountingPolicy}. Costs are reported per message type by the {@code sqslisteners}
+   * endpoint.
+   */
+  @Data
+  public static class CostAccounting {
+
+    private boolean enabled = false;
+
+    /** Fraction of handler calls measured. */
+    private double samplingRate = 0.01;
+
+    /** Maximum number of distinct message types tracked per listener. */
+    private int maxMessageTypes = 100;
+  }
+
+  /**
+   * HTTP client of the default {@code SqsClient}, created only if the application defines no
+   * {@code SqsClient} bean. Unset timeouts use the SDK defaults.
+   */
+  @Data
+  public static class Client {
+
+    /**
+     * Connection pool size. Defaults to the total concurrency of all listeners plus {@linkplain
+     * SqsMessageListener#MAX_ACKNOWLEDGEMENT_CONNECTIONS} per listener plus {@linkplain
+     * #connectionHeadroom}, at least 50.
+     */
+    private Integer maxConnections;
+
+    /** Connections reserved for other requests, e.g. publishing, when sizing the pool. */
+    private int connectionHeadroom = 10;
+
+    private Duration connectionTimeout;
+
+    /** Must stay above the 20 seconds of a long poll. */
+    private Duration socketTimeout;
+
+    /** Maximum wait for a pooled connection. */
+    private Duration connectionAcquisitionTimeout;
+
+    private Duration connectionMaxIdleTime;
+    private Duration connectionTimeToLive;
+    private Boolean tcpKeepAlive;
+  }
 }
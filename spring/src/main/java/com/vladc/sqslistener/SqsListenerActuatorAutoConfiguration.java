@@ -0,0 +1,49 @@
+package com.vladc.sqslistener;
+
+import com.vladc.sqslistener.actuate.SqsClientEndpoint;
+import com.vladc.sqslistener.actuate.SqsListenersEndpoint;
+import com.vladc.sqslistener.actuate.SqsListenersHealthIndicator;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass({Endpoint.class, ConditionalOnAvailableEndpoint.class})
+@ConditionalOnBean(SqsListenerRegistry.class)
+@EnableConfigurationProperties(MessageListenerProperties.class)
+@AutoConfigureAfter(AnnotationSqsMessageListenerAutoConfiguration.class)
+public class SqsListenerActuatorAutoConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnAvailableEndpoint
+  public SqsListenersEndpoint sqsListenersEndpoint(SqsListenerRegistry registry) {
+    return new SqsListenersEndpoint(registry);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(HttpPoolMetrics.class)
+  @ConditionalOnAvailableEndpoint
+  public SqsClientEndpoint sqsClientEndpoint(HttpPoolMetrics poolMetrics) {
+    return new SqsClientEndpoint(poolMetrics);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnEnabledHealthIndicator("sqslisteners")
+  public SqsListenersHealthIndicator sqsListenersHealthIndicator(
+      SqsListenerRegistry registry, MessageListenerProperties properties) {
+    return new SqsListenersHealthIndicator(
+        registry,
+        properties.getHealth().getStallTimeout(),
+        properties.getHealth().getMaxReceiveFailures());
+  }
+}
@@ -1,6 +1,26 @@
 package com.vladc.sqslistener;
 
+import java.util.Map;
+
 public interface SqsListenerRegistry {
 
   void registerListener(MessageListener listener);
+
+  /**
+   * Registers listener under the given id. Registries that do not track ids register it as
+   * {@linkplain #registerListener(MessageListener)} does.
+   */
+  default void registerListener(String id, MessageListener listener) {
+    registerListener(listener);
+  }
+
+  /** @return listener registered with the given id or {@code null} */
+  default MessageListener getListener(String id) {
+    return getListeners().get(id);
+  }
+
+  /** @return all registered listeners keyed by id, empty if the registry does not track them */
+  default Map<String, MessageListener> getListeners() {
+    return Map.of();
+  }
 }
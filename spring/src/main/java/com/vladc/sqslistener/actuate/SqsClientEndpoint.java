@@ -0,0 +1,23 @@
+package com.vladc.sqslistener.actuate;
+
+import com.vladc.sqslistener.HttpPoolMetrics;
+import com.vladc.sqslistener.HttpPoolStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Reports connection pool usage of the default {@code SqsClient}. A pool close to saturation or
+ * with pending acquires delays receives and acknowledgements of all listeners.
+ */
+@Endpoint(id = "sqsclient")
+@RequiredArgsConstructor
+public class SqsClientEndpoint {
+
+  private final HttpPoolMetrics poolMetrics;
+
+  @ReadOperation
+  public HttpPoolStats pool() {
+    return poolMetrics.getStats();
+  }
+}
@@ -0,0 +1,116 @@
+package com.vladc.sqslistener.actuate;
+
+import com.vladc.sqslistener.ListenerSettings;
+import com.vladc.sqslistener.ListenerStats;
+import com.vladc.sqslistener.ManageableMessageListener;
+import com.vladc.sqslistener.MessageListener;
+import com.vladc.sqslistener.SqsListenerRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Lists registered listeners with their settings and runtime statistics. A listener can be
+ * paused, resumed or have its concurrency changed by posting to {@code /sqslisteners/{id}}.
+ */
+@Endpoint(id = "sqslisteners")
+@RequiredArgsConstructor
+public class SqsListenersEndpoint {
+
+  private final SqsListenerRegistry registry;
+
+  @ReadOperation
+  public Map<String, ListenerDescriptor> listeners() {
+    Map<String, ListenerDescriptor> descriptors = new TreeMap<>();
+    registry.getListeners().forEach((id, listener) -> descriptors.put(id, describe(id, listener)));
+    return descriptors;
+  }
+
+  @ReadOperation
+  public ListenerDescriptor listener(@Selector String id) {
+    MessageListener listener = registry.getListener(id);
+    return listener == null ? null : describe(id, listener);
+  }
+
+  /**
+   * @param paused {@code true} pauses the listener, {@code false} resumes it
+   * @param concurrency new number of consumers polling the queue
+   * @param workerPoolSize new worker pool size
+   */
+  @WriteOperation
+  public ListenerDescriptor update(
+      @Selector String id,
+      @Nullable Boolean paused,
+      @Nullable Integer concurrency,
+      @Nullable Integer workerPoolSize) {
+    MessageListener listener = registry.getListener(id);
+    if (listener == null) {
+      return null;
+    }
+    if (!(listener instanceof ManageableMessageListener)) {
+      String message = "listener %s can not be managed".formatted(id);
+      throw new InvalidEndpointRequestException(message, message);
+    }
+
+    ManageableMessageListener manageable = (ManageableMessageListener) listener;
+    try {
+      if (concurrency != null || workerPoolSize != null) {
+        manageable.reconfigure(
+            ListenerSettings.builder()
+                .concurrency(concurrency)
+                .workerPoolSize(workerPoolSize)
+                .build());
+      }
+      if (Boolean.TRUE.equals(paused)) {
+        manageable.pause();
+      } else if (Boolean.FALSE.equals(paused)) {
+        manageable.resume();
+      }
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+    }
+    return describe(id, listener);
+  }
+
+  private static ListenerDescriptor describe(String id, MessageListener listener) {
+    if (!(listener instanceof ManageableMessageListener)) {
+      return new ListenerDescriptor(id, null, null, null, null);
+    }
+
+    ListenerSettings settings = ((ManageableMessageListener) listener).getSettings();
+    ListenerStats stats = ((ManageableMessageListener) listener).getStats();
+
+    Double executorSaturation =
+        stats.getWorkerPoolSize() > 0
+            ? (double) stats.getActiveWorkers() / stats.getWorkerPoolSize()
+            : null;
+    Long lastReceiveAgeSeconds =
+        stats.getLastReceiveTime() == null
+            ? null
+            : Duration.between(stats.getLastReceiveTime(), Instant.now()).toSeconds();
+    return new ListenerDescriptor(id, settings, stats, executorSaturation, lastReceiveAgeSeconds);
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public static class ListenerDescriptor {
+
+    private final String id;
+    private final ListenerSettings settings;
+    private final ListenerStats stats;
+
+    /** Ratio of busy workers to worker pool size. */
+    private final Double executorSaturation;
+
+    private final Long lastReceiveAgeSeconds;
+  }
+}
@@ -0,0 +1,76 @@
+package com.vladc.sqslistener.actuate;
+
+import com.vladc.sqslistener.ListenerStats;
+import com.vladc.sqslistener.ManageableMessageListener;
+import com.vladc.sqslistener.MessageListener;
+import com.vladc.sqslistener.SqsListenerRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * Reports {@code DOWN} when a running listener keeps failing to receive messages and is stuck in
+ * backoff, or when it has not completed a receive within the stall timeout although some of its
+ * consumers are not busy waiting for handlers, the aggregator or JVM pressure.
+ */
+public class SqsListenersHealthIndicator extends AbstractHealthIndicator {
+
+  private final SqsListenerRegistry registry;
+  private final Duration stallTimeout;
+  private final int maxReceiveFailures;
+
+  public SqsListenersHealthIndicator(
+      SqsListenerRegistry registry, Duration stallTimeout, int maxReceiveFailures) {
+    super("SQS listeners health check failed");
+    this.registry = registry;
+    this.stallTimeout = stallTimeout;
+    this.maxReceiveFailures = maxReceiveFailures;
+  }
+
+  @Override
+  protected void doHealthCheck(Health.Builder builder) {
+    boolean healthy = true;
+    Map<String, Object> details = new TreeMap<>();
+    for (Map.Entry<String, MessageListener> entry : registry.getListeners().entrySet()) {
+      if (!(entry.getValue() instanceof ManageableMessageListener)) {
+        continue;
+      }
+
+      ListenerStats stats = ((ManageableMessageListener) entry.getValue()).getStats();
+
+      String state = state(stats);
+      healthy &= !"BACKOFF".equals(state) && !"STALLED".equals(state);
+
+      Map<String, Object> listenerDetails = new LinkedHashMap<>();
+      listenerDetails.put("state", state);
+      listenerDetails.put("queueUrl", stats.getQueueUrl());
+      listenerDetails.put("consecutiveReceiveFailures", stats.getConsecutiveReceiveFailures());
+      listenerDetails.put("consumersBusy", stats.getConsumersBusy());
+      listenerDetails.put("lastReceiveTime", stats.getLastReceiveTime());
+      details.put(entry.getKey(), listenerDetails);
+    }
+    (healthy ? builder.up() : builder.down()).withDetails(details);
+  }
+
+  private String state(ListenerStats stats) {
+    if (!stats.isRunning()) {
+      return "STOPPED";
+    }
+    if (stats.isPaused()) {
+      return "PAUSED";
+    }
+    if (stats.getConsecutiveReceiveFailures() >= maxReceiveFailures) {
+      return "BACKOFF";
+    }
+    Instant lastReceive = stats.getLastReceiveTime();
+    if (lastReceive != null && lastReceive.plus(stallTimeout).isBefore(Instant.now())) {
+      // consumers busy with a slow batch or held back by JVM pressure do not receive
+      return stats.getConsumersBusy() < stats.getConsumers() ? "STALLED" : "BUSY";
+    }
+    return "UP";
+  }
+}
@@ -12,4 +12,12 @@ public @interface SqsHandler {
   String messageType() default "";
 
   boolean isDefault() default false;
+
+  /**
+   * Maximum number of messages handled by this method at the same time, {@code 0} means
+   * unlimited. Messages exceeding the limit do not wait for a worker, they are made visible again
+   * after a short delay. Each deferral counts as a receive towards the redrive policy {@code
+   * maxReceiveCount}.
+   */
+  int maxConcurrency() default 0;
 }
@@ -1,6 +1,12 @@
 package com.vladc.sqslistener.annotation;
 
+import com.vladc.sqslistener.Acknowledgement;
+import com.vladc.sqslistener.BackoffPolicy;
+import com.vladc.sqslistener.ConflationPolicy;
+import com.vladc.sqslistener.Disposition;
 import com.vladc.sqslistener.ErrorHandler;
+import com.vladc.sqslistener.MaxAgePolicy;
+import com.vladc.sqslistener.MessageKeyExtractor;
 import com.vladc.sqslistener.SqsMessageListener;
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
@@ -17,8 +23,15 @@ import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
  *
  * <ul>
  *   <li>{@link Message} complete SQS message being processed.
+ *   <li>{@link Acknowledgement} acknowledgement handle of the message, use with {@linkplain
+ *       AckMode#MANUAL}.
  * </ul>
  *
+ * Methods may return {@link Disposition} to decide what happens to the message after it was
+ * handled. Methods returning a {@link java.util.concurrent.CompletableFuture} complete
+ * asynchronously: the worker thread is released and the message is acknowledged when the future
+ * completes, with its {@link Disposition} if the future yields one.
+ *
  * Exception handling
  *
  * <ul>
@@ -34,9 +47,18 @@ import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 public @interface SqsListener {
 
   /**
-   * AWS SQS queue url.
+   * Listener id used to register the listener and to look up {@code messaging.sqs.listeners.<id>}
+   * properties. Generated if not set.
    *
-   * @return the queue url or expression (SpEL)
+   * @return the listener id or expression (SpEL)
+   */
+  String id() default "";
+
+  /**
+   * AWS SQS queue url or queue name. Names are resolved with {@code GetQueueUrl} when the
+   * application starts.
+   *
+   * @return the queue url, name or expression (SpEL)
    */
   String url() default "";
 
@@ -50,21 +72,119 @@ public @interface SqsListener {
 
   /**
    * The duration (in seconds) that the received messages are hidden from subsequent retrieve
-   * requests after being retrieved by a ReceiveMessage request.
+   * requests after being retrieved by a ReceiveMessage request. Defaults to the queue {@code
+   * VisibilityTimeout} attribute.
    *
    * @see ReceiveMessageRequest#visibilityTimeout()
    */
-  String visibilityTimeout() default "60";
+  String visibilityTimeout() default "";
+
+  /**
+   * Maximum time (in seconds) a handler may process a single message. When it expires the handler
+   * thread is interrupted and the message is made visible again. Defaults to 80% of the visibility
+   * timeout, {@code 0} disables the deadline.
+   *
+   * @return handler timeout or expression (SpEL)
+   */
+  String handlerTimeout() default "";
 
   /** Number of threads polling from this queue. */
   String concurrency() default "1";
 
+  /**
+   * Number of threads processing messages of this listener. Each listener has its own worker pool
+   * unless {@code messaging.sqs.sharedPool} is enabled. Defaults to {@code concurrency *
+   * maxBatchSize + 1}.
+   *
+   * @return pool size or expression (SpEL)
+   */
+  String poolSize() default "";
+
   /**
    * {@linkplain ErrorHandler} bean that will be called when @SqsMessageListener method throws an
    * exception
    */
   String exceptionHandler() default "";
 
+  /**
+   * {@linkplain BackoffPolicy} bean that computes redelivery delay of messages retried with
+   * {@linkplain Disposition#retry()}. If not set, failed messages become visible again after
+   * visibility timeout expires.
+   */
+  String backoffPolicy() default "";
+
+  /**
+   * Message attribute used as affinity key. Messages with equal keys are processed serially on the
+   * same lane, different keys run in parallel. Ignored for FIFO queues.
+   *
+   * @return attribute name or expression (SpEL)
+   */
+  String keyAttribute() default "";
+
+  /**
+   * {@linkplain MessageKeyExtractor} bean extracting the affinity key, e.g. from the message body.
+   * Takes precedence over {@linkplain #keyAttribute()}.
+   */
+  String keyExtractor() default "";
+
+  /**
+   * Number of key affinity lanes. Defaults to {@code concurrency * maxBatchSize + 1}.
+   *
+   * @return lane count or expression (SpEL)
+   */
+  String lanes() default "";
+
+  /**
+   * Maximum number of messages waiting per lane before receiving blocks. Defaults to 100.
+   *
+   * @return lane capacity or expression (SpEL)
+   */
+  String laneCapacity() default "";
+
+  /**
+   * Conflation window in milliseconds. If set, messages received within the window are conflated
+   * by the {@linkplain #keyAttribute()} or {@linkplain #keyExtractor()} key: only the newest
+   * message per key is handled, superseded messages are deleted.
+   *
+   * @return window or expression (SpEL)
+   * @see ConflationPolicy
+   */
+  String conflationWindow() default "";
+
+  /**
+   * Numeric message attribute ordering conflated messages of a key. Defaults to {@code
+   * SentTimestamp}.
+   *
+   * @return attribute name or expression (SpEL)
+   */
+  String conflationVersionAttribute() default "";
+
+  /**
+   * Maximum message age (in seconds) by {@code SentTimestamp}. Older messages are deleted without
+   * calling the handler, or moved to {@linkplain #expiredMessageQueue()} if set.
+   *
+   * @return max age or expression (SpEL)
+   * @see MaxAgePolicy
+   */
+  String maxMessageAge() default "";
+
+  /**
+   * Url or name of a standard queue receiving messages older than {@linkplain #maxMessageAge()}.
+   *
+   * @return queue url, name or expression (SpEL)
+   */
+  String expiredMessageQueue() default "";
+
+  /**
+   * Message attributes read by the handler and its error handler. If set, only these are
+   * requested on receive, together with the attributes the listener reads itself: {@code
+   * messageType} of class level listeners, the key, version and {@code Content-Encoding}
+   * attributes. Listeners without attributes, or with {@code "All"}, receive all of them.
+   *
+   * @return attribute names, SQS prefix patterns ({@code trace.*}) or expressions (SpEL)
+   */
+  String[] messageAttributes() default {};
+
   PollMode pollMode() default PollMode.LONG;
 
   AckMode ackMode() default AckMode.AUTO;
@@ -79,7 +199,7 @@ public @interface SqsListener {
 
     /**
      * Messages are not removed from the queue automatically. Using this mode means manually
-     * deleting messages from the queue.
+     * acknowledging messages with {@linkplain Acknowledgement#ack()}.
      */
     MANUAL;
   }
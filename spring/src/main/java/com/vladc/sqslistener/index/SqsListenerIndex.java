@@ -0,0 +1,112 @@
+package com.vladc.sqslistener.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Classes declaring listeners, read from all {@value #INDEX_LOCATION} resources generated by
+ * {@linkplain SqsListenerIndexProcessor}. The index only covers the class path roots (jars or
+ * directories) that contain an index resource, classes of other roots were compiled without the
+ * processor and must be introspected.
+ */
+public class SqsListenerIndex {
+
+  public static final String INDEX_LOCATION = "META-INF/sqs-listeners.index";
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  private final Set<String> listenerClasses;
+  private final Set<String> indexedRoots;
+  /** Coverage by code source location, so each jar or directory is looked up once. */
+  private final Map<String, Boolean> coveredLocations = new ConcurrentHashMap<>();
+
+  SqsListenerIndex(Set<String> listenerClasses, Set<String> indexedRoots) {
+    this.listenerClasses = Collections.unmodifiableSet(listenerClasses);
+    this.indexedRoots = Collections.unmodifiableSet(indexedRoots);
+  }
+
+  /** @return index of all class path entries or {@code null} if no index is present */
+  public static SqsListenerIndex load(ClassLoader classLoader) {
+    try {
+      Enumeration<URL> resources = classLoader.getResources(INDEX_LOCATION);
+      if (!resources.hasMoreElements()) {
+        return null;
+      }
+      Set<String> listenerClasses = new HashSet<>();
+      Set<String> indexedRoots = new HashSet<>();
+      while (resources.hasMoreElements()) {
+        URL resource = resources.nextElement();
+        indexedRoots.add(root(resource, INDEX_LOCATION));
+        try (BufferedReader reader =
+            new BufferedReader(
+                new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+          reader
+              .lines()
+              .map(String::trim)
+              .filter(line -> !line.isEmpty())
+              .forEach(listenerClasses::add);
+        }
+      }
+      return new SqsListenerIndex(listenerClasses, indexedRoots);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to load " + INDEX_LOCATION, e);
+    }
+  }
+
+  private static String root(URL resource, String path) {
+    String location = resource.toString();
+    return location.substring(0, location.length() - path.length());
+  }
+
+  /**
+   * @return {@code true} if the class, one of its superclasses or interfaces is indexed
+   */
+  public boolean isCandidate(Class<?> type) {
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      if (listenerClasses.contains(current.getName())) {
+        return true;
+      }
+    }
+    return ClassUtils.getAllInterfacesForClassAsSet(type).stream()
+        .anyMatch(i -> listenerClasses.contains(i.getName()));
+  }
+
+  /**
+   * @return {@code true} if the class was loaded from a class path root containing an index, so
+   *     {@linkplain #isCandidate(Class)} is authoritative for it
+   */
+  public boolean covers(Class<?> type) {
+    ClassLoader classLoader = type.getClassLoader();
+    if (classLoader == null) {
+      return false;
+    }
+    CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+    if (codeSource == null || codeSource.getLocation() == null) {
+      return isIndexed(type, classLoader);
+    }
+    return coveredLocations.computeIfAbsent(
+        codeSource.getLocation().toString(), location -> isIndexed(type, classLoader));
+  }
+
+  private boolean isIndexed(Class<?> type, ClassLoader classLoader) {
+    String path = type.getName().replace('.', '/') + CLASS_SUFFIX;
+    URL resource = classLoader.getResource(path);
+    return resource != null && indexedRoots.contains(root(resource, path));
+  }
+
+  public Set<String> getListenerClasses() {
+    return listenerClasses;
+  }
+}
@@ -0,0 +1,152 @@
+package com.vladc.sqslistener.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes binary names of classes declaring {@code @SqsListener} or {@code @SqsHandler} to {@value
+ * SqsListenerIndex#INDEX_LOCATION}, along with GraalVM reflection metadata registering the same
+ * classes for native images. Entries of a previous compilation are kept for classes that still
+ * exist and were not recompiled, so incremental builds produce a complete index.
+ */
+@SupportedAnnotationTypes("*")
+public class SqsListenerIndexProcessor extends AbstractProcessor {
+
+  private static final Set<String> LISTENER_ANNOTATIONS =
+      Set.of(
+          "com.vladc.sqslistener.annotation.SqsListener",
+          "com.vladc.sqslistener.annotation.SqsHandler");
+
+  static final String REFLECT_CONFIG_LOCATION =
+      "META-INF/native-image/sqs-listeners/reflect-config.json";
+
+  private final Set<String> listenerClasses = new TreeSet<>();
+  private final Set<String> processedClasses = new HashSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+      collect(type);
+    }
+    if (roundEnv.processingOver()) {
+      writeIndex();
+    }
+    return false;
+  }
+
+  private void collect(TypeElement type) {
+    String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+    processedClasses.add(binaryName);
+    if (isAnnotated(type)
+        || ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+            .anyMatch(this::isAnnotated)) {
+      listenerClasses.add(binaryName);
+    }
+    ElementFilter.typesIn(type.getEnclosedElements()).forEach(this::collect);
+  }
+
+  private boolean isAnnotated(Element element) {
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      if (LISTENER_ANNOTATIONS.contains(annotationType.getQualifiedName().toString())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeIndex() {
+    Set<String> entries = new TreeSet<>(listenerClasses);
+    Set<String> previousEntries = readPreviousIndex();
+    for (String entry : previousEntries) {
+      if (!processedClasses.contains(entry)
+          && processingEnv.getElementUtils().getTypeElement(entry.replace('$', '.')) != null) {
+        entries.add(entry);
+      }
+    }
+    if (entries.isEmpty() && previousEntries.isEmpty()) {
+      return;
+    }
+
+    try {
+      FileObject index =
+          processingEnv
+              .getFiler()
+              .createResource(StandardLocation.CLASS_OUTPUT, "", SqsListenerIndex.INDEX_LOCATION);
+      try (Writer writer = index.openWriter()) {
+        for (String entry : entries) {
+          writer.write(entry);
+          writer.write('\n');
+        }
+      }
+      writeReflectConfig(entries);
+    } catch (IOException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(Kind.ERROR, "Unable to write SqsListener index: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Native images can only introspect and invoke handler methods of classes registered for
+   * reflection, the GraalVM reachability metadata mirrors the index.
+   */
+  private void writeReflectConfig(Set<String> entries) throws IOException {
+    FileObject reflectConfig =
+        processingEnv
+            .getFiler()
+            .createResource(StandardLocation.CLASS_OUTPUT, "", REFLECT_CONFIG_LOCATION);
+    try (Writer writer = reflectConfig.openWriter()) {
+      writer.write("[");
+      String separator = "\n";
+      for (String entry : entries) {
+        writer.write(separator);
+        writer.write(
+            "  {\"name\": \"%s\", \"allDeclaredConstructors\": true, \"allDeclaredMethods\": true}"
+                .formatted(entry));
+        separator = ",\n";
+      }
+      writer.write("\n]\n");
+    }
+  }
+
+  private Set<String> readPreviousIndex() {
+    Set<String> entries = new HashSet<>();
+    try {
+      FileObject index =
+          processingEnv
+              .getFiler()
+              .getResource(StandardLocation.CLASS_OUTPUT, "", SqsListenerIndex.INDEX_LOCATION);
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(index.openInputStream(), StandardCharsets.UTF_8))) {
+        reader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(entries::add);
+      }
+    } catch (IOException e) {
+      // no previous index
+    }
+    return entries;
+  }
+}
@@ -2,11 +2,21 @@ package com.vladc.sqslistener.internal;
 
 import com.vladc.sqslistener.MessageListener;
 import com.vladc.sqslistener.SqsListenerRegistry;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -16,12 +26,30 @@ import org.springframework.context.SmartLifecycle;
 public class DefaultSqsListenerRegistry
     implements SqsListenerRegistry, SmartLifecycle, ApplicationContextAware {
 
+  private static final int MAX_VALIDATION_THREADS = 16;
+  /** Prefix of bean names of listeners registered with an id, keeps them clear of other beans. */
+  static final String LISTENER_BEAN_PREFIX = "sqsListener.";
+
   private ConfigurableApplicationContext applicationContext;
   private final Map<String, MessageListener> listeners = new ConcurrentHashMap<>();
   private final AtomicInteger listenerCounter = new AtomicInteger(1);
 
   private volatile boolean running = false;
 
+  private final Duration validationTimeout;
+
+  public DefaultSqsListenerRegistry() {
+    this(null);
+  }
+
+  /**
+   * @param validationTimeout time allowed to prepare all listeners concurrently before they are
+   *     subscribed, if {@code null} each listener is prepared when it subscribes
+   */
+  public DefaultSqsListenerRegistry(Duration validationTimeout) {
+    this.validationTimeout = validationTimeout;
+  }
+
   @Override
   public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
     if (applicationContext instanceof ConfigurableApplicationContext) {
@@ -31,6 +59,9 @@ public class DefaultSqsListenerRegistry
 
   @Override
   public void start() {
+    if (validationTimeout != null) {
+      prepareListeners();
+    }
     listeners.values().forEach(MessageListener::subscribe);
     this.running = true;
   }
@@ -49,6 +80,45 @@ public class DefaultSqsListenerRegistry
     }
   }
 
+  private void prepareListeners() {
+    if (listeners.isEmpty()) {
+      return;
+    }
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(listeners.size(), MAX_VALIDATION_THREADS));
+    Map<String, CompletableFuture<Void>> results = new TreeMap<>();
+    try {
+      listeners.forEach(
+          (id, listener) ->
+              results.put(id, CompletableFuture.runAsync(listener::prepare, executor)));
+      CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+          .get(validationTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException(
+          "queue validation timed out after %s, pending listeners: %s"
+              .formatted(validationTimeout, listenerIds(results, f -> !f.isDone())));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(
+          "queue validation failed for listeners: %s"
+              .formatted(listenerIds(results, CompletableFuture::isCompletedExceptionally)),
+          e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("queue validation interrupted", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String listenerIds(
+      Map<String, CompletableFuture<Void>> results, Predicate<CompletableFuture<Void>> filter) {
+    return results.entrySet().stream()
+        .filter(entry -> filter.test(entry.getValue()))
+        .map(Map.Entry::getKey)
+        .collect(Collectors.joining(", "));
+  }
+
   @Override
   public boolean isRunning() {
     return this.running;
@@ -61,10 +131,32 @@ public class DefaultSqsListenerRegistry
 
   @Override
   public void registerListener(MessageListener listener) {
-    Objects.requireNonNull(listener, "SqsQueueMessageListener must not be null");
     String id = "sqsListener%s".formatted(listenerCounter.getAndIncrement());
+    register(id, id, listener);
+  }
+
+  @Override
+  public void registerListener(String id, MessageListener listener) {
+    Objects.requireNonNull(id, "listener id must not be null");
+    register(id, LISTENER_BEAN_PREFIX + id, listener);
+  }
+
+  private void register(String id, String beanName, MessageListener listener) {
+    Objects.requireNonNull(listener, "SqsQueueMessageListener must not be null");
     if (listeners.putIfAbsent(id, listener) == null) {
-      applicationContext.getBeanFactory().registerSingleton(id, listener);
+      applicationContext.getBeanFactory().registerSingleton(beanName, listener);
+    } else {
+      throw new IllegalStateException("listener with id %s is already registered".formatted(id));
     }
   }
+
+  @Override
+  public MessageListener getListener(String id) {
+    return listeners.get(id);
+  }
+
+  @Override
+  public Map<String, MessageListener> getListeners() {
+    return Collections.unmodifiableMap(listeners);
+  }
 }
@@ -1,11 +1,17 @@
 package com.vladc.sqslistener.internal;
 
+import com.vladc.sqslistener.CostAccountingPolicy;
 import com.vladc.sqslistener.HandlerInterceptor;
+import com.vladc.sqslistener.JvmPressureMonitor;
 import com.vladc.sqslistener.MessageListener;
+import com.vladc.sqslistener.MessageListenerProperties;
+import com.vladc.sqslistener.MessageTracer;
 import com.vladc.sqslistener.SqsMessageListener;
 import com.vladc.sqslistener.SqsMessageListenerFactory;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import lombok.Builder;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
@@ -14,14 +20,38 @@ public class DefaultSqsMessageListenerFactory implements SqsMessageListenerFacto
   private final SqsClient sqsClient;
   private final ThreadPoolTaskExecutor messageProcessorTaskExecutor;
   private final List<HandlerInterceptor> filters;
+  private final MessageListenerProperties properties;
+  private final JvmPressureMonitor pressureMonitor;
+  private final MessageTracer tracer;
 
   public DefaultSqsMessageListenerFactory(
       SqsClient sqsClient,
       ThreadPoolTaskExecutor messageProcessorTaskExecutor,
       List<HandlerInterceptor> filters) {
+    this(sqsClient, messageProcessorTaskExecutor, filters, null, null, null);
+  }
+
+  /**
+   * @param messageProcessorTaskExecutor executor shared by all listeners, if {@code null} each
+   *     listener gets its own executor
+   * @param properties listener properties, defaults are used if {@code null}
+   * @param pressureMonitor JVM pressure monitor shared by all listeners, may be {@code null}
+   * @param tracer tracer of all listeners, tracing is disabled if {@code null}
+   */
+  @Builder
+  private DefaultSqsMessageListenerFactory(
+      SqsClient sqsClient,
+      ThreadPoolTaskExecutor messageProcessorTaskExecutor,
+      List<HandlerInterceptor> filters,
+      MessageListenerProperties properties,
+      JvmPressureMonitor pressureMonitor,
+      MessageTracer tracer) {
     this.sqsClient = sqsClient;
     this.messageProcessorTaskExecutor = messageProcessorTaskExecutor;
     this.filters = filters;
+    this.properties = properties == null ? new MessageListenerProperties() : properties;
+    this.pressureMonitor = pressureMonitor;
+    this.tracer = tracer;
   }
 
   @Override
@@ -29,8 +59,9 @@ public class DefaultSqsMessageListenerFactory implements SqsMessageListenerFacto
     return SqsMessageListener.builder()
         .client(sqsClient)
         .executor(getMessageProcessorExecutor())
+        .workerPoolSize(resolvePoolSize(attributes))
         .url(attributes.getUrl())
-        .handler(attributes.getHandler())
+        .asyncDispositionHandler(attributes.getHandler())
         .errorHandler(attributes.getErrorHandler())
         .concurrency(attributes.getConcurrency())
         .maxBatchSize(attributes.getMaxBatchSize())
@@ -38,10 +69,92 @@ public class DefaultSqsMessageListenerFactory implements SqsMessageListenerFacto
         .longPolling(attributes.getLongPolling())
         .autoAcknowledge(attributes.getAutoAcknowledge())
         .interceptors(filters == null ? List.of() : filters)
+        .backoffPolicy(attributes.getBackoffPolicy())
+        .pressureMonitor(pressureMonitor)
+        .handlerTimeout(resolveHandlerTimeout(attributes))
+        .keyExtractor(attributes.getKeyExtractor())
+        .lanes(attributes.getLanes())
+        .laneCapacity(attributes.getLaneCapacity())
+        .conflationPolicy(attributes.getConflationPolicy())
+        .maxAgePolicy(attributes.getMaxAgePolicy())
+        .messageAttributeNames(attributes.getMessageAttributeNames())
+        .tracer(tracer)
+        .costAccountingPolicy(resolveCostAccountingPolicy(attributes))
+        .messageTypeAttribute(attributes.getMessageTypeAttribute())
+        .warmUp(resolveWarmUp(attributes))
         .build();
   }
 
+  /**
+   * Resolves worker pool size of a listener from {@code messaging.sqs.listeners.<id>.poolSize},
+   * then {@code SqsListener#poolSize()}. If neither is set, the pool is sized from listener
+   * concurrency and batch size.
+   */
+  Integer resolvePoolSize(SqsQueueAttributes attributes) {
+    MessageListenerProperties.Listener listenerProperties = listenerProperties(attributes);
+    if (listenerProperties != null && listenerProperties.getPoolSize() != null) {
+      return listenerProperties.getPoolSize();
+    }
+    return attributes.getPoolSize();
+  }
+
+  /**
+   * Resolves handler timeout of a listener from {@code
+   * messaging.sqs.listeners.<id>.handlerTimeout}, then {@code SqsListener#handlerTimeout()}.
+   */
+  Duration resolveHandlerTimeout(SqsQueueAttributes attributes) {
+    MessageListenerProperties.Listener listenerProperties = listenerProperties(attributes);
+    if (listenerProperties != null && listenerProperties.getHandlerTimeout() != null) {
+      return listenerProperties.getHandlerTimeout();
+    }
+    return attributes.getHandlerTimeout();
+  }
+
+  /**
+   * Resolves cost accounting of a listener from {@code messaging.sqs.costAccounting}, with the
+   * sampling rate overridden by {@code messaging.sqs.listeners.<id>.costSamplingRate}. A listener
+   * with a sampling rate set is accounted even if cost accounting is not enabled globally.
+   */
+  CostAccountingPolicy resolveCostAccountingPolicy(SqsQueueAttributes attributes) {
+    MessageListenerProperties.CostAccounting costAccounting = properties.getCostAccounting();
+    MessageListenerProperties.Listener listenerProperties = listenerProperties(attributes);
+    Double samplingRate =
+        listenerProperties == null ? null : listenerProperties.getCostSamplingRate();
+    if (samplingRate == null) {
+      if (!costAccounting.isEnabled()) {
+        return null;
+      }
+      samplingRate = costAccounting.getSamplingRate();
+    }
+    if (samplingRate == 0) {
+      return null;
+    }
+    return CostAccountingPolicy.builder()
+        .samplingRate(samplingRate)
+        .typeAttribute(attributes.getMessageTypeAttribute())
+        .maxMessageTypes(costAccounting.getMaxMessageTypes())
+        .build();
+  }
+
+  /**
+   * Resolves warm-up of a listener from {@code messaging.sqs.listeners.<id>.warmUp}, then {@code
+   * messaging.sqs.warmUp}.
+   */
+  boolean resolveWarmUp(SqsQueueAttributes attributes) {
+    MessageListenerProperties.Listener listenerProperties = listenerProperties(attributes);
+    if (listenerProperties != null && listenerProperties.getWarmUp() != null) {
+      return listenerProperties.getWarmUp();
+    }
+    return properties.isWarmUp();
+  }
+
+  /** @return {@code messaging.sqs.listeners.<id>} properties of the listener or {@code null} */
+  private MessageListenerProperties.Listener listenerProperties(SqsQueueAttributes attributes) {
+    return attributes.getId() == null ? null : properties.getListeners().get(attributes.getId());
+  }
+
   private ExecutorService getMessageProcessorExecutor() {
+    // without shared executor every listener creates its own worker pool
     return messageProcessorTaskExecutor == null
         ? null
         : messageProcessorTaskExecutor.getThreadPoolExecutor();
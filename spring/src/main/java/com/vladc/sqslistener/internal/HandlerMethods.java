@@ -0,0 +1,62 @@
+package com.vladc.sqslistener.internal;
+
+import com.vladc.sqslistener.Acknowledgement;
+import com.vladc.sqslistener.Disposition;
+import com.vladc.sqslistener.WarmUpHook;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.springframework.util.ReflectionUtils;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/** Invokes annotated handler methods resolving supported parameter types. */
+final class HandlerMethods {
+
+  private HandlerMethods() {}
+
+  /**
+   * Invokes the handler method. Methods returning a {@linkplain CompletionStage} complete
+   * asynchronously, a {@linkplain Disposition} result of the stage is applied to the message.
+   */
+  static CompletionStage<Disposition> invoke(Method method, Object target, Message message) {
+    ReflectionUtils.makeAccessible(method);
+    Object result = ReflectionUtils.invokeMethod(method, target, resolveArguments(method, message));
+    if (result instanceof CompletionStage) {
+      return ((CompletionStage<?>) result).thenApply(HandlerMethods::toDisposition);
+    }
+    return CompletableFuture.completedFuture(toDisposition(result));
+  }
+
+  /**
+   * Prepares handler methods for their first invocation and runs the warm-up hook of the target
+   * bean if it implements {@linkplain WarmUpHook}.
+   */
+  static void warmUp(Object target, Collection<Method> methods) throws Exception {
+    methods.forEach(ReflectionUtils::makeAccessible);
+    if (target instanceof WarmUpHook) {
+      ((WarmUpHook) target).warmUp();
+    }
+  }
+
+  private static Disposition toDisposition(Object result) {
+    return result instanceof Disposition ? (Disposition) result : Disposition.ack();
+  }
+
+  private static Object[] resolveArguments(Method method, Message message) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Object[] arguments = new Object[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (Message.class.equals(parameterTypes[i])) {
+        arguments[i] = message;
+      } else if (Acknowledgement.class.equals(parameterTypes[i])) {
+        arguments[i] = Acknowledgement.current();
+      } else {
+        throw new IllegalStateException(
+            "unsupported parameter type %s of handler method %s"
+                .formatted(parameterTypes[i].getName(), method));
+      }
+    }
+    return arguments;
+  }
+}
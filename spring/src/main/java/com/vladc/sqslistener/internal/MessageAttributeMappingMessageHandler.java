@@ -1,15 +1,24 @@
 package com.vladc.sqslistener.internal;
 
-import com.vladc.sqslistener.MessageHandler;
+import com.vladc.sqslistener.AsyncDispositionHandler;
+import com.vladc.sqslistener.Disposition;
+import com.vladc.sqslistener.WarmUpHook;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.Map;
-import org.springframework.util.ReflectionUtils;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 
-class MessageAttributeMappingMessageHandler implements MessageHandler {
+class MessageAttributeMappingMessageHandler implements AsyncDispositionHandler, WarmUpHook {
 
-  private static final String WELL_KNOWN_ATTRIBUTE_KEY = "messageType";
+  static final String WELL_KNOWN_ATTRIBUTE_KEY = "messageType";
+  private static final Duration DEFER_DELAY = Duration.ofSeconds(1);
 
   private final Object target;
   private final MethodMapping methodMapping;
@@ -20,21 +29,20 @@ class MessageAttributeMappingMessageHandler implements MessageHandler {
   }
 
   @Override
-  public void handle(Message message) {
+  public CompletionStage<Disposition> handle(Message message) {
     Map<String, MessageAttributeValue> attributeValueMap = message.messageAttributes();
     MessageAttributeValue attributeValue = attributeValueMap.get(WELL_KNOWN_ATTRIBUTE_KEY);
     if (attributeValue == null) {
       Method defaultMethod = methodMapping.getDefaultMethod();
       if (defaultMethod != null) {
-        invoke(defaultMethod, message);
-        return;
+        return invoke(defaultMethod, message);
       }
       throw new IllegalStateException("unable to handle sqs message - method mapping not found");
     }
 
     Method handlerMethod = methodMapping.getMethod(attributeValue.stringValue());
     if (handlerMethod != null) {
-      invoke(handlerMethod, message);
+      return invoke(handlerMethod, message);
     } else {
       throw new IllegalStateException(
           "unable to handle sqs message - method mapping not found for %s"
@@ -42,26 +50,74 @@ class MessageAttributeMappingMessageHandler implements MessageHandler {
     }
   }
 
-  private void invoke(Method method, Message message) {
-    ReflectionUtils.makeAccessible(method);
-    ReflectionUtils.invokeMethod(method, target, message);
+  @Override
+  public void warmUp() throws Exception {
+    HandlerMethods.warmUp(target, methodMapping.getMethods());
+  }
+
+  private CompletionStage<Disposition> invoke(Method method, Message message) {
+    Semaphore permits = methodMapping.getConcurrencyLimit(method);
+    if (permits == null) {
+      return HandlerMethods.invoke(method, target, message);
+    }
+    if (!permits.tryAcquire()) {
+      // saturated message type, free the worker for other types
+      return CompletableFuture.completedFuture(Disposition.retryAfter(DEFER_DELAY));
+    }
+    CompletionStage<Disposition> result;
+    try {
+      result = HandlerMethods.invoke(method, target, message);
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+    // asynchronous handlers hold the permit until they complete
+    return result.whenComplete((disposition, error) -> permits.release());
   }
 
   static class MethodMapping {
     private final Map<String, Method> attributeMethodMap;
     private final Method defaultMethod;
+    private final Map<Method, Semaphore> concurrencyLimits;
 
     public MethodMapping(Map<String, Method> attributeMethodMap, Method defaultMethod) {
+      this(attributeMethodMap, defaultMethod, Map.of());
+    }
+
+    /** @param maxConcurrency maximum number of concurrent invocations of limited methods */
+    public MethodMapping(
+        Map<String, Method> attributeMethodMap,
+        Method defaultMethod,
+        Map<Method, Integer> maxConcurrency) {
       this.attributeMethodMap = attributeMethodMap;
       this.defaultMethod = defaultMethod;
+      this.concurrencyLimits =
+          maxConcurrency.entrySet().stream()
+              .collect(
+                  Collectors.toUnmodifiableMap(
+                      Map.Entry::getKey, entry -> new Semaphore(entry.getValue())));
     }
 
     public Method getMethod(String attributeValue) {
       return attributeMethodMap.getOrDefault(attributeValue, this.defaultMethod);
     }
 
+    /** Returns all mapped methods including the default method. */
+    public Set<Method> getMethods() {
+      Set<Method> methods = new HashSet<>(attributeMethodMap.values());
+      if (defaultMethod != null) {
+        methods.add(defaultMethod);
+      }
+      return methods;
+    }
+
     public Method getDefaultMethod() {
       return this.defaultMethod;
     }
+
+    /** Returns permits of the method or {@code null} if its concurrency is not limited. */
+    public Semaphore getConcurrencyLimit(Method method) {
+      return concurrencyLimits.get(method);
+    }
   }
 }
@@ -1,7 +1,11 @@
 package com.vladc.sqslistener.internal;
 
+import com.vladc.sqslistener.AsyncDispositionHandler;
+import com.vladc.sqslistener.BackoffPolicy;
+import com.vladc.sqslistener.ConflationPolicy;
 import com.vladc.sqslistener.ErrorHandler;
-import com.vladc.sqslistener.MessageHandler;
+import com.vladc.sqslistener.MaxAgePolicy;
+import com.vladc.sqslistener.MessageKeyExtractor;
 import com.vladc.sqslistener.MessageListener;
 import com.vladc.sqslistener.SqsListenerRegistry;
 import com.vladc.sqslistener.SqsMessageListenerFactory;
@@ -9,20 +13,26 @@ import com.vladc.sqslistener.annotation.SqsHandler;
 import com.vladc.sqslistener.annotation.SqsListener;
 import com.vladc.sqslistener.annotation.SqsListener.AckMode;
 import com.vladc.sqslistener.annotation.SqsListener.PollMode;
+import com.vladc.sqslistener.index.SqsListenerIndex;
 import com.vladc.sqslistener.internal.MessageAttributeMappingMessageHandler.MethodMapping;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.framework.AopInfrastructureBean;
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.beans.factory.config.BeanExpressionResolver;
@@ -35,11 +45,16 @@ import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
 
+@Slf4j
 public class MessageListenerAnnotatedMethodBeanPostProcessor
-    implements BeanPostProcessor, BeanFactoryAware, Ordered {
+    implements BeanPostProcessor, BeanFactoryAware, BeanClassLoaderAware, Ordered {
+
+  private static final String ALL_ATTRIBUTES = "All";
 
   private final SqsMessageListenerFactory messageListenerFactory;
   private final SqsListenerRegistry listenerRegistry;
+  private final boolean useListenerIndex;
+  private SqsListenerIndex listenerIndex;
 
   private BeanExpressionContext expressionContext;
   private ConfigurableListableBeanFactory beanFactory;
@@ -50,8 +65,28 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
 
   public MessageListenerAnnotatedMethodBeanPostProcessor(
       SqsMessageListenerFactory messageListenerFactory, SqsListenerRegistry listenerRegistry) {
+    this(messageListenerFactory, listenerRegistry, true);
+  }
+
+  /**
+   * @param useListenerIndex skip introspection of classes missing from the {@linkplain
+   *     SqsListenerIndex} of their jar or directory, classes of roots without index are always
+   *     introspected
+   */
+  public MessageListenerAnnotatedMethodBeanPostProcessor(
+      SqsMessageListenerFactory messageListenerFactory,
+      SqsListenerRegistry listenerRegistry,
+      boolean useListenerIndex) {
     this.messageListenerFactory = messageListenerFactory;
     this.listenerRegistry = listenerRegistry;
+    this.useListenerIndex = useListenerIndex;
+  }
+
+  @Override
+  public void setBeanClassLoader(ClassLoader classLoader) {
+    if (useListenerIndex) {
+      this.listenerIndex = SqsListenerIndex.load(classLoader);
+    }
   }
 
   @Override
@@ -72,18 +107,33 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
     }
 
     Class<?> targetClass = AopProxyUtils.ultimateTargetClass(bean);
-    if (!nonAnnotatedClasses.contains(targetClass)
-        && AnnotationUtils.isCandidateClass(targetClass, SqsListener.class)) {
+    if (!nonAnnotatedClasses.contains(targetClass) && isCandidateClass(targetClass)) {
 
       if (targetClass.isAnnotationPresent(SqsListener.class)) {
         processMultiMethodListener(targetClass, bean);
       } else {
         processMethodLevelListener(targetClass, bean);
       }
+      if (listenerIndex != null
+          && !nonAnnotatedClasses.contains(targetClass)
+          && !listenerIndex.covers(targetClass)) {
+        log.warn(
+            "{} declares SQS listeners but its class path root has no listener index, "
+                + "compile it with SqsListenerIndexProcessor to skip introspection of its classes",
+            targetClass.getName());
+      }
     }
     return bean;
   }
 
+  private boolean isCandidateClass(Class<?> targetClass) {
+    if (listenerIndex != null && listenerIndex.covers(targetClass)) {
+      // classes missing from the compile-time index of their jar or directory are not introspected
+      return listenerIndex.isCandidate(targetClass);
+    }
+    return AnnotationUtils.isCandidateClass(targetClass, SqsListener.class);
+  }
+
   private void processMultiMethodListener(Class<?> targetClass, Object bean) {
     SqsListener listenerAnnotation = AnnotationUtils.getAnnotation(targetClass, SqsListener.class);
     Objects.requireNonNull(listenerAnnotation);
@@ -93,12 +143,14 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
       nonAnnotatedClasses.add(targetClass);
     } else {
       MethodMapping methodMapping = buildMethodMapping(handlerMethods, targetClass);
-      MessageHandler messageHandler =
+      AsyncDispositionHandler messageHandler =
           new MessageAttributeMappingMessageHandler(bean, methodMapping);
-      SqsQueueAttributes queue = createQueueAttributes(listenerAnnotation, messageHandler);
-
-      MessageListener listener = messageListenerFactory.createListener(queue);
-      listenerRegistry.registerListener(listener);
+      SqsQueueAttributes queue =
+          createQueueAttributes(
+              listenerAnnotation,
+              messageHandler,
+              MessageAttributeMappingMessageHandler.WELL_KNOWN_ATTRIBUTE_KEY);
+      registerListener(queue);
     }
   }
 
@@ -113,24 +165,47 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
         SqsListener value = entry.getValue();
 
         SqsQueueAttributes queue =
-            createQueueAttributes(value, new MethodMessageHandler(key, bean));
-        MessageListener listener = messageListenerFactory.createListener(queue);
-        listenerRegistry.registerListener(listener);
+            createQueueAttributes(value, new MethodMessageHandler(key, bean), null);
+        registerListener(queue);
       }
     }
   }
 
+  private void registerListener(SqsQueueAttributes queue) {
+    MessageListener listener = messageListenerFactory.createListener(queue);
+    if (queue.getId() == null) {
+      listenerRegistry.registerListener(listener);
+    } else {
+      listenerRegistry.registerListener(queue.getId(), listener);
+    }
+  }
+
   private SqsQueueAttributes createQueueAttributes(
-      SqsListener listenerAnnotation, MessageHandler messageHandler) {
+      SqsListener listenerAnnotation,
+      AsyncDispositionHandler messageHandler,
+      String messageTypeAttribute) {
+    MessageKeyExtractor keyExtractor = getKeyExtractor(listenerAnnotation);
     return SqsQueueAttributes.builder()
+        .id(resolveToOptionalString(listenerAnnotation.id()))
         .url(resolveToString(listenerAnnotation.url()))
         .errorHandler(getErrorHandler(listenerAnnotation))
         .longPolling(PollMode.LONG.equals(listenerAnnotation.pollMode()))
         .autoAcknowledge(AckMode.AUTO.equals(listenerAnnotation.ackMode()))
         .handler(messageHandler)
         .maxBatchSize(resolveToInteger(listenerAnnotation.maxBatchSize()))
-        .visibilityTimeoutSeconds(resolveToInteger(listenerAnnotation.visibilityTimeout()))
+        .visibilityTimeoutSeconds(
+            resolveToOptionalInteger(listenerAnnotation.visibilityTimeout()))
         .concurrency(resolveToInteger(listenerAnnotation.concurrency()))
+        .backoffPolicy(getBackoffPolicy(listenerAnnotation))
+        .poolSize(resolveToOptionalInteger(listenerAnnotation.poolSize()))
+        .handlerTimeout(resolveToOptionalSeconds(listenerAnnotation.handlerTimeout()))
+        .keyExtractor(keyExtractor)
+        .lanes(resolveToOptionalInteger(listenerAnnotation.lanes()))
+        .laneCapacity(resolveToOptionalInteger(listenerAnnotation.laneCapacity()))
+        .conflationPolicy(getConflationPolicy(listenerAnnotation, keyExtractor))
+        .maxAgePolicy(getMaxAgePolicy(listenerAnnotation))
+        .messageAttributeNames(getMessageAttributeNames(listenerAnnotation))
+        .messageTypeAttribute(messageTypeAttribute)
         .build();
   }
 
@@ -151,6 +226,7 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
   private MethodMapping buildMethodMapping(
       Map<Method, SqsHandler> handlerMethods, Class<?> target) {
     Map<String, Method> methodMap = new HashMap<>(handlerMethods.size());
+    Map<Method, Integer> maxConcurrency = new HashMap<>();
     Method defaultMethod = null;
 
     for (Entry<Method, SqsHandler> entry : handlerMethods.entrySet()) {
@@ -167,8 +243,14 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
       if (!handlerAnnotation.messageType().isBlank()) {
         methodMap.put(handlerAnnotation.messageType(), method);
       }
+      if (handlerAnnotation.maxConcurrency() < 0) {
+        throw new IllegalArgumentException("handler method maxConcurrency can not be negative");
+      }
+      if (handlerAnnotation.maxConcurrency() > 0) {
+        maxConcurrency.put(method, handlerAnnotation.maxConcurrency());
+      }
     }
-    return new MethodMapping(Map.copyOf(methodMap), defaultMethod);
+    return new MethodMapping(Map.copyOf(methodMap), defaultMethod, maxConcurrency);
   }
 
   private String resolveToString(String value) {
@@ -185,6 +267,19 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
     return Integer.valueOf((String) resolved);
   }
 
+  private String resolveToOptionalString(String value) {
+    return value.isEmpty() ? null : resolveToString(value);
+  }
+
+  private Integer resolveToOptionalInteger(String value) {
+    return value.isEmpty() ? null : resolveToInteger(value);
+  }
+
+  private Duration resolveToOptionalSeconds(String value) {
+    Integer seconds = resolveToOptionalInteger(value);
+    return seconds == null ? null : Duration.ofSeconds(seconds);
+  }
+
   private Object resolveSpEl(String value) {
     String resolved = this.beanFactory.resolveEmbeddedValue(value);
     return resolver.evaluate(resolved, this.expressionContext);
@@ -201,6 +296,76 @@ public class MessageListenerAnnotatedMethodBeanPostProcessor
     }
   }
 
+  private BackoffPolicy getBackoffPolicy(SqsListener listener) {
+    if (listener.backoffPolicy().isEmpty()) {
+      return null;
+    }
+    try {
+      return (BackoffPolicy) resolver.evaluate(listener.backoffPolicy(), this.expressionContext);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to register backoff policy bean", e);
+    }
+  }
+
+  private MessageKeyExtractor getKeyExtractor(SqsListener listener) {
+    if (!listener.keyExtractor().isEmpty()) {
+      try {
+        return (MessageKeyExtractor)
+            resolver.evaluate(listener.keyExtractor(), this.expressionContext);
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to register key extractor bean", e);
+      }
+    }
+    String keyAttribute = resolveToOptionalString(listener.keyAttribute());
+    return keyAttribute == null ? null : MessageKeyExtractor.attribute(keyAttribute);
+  }
+
+  private ConflationPolicy getConflationPolicy(
+      SqsListener listener, MessageKeyExtractor keyExtractor) {
+    Integer window = resolveToOptionalInteger(listener.conflationWindow());
+    if (window == null) {
+      return null;
+    }
+    if (keyExtractor == null) {
+      throw new IllegalArgumentException("conflationWindow requires keyAttribute or keyExtractor");
+    }
+    return ConflationPolicy.builder()
+        .keyExtractor(keyExtractor)
+        .window(Duration.ofMillis(window))
+        .versionAttribute(resolveToOptionalString(listener.conflationVersionAttribute()))
+        .build();
+  }
+
+  /**
+   * Handler methods receive the raw message, so all attributes are requested unless the listener
+   * declares the attributes it reads. The listener adds the attributes it reads itself, e.g. the
+   * {@code messageType} the handler mapping routes by.
+   *
+   * @return attribute names or {@code null} to request all of them
+   */
+  private List<String> getMessageAttributeNames(SqsListener listener) {
+    if (listener.messageAttributes().length == 0) {
+      return null;
+    }
+    List<String> names = new ArrayList<>();
+    for (String attribute : listener.messageAttributes()) {
+      names.add(resolveToString(attribute));
+    }
+    return names.contains(ALL_ATTRIBUTES) ? null : names;
+  }
+
+  private MaxAgePolicy getMaxAgePolicy(SqsListener listener) {
+    Duration maxAge = resolveToOptionalSeconds(listener.maxMessageAge());
+    String divertQueue = resolveToOptionalString(listener.expiredMessageQueue());
+    if (maxAge == null) {
+      if (divertQueue != null) {
+        throw new IllegalArgumentException("expiredMessageQueue requires maxMessageAge");
+      }
+      return null;
+    }
+    return MaxAgePolicy.builder().maxAge(maxAge).divertQueue(divertQueue).build();
+  }
+
   @Override
   public int getOrder() {
     return Ordered.LOWEST_PRECEDENCE;
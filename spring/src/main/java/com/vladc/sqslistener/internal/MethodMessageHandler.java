@@ -1,11 +1,14 @@
 package com.vladc.sqslistener.internal;
 
-import com.vladc.sqslistener.MessageHandler;
+import com.vladc.sqslistener.AsyncDispositionHandler;
+import com.vladc.sqslistener.Disposition;
+import com.vladc.sqslistener.WarmUpHook;
 import java.lang.reflect.Method;
-import org.springframework.util.ReflectionUtils;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 import software.amazon.awssdk.services.sqs.model.Message;
 
-class MethodMessageHandler implements MessageHandler {
+class MethodMessageHandler implements AsyncDispositionHandler, WarmUpHook {
 
   private final Method method;
   private final Object target;
@@ -16,8 +19,12 @@ class MethodMessageHandler implements MessageHandler {
   }
 
   @Override
-  public void handle(Message message) {
-    ReflectionUtils.makeAccessible(method);
-    ReflectionUtils.invokeMethod(method, target, message);
+  public CompletionStage<Disposition> handle(Message message) {
+    return HandlerMethods.invoke(method, target, message);
+  }
+
+  @Override
+  public void warmUp() throws Exception {
+    HandlerMethods.warmUp(target, List.of(method));
   }
 }
@@ -0,0 +1,108 @@
+package com.vladc.sqslistener.internal;
+
+import com.vladc.sqslistener.SqsMessageListener;
+import com.vladc.sqslistener.annotation.SqsListener;
+import com.vladc.sqslistener.index.SqsListenerIndex;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanExpressionContext;
+import org.springframework.beans.factory.config.BeanExpressionResolver;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.MethodIntrospector.MetadataLookup;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Sizes the connection pool of the default {@code SqsClient} before any listener exists, from the
+ * {@code @SqsListener} annotations of registered bean definitions. Every consumer holds a
+ * connection for its long poll, acknowledgements take up to {@linkplain
+ * SqsMessageListener#MAX_ACKNOWLEDGEMENT_CONNECTIONS} per listener and the rest of the application
+ * shares the headroom. Classes covered by a {@linkplain SqsListenerIndex} are not introspected
+ * unless they are indexed.
+ */
+@Slf4j
+public final class SqsClientPoolSizing {
+
+  /** Pool size of the SDK default client, the computed size never goes below it. */
+  static final int MIN_CONNECTIONS = 50;
+
+  private SqsClientPoolSizing() {}
+
+  /** @param listenerIndex index of the class path or {@code null} to introspect all classes */
+  public static int maxConnections(
+      ConfigurableListableBeanFactory beanFactory, int headroom, SqsListenerIndex listenerIndex) {
+    List<Integer> concurrency = listenerConcurrency(beanFactory, listenerIndex);
+    int consumers = concurrency.stream().mapToInt(Integer::intValue).sum();
+    int size =
+        Math.max(
+            MIN_CONNECTIONS,
+            consumers
+                + concurrency.size() * SqsMessageListener.MAX_ACKNOWLEDGEMENT_CONNECTIONS
+                + headroom);
+    log.debug(
+        "{} listeners with {} consumers, sizing SqsClient pool to {} connections",
+        concurrency.size(),
+        consumers,
+        size);
+    return size;
+  }
+
+  /** @return concurrency of each listener declared by a bean definition */
+  static List<Integer> listenerConcurrency(
+      ConfigurableListableBeanFactory beanFactory, SqsListenerIndex listenerIndex) {
+    List<Integer> concurrency = new ArrayList<>();
+    for (String name : beanFactory.getBeanDefinitionNames()) {
+      Class<?> type;
+      try {
+        type = beanFactory.getType(name, false);
+      } catch (RuntimeException e) {
+        continue;
+      }
+      if (type == null) {
+        continue;
+      }
+      Class<?> targetClass = ClassUtils.getUserClass(type);
+      if (!isCandidateClass(targetClass, listenerIndex)) {
+        continue;
+      }
+      SqsListener classListener = AnnotationUtils.findAnnotation(targetClass, SqsListener.class);
+      if (classListener != null) {
+        concurrency.add(resolveConcurrency(beanFactory, classListener));
+        continue;
+      }
+      MethodIntrospector.selectMethods(
+              targetClass,
+              (MetadataLookup<SqsListener>)
+                  method ->
+                      AnnotatedElementUtils.findMergedAnnotation(method, SqsListener.class))
+          .values()
+          .forEach(listener -> concurrency.add(resolveConcurrency(beanFactory, listener)));
+    }
+    return concurrency;
+  }
+
+  private static boolean isCandidateClass(Class<?> targetClass, SqsListenerIndex listenerIndex) {
+    if (listenerIndex != null && listenerIndex.covers(targetClass)) {
+      return listenerIndex.isCandidate(targetClass);
+    }
+    return AnnotationUtils.isCandidateClass(targetClass, SqsListener.class);
+  }
+
+  private static int resolveConcurrency(
+      ConfigurableListableBeanFactory beanFactory, SqsListener listener) {
+    try {
+      Object value = beanFactory.resolveEmbeddedValue(listener.concurrency());
+      BeanExpressionResolver resolver = beanFactory.getBeanExpressionResolver();
+      if (resolver != null) {
+        value = resolver.evaluate((String) value, new BeanExpressionContext(beanFactory, null));
+      }
+      return Integer.parseInt(String.valueOf(value));
+    } catch (RuntimeException e) {
+      // the listener factory reports invalid values, one consumer until then
+      return 1;
+    }
+  }
+}
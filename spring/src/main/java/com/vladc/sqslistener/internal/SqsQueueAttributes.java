@@ -1,7 +1,17 @@
 package com.vladc.sqslistener.internal;
 
+import com.vladc.sqslistener.AsyncDispositionHandler;
+import com.vladc.sqslistener.BackoffPolicy;
+import com.vladc.sqslistener.ConflationPolicy;
+import com.vladc.sqslistener.Disposition;
 import com.vladc.sqslistener.ErrorHandler;
+import com.vladc.sqslistener.MaxAgePolicy;
 import com.vladc.sqslistener.MessageHandler;
+import com.vladc.sqslistener.MessageKeyExtractor;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,12 +19,50 @@ import lombok.Data;
 @Builder
 public class SqsQueueAttributes {
 
+  private static final CompletionStage<Disposition> ACK =
+      CompletableFuture.completedFuture(Disposition.ack());
+
+  private final String id;
   private final String url;
   private final Integer maxBatchSize;
   private final Integer visibilityTimeoutSeconds;
-  private final MessageHandler handler;
+  private final AsyncDispositionHandler handler;
   private final ErrorHandler errorHandler;
   private final Boolean longPolling;
   private final Boolean autoAcknowledge;
   private final Integer concurrency;
+  private final BackoffPolicy backoffPolicy;
+  private final Integer poolSize;
+  private final Duration handlerTimeout;
+  private final MessageKeyExtractor keyExtractor;
+  private final Integer lanes;
+  private final Integer laneCapacity;
+  private final ConflationPolicy conflationPolicy;
+  private final MaxAgePolicy maxAgePolicy;
+
+  /** Message attributes requested on receive, all attributes if {@code null}. */
+  private final List<String> messageAttributeNames;
+
+  /** Message attribute the handler methods are mapped by, the listener default if {@code null}. */
+  private final String messageTypeAttribute;
+
+  public static class SqsQueueAttributesBuilder {
+
+    public SqsQueueAttributesBuilder handler(AsyncDispositionHandler handler) {
+      this.handler = handler;
+      return this;
+    }
+
+    /** Adapts a synchronous handler, the message is acknowledged when it returns. */
+    public SqsQueueAttributesBuilder handler(MessageHandler handler) {
+      this.handler =
+          handler == null
+              ? null
+              : message -> {
+                handler.handle(message);
+                return ACK;
+              };
+      return this;
+    }
+  }
 }
@@ -0,0 +1,32 @@
+package com.vladc.sqslistener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ReflectConfigTest {
+
+  private static final String REFLECT_CONFIG =
+      "META-INF/native-image/io.github.vladcar/simple-sqs-listener-spring-boot/reflect-config.json";
+
+  @Test
+  void coversAllPropertiesClasses() throws IOException {
+    String reflectConfig;
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream(REFLECT_CONFIG)) {
+      assertThat(in).isNotNull();
+      reflectConfig = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    assertThat(reflectConfig).contains(entry(MessageListenerProperties.class));
+    Arrays.stream(MessageListenerProperties.class.getDeclaredClasses())
+        .forEach(nested -> assertThat(reflectConfig).contains(entry(nested)));
+  }
+
+  private static String entry(Class<?> type) {
+    return "{\"name\": \"%s\", \"allDeclaredConstructors\": true".formatted(type.getName());
+  }
+}
@@ -0,0 +1,103 @@
+package com.vladc.sqslistener.actuate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vladc.sqslistener.ListenerSettings;
+import com.vladc.sqslistener.ListenerStats;
+import com.vladc.sqslistener.ManageableMessageListener;
+import com.vladc.sqslistener.MessageListener;
+import com.vladc.sqslistener.SqsListenerRegistry;
+import com.vladc.sqslistener.actuate.SqsListenersEndpoint.ListenerDescriptor;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SqsListenersEndpointTest {
+
+  @Mock private SqsListenerRegistry registry;
+  @Mock private ManageableMessageListener listener;
+  @Captor private ArgumentCaptor<ListenerSettings> settingsCaptor;
+
+  private SqsListenersEndpoint underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new SqsListenersEndpoint(registry);
+    when(registry.getListeners()).thenReturn(Map.of("orders", listener));
+    when(registry.getListener("orders")).thenReturn(listener);
+    when(listener.getSettings()).thenReturn(ListenerSettings.builder().concurrency(2).build());
+    when(listener.getStats())
+        .thenReturn(
+            ListenerStats.builder()
+                .queueUrl("ordersQueue")
+                .running(true)
+                .workerPoolSize(10)
+                .activeWorkers(5)
+                .lastReceiveTime(Instant.now().minusSeconds(30))
+                .build());
+  }
+
+  @Test
+  void listListeners() {
+    Map<String, ListenerDescriptor> listeners = underTest.listeners();
+
+    assertThat(listeners).containsOnlyKeys("orders");
+    ListenerDescriptor descriptor = listeners.get("orders");
+    assertThat(descriptor.getSettings().getConcurrency()).isEqualTo(2);
+    assertThat(descriptor.getStats().getQueueUrl()).isEqualTo("ordersQueue");
+    assertThat(descriptor.getExecutorSaturation()).isEqualTo(0.5);
+    assertThat(descriptor.getLastReceiveAgeSeconds()).isBetween(29L, 31L);
+    assertThat(underTest.listener("unknown")).isNull();
+  }
+
+  @Test
+  void updateListener() {
+    underTest.update("orders", true, 4, null);
+
+    verify(listener).reconfigure(settingsCaptor.capture());
+    verify(listener).pause();
+    assertThat(settingsCaptor.getValue().getConcurrency()).isEqualTo(4);
+
+    underTest.update("orders", false, null, null);
+    verify(listener).resume();
+  }
+
+  @Test
+  void updateListenerInvalidSettings() {
+    doThrow(new IllegalArgumentException("concurrency must be greater than 0"))
+        .when(listener)
+        .reconfigure(any());
+
+    assertThatThrownBy(() -> underTest.update("orders", null, 0, null))
+        .isInstanceOf(InvalidEndpointRequestException.class);
+  }
+
+  @Test
+  void unmanageableListener() {
+    when(registry.getListener("plain")).thenReturn(mock(MessageListener.class));
+
+    ListenerDescriptor descriptor = underTest.listener("plain");
+    assertThat(descriptor.getId()).isEqualTo("plain");
+    assertThat(descriptor.getSettings()).isNull();
+    assertThat(descriptor.getStats()).isNull();
+    assertThatThrownBy(() -> underTest.update("plain", true, null, null))
+        .isInstanceOf(InvalidEndpointRequestException.class);
+  }
+}
@@ -0,0 +1,89 @@
+package com.vladc.sqslistener.actuate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vladc.sqslistener.ListenerStats;
+import com.vladc.sqslistener.ManageableMessageListener;
+import com.vladc.sqslistener.MessageListener;
+import com.vladc.sqslistener.SqsListenerRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+
+@ExtendWith(MockitoExtension.class)
+class SqsListenersHealthIndicatorTest {
+
+  @Mock private SqsListenerRegistry registry;
+  @Mock private ManageableMessageListener listener;
+
+  private SqsListenersHealthIndicator underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new SqsListenersHealthIndicator(registry, Duration.ofMinutes(1), 3);
+    when(registry.getListeners()).thenReturn(Map.of("orders", listener));
+  }
+
+  @Test
+  void healthy() {
+    when(listener.getStats()).thenReturn(stats(0, Instant.now()));
+
+    assertThat(underTest.health().getStatus()).isEqualTo(Status.UP);
+  }
+
+  @Test
+  void stuckInBackoff() {
+    when(listener.getStats()).thenReturn(stats(3, Instant.now()));
+
+    assertThat(underTest.health().getStatus()).isEqualTo(Status.DOWN);
+    assertThat(underTest.health().getDetails().get("orders").toString()).contains("BACKOFF");
+  }
+
+  @Test
+  void stalled() {
+    when(listener.getStats()).thenReturn(stats(0, Instant.now().minusSeconds(120)));
+
+    assertThat(underTest.health().getStatus()).isEqualTo(Status.DOWN);
+    assertThat(underTest.health().getDetails().get("orders").toString()).contains("STALLED");
+  }
+
+  @Test
+  void busyConsumersAreNotStalled() {
+    when(listener.getStats()).thenReturn(stats(0, Instant.now().minusSeconds(120), 2));
+
+    assertThat(underTest.health().getStatus()).isEqualTo(Status.UP);
+    assertThat(underTest.health().getDetails().get("orders").toString()).contains("BUSY");
+  }
+
+  @Test
+  void unmanageableListenersAreSkipped() {
+    when(registry.getListeners()).thenReturn(Map.of("plain", mock(MessageListener.class)));
+
+    assertThat(underTest.health().getStatus()).isEqualTo(Status.UP);
+    assertThat(underTest.health().getDetails()).isEmpty();
+  }
+
+  private static ListenerStats stats(int receiveFailures, Instant lastReceiveTime) {
+    return stats(receiveFailures, lastReceiveTime, 0);
+  }
+
+  private static ListenerStats stats(
+      int receiveFailures, Instant lastReceiveTime, int consumersBusy) {
+    return ListenerStats.builder()
+        .queueUrl("ordersQueue")
+        .running(true)
+        .consumers(2)
+        .consumersBusy(consumersBusy)
+        .consecutiveReceiveFailures(receiveFailures)
+        .lastReceiveTime(lastReceiveTime)
+        .build();
+  }
+}
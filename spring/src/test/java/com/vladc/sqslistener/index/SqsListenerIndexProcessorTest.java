@@ -0,0 +1,167 @@
+package com.vladc.sqslistener.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SqsListenerIndexProcessorTest {
+
+  @TempDir Path sourceDir;
+  @TempDir Path outputDir;
+  @TempDir Path unindexedDir;
+
+  @Test
+  void indexesListenerClasses() throws Exception {
+    compile(
+        source(
+            "test.ClassListener",
+            "@com.vladc.sqslistener.annotation.SqsListener(url = \"queue\")",
+            "public class ClassListener {",
+            "  @com.vladc.sqslistener.annotation.SqsHandler(isDefault = true)",
+            "  public void handle(software.amazon.awssdk.services.sqs.model.Message m) {}",
+            "}"),
+        source(
+            "test.MethodListener",
+            "public class MethodListener {",
+            "  public static class Nested {",
+            "    @com.vladc.sqslistener.annotation.SqsListener(url = \"queue\")",
+            "    public void handle(software.amazon.awssdk.services.sqs.model.Message m) {}",
+            "  }",
+            "}"),
+        source("test.Unrelated", "public class Unrelated {}"));
+
+    assertThat(readIndex()).containsExactly("test.ClassListener", "test.MethodListener$Nested");
+    assertThat(outputDir.resolve(SqsListenerIndexProcessor.REFLECT_CONFIG_LOCATION))
+        .content()
+        .contains("\"name\": \"test.ClassListener\"", "\"name\": \"test.MethodListener$Nested\"")
+        .doesNotContain("test.Unrelated");
+  }
+
+  @Test
+  void keepsEntriesOfClassesNotRecompiled() throws Exception {
+    compile(
+        source(
+            "test.ClassListener",
+            "@com.vladc.sqslistener.annotation.SqsListener(url = \"queue\")",
+            "public class ClassListener {}"));
+    compile(
+        source(
+            "test.OtherListener",
+            "@com.vladc.sqslistener.annotation.SqsListener(url = \"queue\")",
+            "public class OtherListener {}"));
+
+    assertThat(readIndex()).containsExactly("test.ClassListener", "test.OtherListener");
+
+    try (URLClassLoader classLoader =
+        new URLClassLoader(new URL[] {outputDir.toUri().toURL()}, getClass().getClassLoader())) {
+      SqsListenerIndex index = SqsListenerIndex.load(classLoader);
+      assertThat(index).isNotNull();
+      assertThat(index.isCandidate(classLoader.loadClass("test.ClassListener"))).isTrue();
+      assertThat(index.isCandidate(Object.class)).isFalse();
+    }
+  }
+
+  @Test
+  void coversOnlyClassPathRootsWithIndex() throws Exception {
+    compile(
+        source(
+            "test.ClassListener",
+            "@com.vladc.sqslistener.annotation.SqsListener(url = \"queue\")",
+            "public class ClassListener {}"),
+        source("test.Unindexed", "public class Unindexed {}"));
+    // as if compiled into another jar without the processor
+    Files.createDirectories(unindexedDir.resolve("test"));
+    Files.move(
+        outputDir.resolve("test/Unindexed.class"), unindexedDir.resolve("test/Unindexed.class"));
+
+    try (URLClassLoader classLoader =
+        new URLClassLoader(
+            new URL[] {outputDir.toUri().toURL(), unindexedDir.toUri().toURL()},
+            getClass().getClassLoader())) {
+      SqsListenerIndex index = SqsListenerIndex.load(classLoader);
+      assertThat(index).isNotNull();
+      assertThat(index.covers(classLoader.loadClass("test.ClassListener"))).isTrue();
+      assertThat(index.covers(classLoader.loadClass("test.Unindexed"))).isFalse();
+      assertThat(index.covers(Object.class)).isFalse();
+    }
+  }
+
+  @Test
+  void looksUpEachClassPathRootOnce() throws Exception {
+    compile(
+        source(
+            "test.ClassListener",
+            "@com.vladc.sqslistener.annotation.SqsListener(url = \"queue\")",
+            "public class ClassListener {}"),
+        source("test.Other", "public class Other {}"));
+    AtomicInteger lookups = new AtomicInteger();
+
+    try (URLClassLoader classLoader =
+        new URLClassLoader(new URL[] {outputDir.toUri().toURL()}, getClass().getClassLoader()) {
+          @Override
+          public URL getResource(String name) {
+            if (name.endsWith(".class")) {
+              lookups.incrementAndGet();
+            }
+            return super.getResource(name);
+          }
+        }) {
+      SqsListenerIndex index = SqsListenerIndex.load(classLoader);
+      assertThat(index).isNotNull();
+      assertThat(index.covers(classLoader.loadClass("test.ClassListener"))).isTrue();
+      assertThat(index.covers(classLoader.loadClass("test.Other"))).isTrue();
+      assertThat(index.covers(classLoader.loadClass("test.ClassListener"))).isTrue();
+      assertThat(lookups).hasValue(1);
+    }
+  }
+
+  private Path source(String className, String... lines) throws Exception {
+    Path file = sourceDir.resolve(className.replace('.', '/') + ".java");
+    Files.createDirectories(file.getParent());
+    String packageName = className.substring(0, className.lastIndexOf('.'));
+    Files.writeString(file, "package " + packageName + ";\n" + String.join("\n", lines));
+    return file;
+  }
+
+  private void compile(Path... sources) throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, null)) {
+      Iterable<? extends JavaFileObject> units =
+          fileManager.getJavaFileObjects(
+              Stream.of(sources).map(Path::toFile).toArray(File[]::new));
+      // classes of previous compilations resolve previous index entries
+      String classPath = System.getProperty("java.class.path") + File.pathSeparator + outputDir;
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              null,
+              List.of("-classpath", classPath, "-d", outputDir.toString()),
+              null,
+              units);
+      task.setProcessors(List.of(new SqsListenerIndexProcessor()));
+      assertThat(task.call()).isTrue();
+    }
+  }
+
+  private List<String> readIndex() throws Exception {
+    return Files.readAllLines(outputDir.resolve(SqsListenerIndex.INDEX_LOCATION)).stream()
+        .filter(line -> !line.isBlank())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,82 @@
+package com.vladc.sqslistener.internal;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vladc.sqslistener.MessageListener;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultSqsListenerRegistryTest {
+
+  @Mock private ConfigurableApplicationContext applicationContext;
+  @Mock private ConfigurableListableBeanFactory beanFactory;
+  @Mock private MessageListener orders;
+  @Mock private MessageListener payments;
+
+  private DefaultSqsListenerRegistry underTest;
+
+  @BeforeEach
+  void setUp() {
+    when(applicationContext.getBeanFactory()).thenReturn(beanFactory);
+    underTest = new DefaultSqsListenerRegistry(Duration.ofMillis(200));
+    underTest.setApplicationContext(applicationContext);
+    underTest.registerListener("orders", orders);
+    underTest.registerListener("payments", payments);
+  }
+
+  @Test
+  void listenerBeanNamesArePrefixed() {
+    verify(beanFactory).registerSingleton("sqsListener.orders", orders);
+    verify(beanFactory).registerSingleton("sqsListener.payments", payments);
+  }
+
+  @Test
+  void listenersArePreparedBeforeSubscribe() {
+    underTest.start();
+
+    verify(orders).prepare();
+    verify(payments).prepare();
+    verify(orders).subscribe();
+    verify(payments).subscribe();
+  }
+
+  @Test
+  void failedValidationPreventsStart() {
+    doThrow(new IllegalStateException("missing queue")).when(payments).prepare();
+
+    assertThatThrownBy(underTest::start)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("payments")
+        .hasRootCauseMessage("missing queue");
+    verify(orders, never()).subscribe();
+  }
+
+  @Test
+  void validationTimesOut() {
+    doAnswer(
+            i -> {
+              TimeUnit.SECONDS.sleep(5);
+              return null;
+            })
+        .when(orders)
+        .prepare();
+
+    assertThatThrownBy(underTest::start)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("pending listeners: orders");
+    verify(payments, never()).subscribe();
+  }
+}
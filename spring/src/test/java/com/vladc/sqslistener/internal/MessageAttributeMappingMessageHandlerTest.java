@@ -1,12 +1,18 @@
 package com.vladc.sqslistener.internal;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
+import com.vladc.sqslistener.Disposition;
+import com.vladc.sqslistener.WarmUpHook;
 import com.vladc.sqslistener.internal.MessageAttributeMappingMessageHandler.MethodMapping;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
@@ -89,10 +95,94 @@ class MessageAttributeMappingMessageHandlerTest {
                 .formatted(notExistingAttribute));
   }
 
+  @Test
+  void handleDefersMessagesAboveMaxConcurrency() throws Exception {
+    BlockingTarget target = new BlockingTarget();
+    Method method = target.getClass().getMethod("targetMethod", Message.class);
+    MethodMapping methodMapping =
+        new MethodMapping(Map.of("slow", method), null, Map.of(method, 1));
+    underTest = new MessageAttributeMappingMessageHandler(target, methodMapping);
+
+    Thread worker = new Thread(() -> underTest.handle(createSqsMessageWithTypeAttribute("slow")));
+    worker.start();
+    assertThat(target.started.await(1, TimeUnit.SECONDS)).isTrue();
+
+    Disposition deferred =
+        underTest.handle(createSqsMessageWithTypeAttribute("slow")).toCompletableFuture().join();
+    assertThat(deferred.getType()).isEqualTo(Disposition.Type.RETRY_AFTER);
+    assertThat(deferred.getDelay()).isPositive();
+
+    target.release.countDown();
+    worker.join(1000);
+    assertThat(underTest.handle(createSqsMessageWithTypeAttribute("slow")))
+        .isCompletedWithValue(Disposition.ack());
+  }
+
+  @Test
+  void handleAsyncMethodHoldsPermitUntilCompletion() throws Exception {
+    AsyncTarget target = new AsyncTarget();
+    Method method = target.getClass().getMethod("targetMethod", Message.class);
+    MethodMapping methodMapping =
+        new MethodMapping(Map.of("async", method), null, Map.of(method, 1));
+    underTest = new MessageAttributeMappingMessageHandler(target, methodMapping);
+
+    CompletableFuture<Disposition> first =
+        underTest.handle(createSqsMessageWithTypeAttribute("async")).toCompletableFuture();
+    assertThat(first).isNotDone();
+    assertThat(underTest.handle(createSqsMessageWithTypeAttribute("async")))
+        .isCompletedWithValueMatching(d -> d.getType() == Disposition.Type.RETRY_AFTER);
+
+    target.result.complete(Disposition.release());
+    assertThat(first).isCompletedWithValue(Disposition.release());
+    assertThat(underTest.handle(createSqsMessageWithTypeAttribute("async")))
+        .isCompletedWithValue(Disposition.release());
+  }
+
   static class TestTarget {
     public void targetMethod(Message message) {}
   }
 
+  static class AsyncTarget {
+    private final CompletableFuture<Disposition> result = new CompletableFuture<>();
+
+    public CompletableFuture<Disposition> targetMethod(Message message) {
+      return result;
+    }
+  }
+
+  @Test
+  void warmUpRunsTargetHook() throws Exception {
+    WarmUpTarget target = new WarmUpTarget();
+    Method method = target.getClass().getMethod("targetMethod", Message.class);
+    underTest =
+        new MessageAttributeMappingMessageHandler(target, new MethodMapping(Map.of(), method));
+
+    underTest.warmUp();
+
+    assertThat(target.warmedUp).isTrue();
+  }
+
+  static class WarmUpTarget implements WarmUpHook {
+    private boolean warmedUp;
+
+    @Override
+    public void warmUp() {
+      warmedUp = true;
+    }
+
+    public void targetMethod(Message message) {}
+  }
+
+  static class BlockingTarget {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    public void targetMethod(Message message) throws InterruptedException {
+      started.countDown();
+      release.await();
+    }
+  }
+
   public static Message createSqsMessageWithTypeAttribute(String messageType) {
     return createSqsMessage(
         Map.of("messageType", MessageAttributeValue.builder().stringValue(messageType).build()),
@@ -0,0 +1,67 @@
+package com.vladc.sqslistener.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vladc.sqslistener.SqsMessageListener;
+import com.vladc.sqslistener.annotation.SqsHandler;
+import com.vladc.sqslistener.annotation.SqsListener;
+import com.vladc.sqslistener.index.SqsListenerIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+class SqsClientPoolSizingTest {
+
+  private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+  @Test
+  void testListenerConcurrencyIsCollected() {
+    beanFactory.registerBeanDefinition("classLevel", new RootBeanDefinition(ClassLevel.class));
+    beanFactory.registerBeanDefinition("methodLevel", new RootBeanDefinition(MethodLevel.class));
+    beanFactory.registerBeanDefinition("other", new RootBeanDefinition(Object.class));
+
+    assertThat(SqsClientPoolSizing.listenerConcurrency(beanFactory, null))
+        .containsExactlyInAnyOrder(40, 1, 1);
+    assertThat(SqsClientPoolSizing.maxConnections(beanFactory, 10, null))
+        .isEqualTo(42 + 3 * SqsMessageListener.MAX_ACKNOWLEDGEMENT_CONNECTIONS + 10);
+  }
+
+  @Test
+  void testIndexedClassesAreNotIntrospected() {
+    beanFactory.registerBeanDefinition("classLevel", new RootBeanDefinition(ClassLevel.class));
+    beanFactory.registerBeanDefinition("methodLevel", new RootBeanDefinition(MethodLevel.class));
+    SqsListenerIndex index = mock(SqsListenerIndex.class);
+    when(index.covers(any())).thenReturn(true);
+    when(index.isCandidate(ClassLevel.class)).thenReturn(true);
+
+    assertThat(SqsClientPoolSizing.listenerConcurrency(beanFactory, index)).containsExactly(40);
+  }
+
+  @Test
+  void testPoolIsNotSmallerThanSdkDefault() {
+    beanFactory.registerBeanDefinition("methodLevel", new RootBeanDefinition(MethodLevel.class));
+
+    assertThat(SqsClientPoolSizing.maxConnections(beanFactory, 10, null))
+        .isEqualTo(SqsClientPoolSizing.MIN_CONNECTIONS);
+  }
+
+  @SqsListener(url = "classQueue", concurrency = "40")
+  static class ClassLevel {
+
+    @SqsHandler(isDefault = true)
+    void handle(Message message) {}
+  }
+
+  static class MethodLevel {
+
+    @SqsListener(url = "firstQueue")
+    void first(Message message) {}
+
+    @SqsListener(url = "secondQueue", concurrency = "${undefined}")
+    void second(Message message) {}
+  }
+}
@@ -49,5 +49,8 @@ class SqsListenerAnnotatedMethodBeanPostProcessorTest {
         .isEqualTo(env.getProperty("messaging.sqs.visibilityTimeoutSeconds", Integer.class));
     assertThat(queue.getHandler()).isExactlyInstanceOf(MessageAttributeMappingMessageHandler.class);
     assertThat(queue.getErrorHandler()).isExactlyInstanceOf(TestErrorHandler.class);
+    // handler methods receive the raw message with all attributes
+    assertThat(queue.getMessageAttributeNames()).isNull();
+    assertThat(queue.getMessageTypeAttribute()).isEqualTo("messageType");
   }
 }
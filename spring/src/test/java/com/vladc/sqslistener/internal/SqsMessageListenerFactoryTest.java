@@ -4,7 +4,9 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.when;
 
 import com.vladc.sqslistener.MessageListener;
+import com.vladc.sqslistener.MessageListenerProperties;
 import com.vladc.sqslistener.SqsMessageListenerFactory;
+import java.time.Duration;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 import org.junit.jupiter.api.Test;
@@ -44,4 +46,105 @@ class SqsMessageListenerFactoryTest {
     MessageListener listener = underTest.createListener(queue);
     assertThat(listener).isNotNull();
   }
+
+  @Test
+  void resolvePoolSize() {
+    MessageListenerProperties properties = new MessageListenerProperties();
+    MessageListenerProperties.Listener listenerProperties = new MessageListenerProperties.Listener();
+    listenerProperties.setPoolSize(7);
+    properties.getListeners().put("configured", listenerProperties);
+    DefaultSqsMessageListenerFactory underTest =
+        DefaultSqsMessageListenerFactory.builder()
+            .sqsClient(mockSqsClient)
+            .properties(properties)
+            .build();
+
+    assertThat(underTest.resolvePoolSize(SqsQueueAttributes.builder().id("configured").build()))
+        .isEqualTo(7);
+    assertThat(
+            underTest.resolvePoolSize(
+                SqsQueueAttributes.builder().id("configured").poolSize(3).build()))
+        .isEqualTo(7);
+    assertThat(underTest.resolvePoolSize(SqsQueueAttributes.builder().poolSize(3).build()))
+        .isEqualTo(3);
+    assertThat(underTest.resolvePoolSize(SqsQueueAttributes.builder().id("other").build()))
+        .isNull();
+  }
+
+  @Test
+  void resolveHandlerTimeout() {
+    MessageListenerProperties properties = new MessageListenerProperties();
+    MessageListenerProperties.Listener listenerProperties = new MessageListenerProperties.Listener();
+    listenerProperties.setHandlerTimeout(Duration.ofSeconds(5));
+    properties.getListeners().put("configured", listenerProperties);
+    DefaultSqsMessageListenerFactory underTest =
+        DefaultSqsMessageListenerFactory.builder()
+            .sqsClient(mockSqsClient)
+            .properties(properties)
+            .build();
+
+    assertThat(
+            underTest.resolveHandlerTimeout(
+                SqsQueueAttributes.builder()
+                    .id("configured")
+                    .handlerTimeout(Duration.ofSeconds(1))
+                    .build()))
+        .isEqualTo(Duration.ofSeconds(5));
+    assertThat(
+            underTest.resolveHandlerTimeout(
+                SqsQueueAttributes.builder().handlerTimeout(Duration.ofSeconds(1)).build()))
+        .isEqualTo(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void resolveCostAccountingPolicy() {
+    MessageListenerProperties properties = new MessageListenerProperties();
+    MessageListenerProperties.Listener sampled = new MessageListenerProperties.Listener();
+    sampled.setCostSamplingRate(0.5);
+    properties.getListeners().put("sampled", sampled);
+    MessageListenerProperties.Listener disabled = new MessageListenerProperties.Listener();
+    disabled.setCostSamplingRate(0.0);
+    properties.getListeners().put("disabled", disabled);
+    DefaultSqsMessageListenerFactory underTest =
+        DefaultSqsMessageListenerFactory.builder()
+            .sqsClient(mockSqsClient)
+            .properties(properties)
+            .build();
+
+    assertThat(underTest.resolveCostAccountingPolicy(SqsQueueAttributes.builder().build()))
+        .isNull();
+    assertThat(
+            underTest
+                .resolveCostAccountingPolicy(SqsQueueAttributes.builder().id("sampled").build())
+                .getSamplingRate())
+        .isEqualTo(0.5);
+
+    properties.getCostAccounting().setEnabled(true);
+    assertThat(
+            underTest
+                .resolveCostAccountingPolicy(SqsQueueAttributes.builder().id("other").build())
+                .getSamplingRate())
+        .isEqualTo(0.01);
+    assertThat(
+            underTest.resolveCostAccountingPolicy(
+                SqsQueueAttributes.builder().id("disabled").build()))
+        .isNull();
+  }
+
+  @Test
+  void resolveWarmUp() {
+    MessageListenerProperties properties = new MessageListenerProperties();
+    MessageListenerProperties.Listener cold = new MessageListenerProperties.Listener();
+    cold.setWarmUp(false);
+    properties.getListeners().put("cold", cold);
+    properties.setWarmUp(true);
+    DefaultSqsMessageListenerFactory underTest =
+        DefaultSqsMessageListenerFactory.builder()
+            .sqsClient(mockSqsClient)
+            .properties(properties)
+            .build();
+
+    assertThat(underTest.resolveWarmUp(SqsQueueAttributes.builder().id("warm").build())).isTrue();
+    assertThat(underTest.resolveWarmUp(SqsQueueAttributes.builder().id("cold").build())).isFalse();
+  }
 }
@@ -0,0 +1,29 @@
+package com.vladc.sqslistener.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+import com.vladc.sqslistener.Disposition;
+import com.vladc.sqslistener.MessageHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+@ExtendWith(MockitoExtension.class)
+class SqsQueueAttributesTest {
+
+  @Mock private MessageHandler messageHandler;
+
+  @Test
+  void adaptsMessageHandler() {
+    Message message = Message.builder().messageId("testId").build();
+
+    SqsQueueAttributes queue = SqsQueueAttributes.builder().handler(messageHandler).build();
+
+    Disposition disposition = queue.getHandler().handle(message).toCompletableFuture().join();
+    assertThat(disposition.getType()).isEqualTo(Disposition.ack().getType());
+    verify(messageHandler).handle(message);
+  }
+}